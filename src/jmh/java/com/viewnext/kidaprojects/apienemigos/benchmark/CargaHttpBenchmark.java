@@ -0,0 +1,93 @@
+package com.viewnext.kidaprojects.apienemigos.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+
+/**
+ * Prueba de carga HTTP que compara los hilos de plataforma de Tomcat con los
+ * hilos virtuales ({@code spring.threads.virtual.enabled}) con muchos clientes
+ * concurrentes. Cada solicitud ejecuta una consulta SQL con una latencia
+ * simulada, por lo que el hilo que la atiende queda bloqueado como con MySQL.
+ *
+ * <p>
+ * El modo {@code SampleTime} informa de la latencia media y de los percentiles
+ * (p99 incluido); el rendimiento es el número de muestras dividido por el tiempo
+ * de medición. Los hilos virtuales solo se activan si el benchmark se ejecuta con
+ * Java 21 o superior; con versiones anteriores ambos modos son iguales. El pool
+ * de Hikari limita en los dos casos el número de consultas simultáneas.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(1000)
+@Fork(1)
+public class CargaHttpBenchmark {
+
+	@Param({ "false", "true" })
+	private boolean hilosVirtuales;
+
+	@Param({ "5" })
+	private long latenciaBdMs;
+
+	@Param({ "400" })
+	private int conexionesBd;
+
+	private ConfigurableApplicationContext contexto;
+	private HttpClient cliente;
+	private String base;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancarServidor("carga" + hilosVirtuales, latenciaBdMs,
+				"spring.threads.virtual.enabled=" + hilosVirtuales,
+				"spring.datasource.hikari.maximum-pool-size=" + conexionesBd,
+				"spring.datasource.hikari.connection-timeout=30000",
+				"server.tomcat.accept-count=2000", "server.tomcat.max-connections=20000");
+		ContextoBenchmark.sembrar(contexto.getBean(EnemigoService.class), 1000);
+
+		int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+		base = "http://localhost:" + puerto + "/enemigo/nombre?prefijo=Enemigo%20";
+		cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(30))
+				.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void detener() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public int buscarPorNombre() throws IOException, InterruptedException {
+		HttpRequest solicitud = HttpRequest.newBuilder(URI.create(base + ThreadLocalRandom.current().nextInt(1000)))
+				.GET().build();
+		return cliente.send(solicitud, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
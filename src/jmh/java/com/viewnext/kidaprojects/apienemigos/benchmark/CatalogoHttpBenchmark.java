@@ -0,0 +1,87 @@
+package com.viewnext.kidaprojects.apienemigos.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+
+/**
+ * Benchmarks HTTP de los listados del catálogo con y sin la caché de respuestas
+ * serializadas ({@code enemigos.respuestas.cache.enabled}). El cliente se
+ * ejecuta en el mismo proceso, por lo que la asignación de memoria que informa
+ * {@code -prof gc} incluye la suya, que es igual en los dos modos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class CatalogoHttpBenchmark {
+
+	@Param({ "false", "true" })
+	private boolean cacheRespuestas;
+
+	private ConfigurableApplicationContext contexto;
+	private HttpClient cliente;
+	private String base;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancarServidor("catalogo" + cacheRespuestas, 0,
+				"enemigos.respuestas.cache.enabled=" + cacheRespuestas);
+		ContextoBenchmark.sembrar(contexto.getBean(EnemigoService.class), 2000);
+
+		int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+		base = "http://localhost:" + puerto + "/enemigo";
+		cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void detener() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public int catalogoCompleto() throws IOException, InterruptedException {
+		return enviar(base);
+	}
+
+	@Benchmark
+	public int catalogoPorNivel() throws IOException, InterruptedException {
+		return enviar(base + "/nivel?nivel=" + (1 + ThreadLocalRandom.current().nextInt(5)));
+	}
+
+	@Benchmark
+	public int catalogoPorNombre() throws IOException, InterruptedException {
+		return enviar(base + "/nombre?prefijo=Enemigo%20" + (1 + ThreadLocalRandom.current().nextInt(9)));
+	}
+
+	private int enviar(String url) throws IOException, InterruptedException {
+		HttpRequest solicitud = HttpRequest.newBuilder(URI.create(url)).GET().build();
+		return cliente.send(solicitud, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
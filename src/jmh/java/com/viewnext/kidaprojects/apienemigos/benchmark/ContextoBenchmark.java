@@ -0,0 +1,92 @@
+package com.viewnext.kidaprojects.apienemigos.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.viewnext.kidaprojects.apienemigos.ApiEnemigoApplication;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+
+/**
+ * Utilidades comunes de los benchmarks: arrancan la aplicación sin servidor web
+ * sobre una base de datos H2 embebida y la rellenan con enemigos.
+ *
+ * <p>
+ * Los resultados miden el coste de la aplicación (Hibernate, Spring, Jackson)
+ * sin la latencia de red de MySQL, por lo que sirven para comparar versiones
+ * entre sí y no para estimar tiempos de producción.
+ * </p>
+ */
+final class ContextoBenchmark {
+
+	private ContextoBenchmark() {
+	}
+
+	/**
+	 * Arranca la aplicación sobre una base de datos H2 en memoria independiente.
+	 *
+	 * @param nombreBd    El nombre de la base de datos en memoria.
+	 * @param propiedades Propiedades adicionales con el formato
+	 *                    {@code clave=valor}.
+	 * @return El contexto de la aplicación arrancada.
+	 */
+	static ConfigurableApplicationContext arrancar(String nombreBd, String... propiedades) {
+		return new SpringApplicationBuilder(ApiEnemigoApplication.class).web(WebApplicationType.NONE)
+				.run(argumentos(nombreBd, propiedades));
+	}
+
+	/**
+	 * Arranca la aplicación con el servidor web en un puerto libre y con una
+	 * latencia artificial en cada sentencia SQL, para simular una base de datos
+	 * remota.
+	 *
+	 * @param nombreBd    El nombre de la base de datos en memoria.
+	 * @param latenciaMs  Los milisegundos que espera cada sentencia SQL.
+	 * @param propiedades Propiedades adicionales con el formato
+	 *                    {@code clave=valor}.
+	 * @return El contexto de la aplicación arrancada.
+	 */
+	static ConfigurableApplicationContext arrancarServidor(String nombreBd, long latenciaMs, String... propiedades) {
+		List<String> argumentos = new ArrayList<>(List.of(argumentos(nombreBd, propiedades)));
+		argumentos.add("--server.port=0");
+
+		return new SpringApplicationBuilder(ApiEnemigoApplication.class).web(WebApplicationType.SERVLET)
+				.initializers(contexto -> contexto.getBeanFactory()
+						.addBeanPostProcessor(new LatenciaBaseDatos(latenciaMs)))
+				.run(argumentos.toArray(String[]::new));
+	}
+
+	private static String[] argumentos(String nombreBd, String... propiedades) {
+		List<String> argumentos = new ArrayList<>(List.of(
+				"--spring.datasource.url=jdbc:h2:mem:" + nombreBd + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+				"--spring.datasource.username=sa", "--spring.datasource.password=",
+				"--spring.jpa.database=H2", "--spring.jpa.hibernate.ddl-auto=validate",
+				"--logging.level.root=WARN"));
+		for (String propiedad : propiedades) {
+			argumentos.add("--" + propiedad);
+		}
+		return argumentos.toArray(String[]::new);
+	}
+
+	/**
+	 * Inserta enemigos con niveles del 1 al 20 y nombres {@code Enemigo <n>}.
+	 *
+	 * @param service El servicio de enemigos de la aplicación arrancada.
+	 * @param filas   El número de enemigos a insertar.
+	 * @return Los identificadores generados.
+	 */
+	static int[] sembrar(EnemigoService service, int filas) {
+		List<Integer> ids = service.createEnemigos(IntStream.range(0, filas).mapToObj(ContextoBenchmark::enemigo).iterator());
+		return ids.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	static Enemigo enemigo(int i) {
+		return new Enemigo("Enemigo " + i, "Enemigo generado para el benchmark número " + i, 1 + i % 20, 10 * i,
+				50 + i % 50, 30 + i % 40, 1_000_000);
+	}
+}
@@ -0,0 +1,68 @@
+package com.viewnext.kidaprojects.apienemigos.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+
+/**
+ * Compara el número de enemigos insertados por segundo con
+ * {@code createEnemigo}, que inserta una entidad por llamada, y con
+ * {@code createEnemigos}, que utiliza lotes JDBC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreacionBenchmark {
+
+	private static final int ENEMIGOS = 1000;
+
+	private ConfigurableApplicationContext contexto;
+	private EnemigoService service;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancar("creacion");
+		service = contexto.getBean(EnemigoService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void detener() {
+		contexto.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ENEMIGOS)
+	public int crearIndividualmente() {
+		int ultimo = 0;
+		for (int i = 0; i < ENEMIGOS; i++) {
+			ultimo = service.createEnemigo(ContextoBenchmark.enemigo(i)).getIdEnemigo();
+		}
+		return ultimo;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ENEMIGOS)
+	public List<Integer> crearEnLote() {
+		return service.createEnemigos(IntStream.range(0, ENEMIGOS).mapToObj(ContextoBenchmark::enemigo).iterator());
+	}
+}
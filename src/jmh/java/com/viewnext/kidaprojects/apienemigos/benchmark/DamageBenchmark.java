@@ -0,0 +1,99 @@
+package com.viewnext.kidaprojects.apienemigos.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Golpe;
+import com.viewnext.kidaprojects.apienemigos.service.AcumuladorDamage;
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+import com.viewnext.kidaprojects.apienemigos.service.MotorCombate;
+
+/**
+ * Compara el coste por golpe de aplicar {@value #GOLPES} golpes uno a uno y en
+ * una sola llamada por lotes, escribiendo cada golpe en la base de datos
+ * ({@code modo=directo}), a través del acumulador de daño
+ * ({@code modo=write-behind}) o del motor de combate ({@code modo=motor}). Al
+ * terminar cada prueba con el acumulador o el motor activos se muestran los
+ * golpes recibidos frente a las escrituras enviadas a la base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DamageBenchmark {
+
+	private static final int GOLPES = 100;
+	private static final int ENEMIGOS = 1000;
+
+	@Param({ "directo", "write-behind", "motor" })
+	private String modo;
+
+	private ConfigurableApplicationContext contexto;
+	private EnemigoService service;
+	private int[] ids;
+	private long inicio;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancar("damage" + modo,
+				"enemigos.damage.write-behind.enabled=" + "write-behind".equals(modo),
+				"enemigos.combate.motor.enabled=" + "motor".equals(modo));
+		service = contexto.getBean(EnemigoService.class);
+		ids = ContextoBenchmark.sembrar(service, ENEMIGOS);
+		inicio = System.nanoTime();
+	}
+
+	@TearDown(Level.Trial)
+	public void detener() {
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+		contexto.getBeanProvider(AcumuladorDamage.class).ifAvailable(acumulador -> System.out.printf(
+				"%nGolpes: %.0f/s, escrituras en BDD: %.0f/s%n", acumulador.getGolpesRecibidos() / segundos,
+				acumulador.getEscriturasBdd() / segundos));
+		contexto.getBeanProvider(MotorCombate.class).ifAvailable(motor -> System.out.printf(
+				"%nGolpes: %.0f/s, escrituras en BDD: %.0f/s%n", motor.getGolpesRecibidos() / segundos,
+				motor.getEscriturasBdd() / segundos));
+		contexto.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GOLPES)
+	public Enemigo golpesIndividuales() {
+		Enemigo enemigo = null;
+		for (int i = 0; i < GOLPES; i++) {
+			enemigo = service.updateVida(idAleatorio(), 1);
+		}
+		return enemigo;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GOLPES)
+	public List<Enemigo> golpesEnLote() {
+		List<Golpe> golpes = IntStream.range(0, GOLPES).mapToObj(i -> new Golpe(idAleatorio(), 1)).toList();
+		return service.updateVidaEnLote(golpes);
+	}
+
+	private int idAleatorio() {
+		return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+	}
+}
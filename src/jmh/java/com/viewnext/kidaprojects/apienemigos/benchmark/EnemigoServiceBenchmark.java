@@ -0,0 +1,133 @@
+package com.viewnext.kidaprojects.apienemigos.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Benchmarks de los métodos principales de {@code EnemigoService} sobre una base
+ * de datos H2 embebida con {@code filas} enemigos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnemigoServiceBenchmark {
+
+	@Param({ "1000", "10000" })
+	private int filas;
+
+	private ConfigurableApplicationContext contexto;
+	private EnemigoService service;
+	private EnemigoRepository repository;
+	private int[] ids;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancar("servicio" + filas);
+		service = contexto.getBean(EnemigoService.class);
+		repository = contexto.getBean(EnemigoRepository.class);
+		ids = ContextoBenchmark.sembrar(service, filas);
+	}
+
+	@TearDown(Level.Trial)
+	public void detener() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public Enemigo updateVida() {
+		return service.updateVida(idAleatorio(), 1);
+	}
+
+	@Benchmark
+	public Enemigo showById() {
+		return service.showById(idAleatorio());
+	}
+
+	/**
+	 * Consulta identificadores que no existen, como los que prueban los bots.
+	 */
+	@Benchmark
+	public Object showByIdInexistente() {
+		try {
+			return service.showById(idInexistente());
+		} catch (EntityNotFoundException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object getRecompensaInexistente() {
+		try {
+			return service.getRecomenpsa(idInexistente());
+		} catch (EntityNotFoundException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public List<Enemigo> showByNivel() {
+		return service.showByNivel(2, null, null, null);
+	}
+
+	@Benchmark
+	public List<Enemigo> showByNivelActivosLimitado() {
+		return service.showByNivel(10, true, false, 50);
+	}
+
+	@Benchmark
+	public List<Enemigo> showByNivelJpa() {
+		return repository.findByNivel(2);
+	}
+
+	@Benchmark
+	public List<Enemigo> showByNombreLike() {
+		return service.showByNombreLike("Enemigo 12", false);
+	}
+
+	@Benchmark
+	public List<SugerenciaNombre> autocompletar() {
+		return service.autocompletar("enemigo 12", 10);
+	}
+
+	@Benchmark
+	@Warmup(iterations = 2)
+	@Measurement(iterations = 3)
+	public int reiniciarEnemigos() {
+		return service.reiniciarEnemigos();
+	}
+
+	private int idAleatorio() {
+		return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+	}
+
+	private int idInexistente() {
+		// Un conjunto acotado de identificadores, como el que recorre un bot
+		return -1 - ThreadLocalRandom.current().nextInt(10_000);
+	}
+}
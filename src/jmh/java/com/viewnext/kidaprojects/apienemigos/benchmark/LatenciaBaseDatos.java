@@ -0,0 +1,76 @@
+package com.viewnext.kidaprojects.apienemigos.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Envuelve el {@code DataSource} de la aplicación para que cada sentencia SQL
+ * espere un tiempo fijo antes de ejecutarse, mientras mantiene ocupada la
+ * conexión. Con H2 en memoria las consultas apenas bloquean; la espera simula
+ * el tiempo de ida y vuelta a un MySQL remoto, que es lo que limita a los hilos
+ * de Tomcat en producción.
+ */
+final class LatenciaBaseDatos implements BeanPostProcessor {
+
+	private final long latenciaMs;
+
+	LatenciaBaseDatos(long latenciaMs) {
+		this.latenciaMs = latenciaMs;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String nombre) {
+		if (latenciaMs <= 0 || !(bean instanceof DataSource dataSource)) {
+			return bean;
+		}
+		return envolver(DataSource.class, dataSource, (destino, metodo, args) -> {
+			Object resultado = metodo.invoke(destino, args);
+			return resultado instanceof Connection conexion ? envolver(Connection.class, conexion, this::sentencia)
+					: resultado;
+		});
+	}
+
+	private Object sentencia(Object destino, Method metodo, Object[] args) throws Throwable {
+		Object resultado = metodo.invoke(destino, args);
+		if (resultado instanceof PreparedStatement sentencia) {
+			return envolver(PreparedStatement.class, sentencia, this::ejecucion);
+		}
+		if (resultado instanceof Statement sentencia) {
+			return envolver(Statement.class, sentencia, this::ejecucion);
+		}
+		return resultado;
+	}
+
+	private Object ejecucion(Object destino, Method metodo, Object[] args) throws Throwable {
+		if (metodo.getName().startsWith("execute")) {
+			Thread.sleep(latenciaMs);
+		}
+		return metodo.invoke(destino, args);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T envolver(Class<T> tipo, T destino, Invocador invocador) {
+		return (T) Proxy.newProxyInstance(LatenciaBaseDatos.class.getClassLoader(), new Class<?>[] { tipo },
+				(proxy, metodo, args) -> {
+					try {
+						return invocador.invocar(destino, metodo, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+
+	@FunctionalInterface
+	private interface Invocador {
+		Object invocar(Object destino, Method metodo, Object[] args) throws Throwable;
+	}
+}
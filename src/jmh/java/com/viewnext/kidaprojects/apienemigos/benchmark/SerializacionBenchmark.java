@@ -0,0 +1,83 @@
+package com.viewnext.kidaprojects.apienemigos.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+/**
+ * Benchmarks de la serialización de {@code Enemigo} en JSON y en CBOR con la
+ * misma configuración de Jackson que utiliza Spring MVC. El tamaño de la lista
+ * serializada en cada formato se imprime al preparar el benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacionBenchmark {
+
+	@Param({ "100", "10000" })
+	private int tamanoLista;
+
+	@Param({ "json", "cbor" })
+	private String formato;
+
+	private ObjectMapper objectMapper;
+	private ObjectReader lectorLista;
+	private Enemigo enemigo;
+	private List<Enemigo> listaEnemigos;
+	private byte[] listaSerializada;
+
+	@Setup
+	public void preparar() throws JsonProcessingException {
+		objectMapper = "cbor".equals(formato)
+				? Jackson2ObjectMapperBuilder.json().factory(new CBORFactory())
+						.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+						.featuresToDisable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS,
+								DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS).build()
+				: Jackson2ObjectMapperBuilder.json().build();
+		lectorLista = objectMapper.readerForListOf(Enemigo.class);
+		enemigo = ContextoBenchmark.enemigo(1);
+		listaEnemigos = IntStream.range(0, tamanoLista).mapToObj(ContextoBenchmark::enemigo).toList();
+		listaSerializada = objectMapper.writeValueAsBytes(listaEnemigos);
+		System.out.printf("%n%s: %d enemigos = %d bytes%n", formato, tamanoLista, listaSerializada.length);
+	}
+
+	@Benchmark
+	public byte[] serializarEnemigo() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(enemigo);
+	}
+
+	@Benchmark
+	public byte[] serializarLista() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(listaEnemigos);
+	}
+
+	@Benchmark
+	public List<Enemigo> deserializarLista() throws IOException {
+		return lectorLista.readValue(listaSerializada);
+	}
+}
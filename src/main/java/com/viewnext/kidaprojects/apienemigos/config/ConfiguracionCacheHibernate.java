@@ -0,0 +1,78 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import java.util.function.Function;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Clase {@code ConfiguracionCacheHibernate} que publica como métricas las
+ * estadísticas de las regiones de la caché de segundo nivel de Hibernate: la de
+ * las entidades {@code Enemigo} y la de los resultados de consultas.
+ *
+ * <p>
+ * Las métricas son {@code hibernate.second.level.cache.requests}, con las
+ * etiquetas {@code region} y {@code result} ({@code hit} o {@code miss}), y
+ * {@code hibernate.second.level.cache.puts}, con la etiqueta {@code region}.
+ * Se leen de {@link Statistics}, así que requieren
+ * {@code enemigos.hibernate.estadisticas.enabled=true}, el valor por defecto;
+ * la caché se configura en {@code application.conf}.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Configuration
+public class ConfiguracionCacheHibernate {
+
+    /**
+     * Registra los contadores de aciertos, fallos y escrituras de cada región.
+     *
+     * @param entityManagerFactory La factoría de Hibernate cuyas estadísticas se publican.
+     * @return El registrador de las métricas.
+     */
+    @Bean
+    public MeterBinder metricasCacheHibernate(EntityManagerFactory entityManagerFactory) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            registrar(registry, Enemigo.REGION_CACHE,
+                    e -> e.getDomainDataRegionStatistics(Enemigo.REGION_CACHE), estadisticas);
+            registrar(registry, EnemigoRepository.REGION_CONSULTAS,
+                    e -> e.getQueryRegionStatistics(EnemigoRepository.REGION_CONSULTAS), estadisticas);
+        };
+    }
+
+    private static void registrar(MeterRegistry registry, String region,
+            Function<Statistics, CacheRegionStatistics> regionEstadisticas, Statistics estadisticas) {
+        FunctionCounter.builder("hibernate.second.level.cache.requests", estadisticas,
+                        e -> regionEstadisticas.apply(e).getHitCount())
+                .tags("region", region, "result", "hit")
+                .description("Lecturas de la región resueltas desde la caché")
+                .register(registry);
+        FunctionCounter.builder("hibernate.second.level.cache.requests", estadisticas,
+                        e -> regionEstadisticas.apply(e).getMissCount())
+                .tags("region", region, "result", "miss")
+                .description("Lecturas de la región que no estaban en la caché")
+                .register(registry);
+        FunctionCounter.builder("hibernate.second.level.cache.puts", estadisticas,
+                        e -> regionEstadisticas.apply(e).getPutCount())
+                .tags("region", region)
+                .description("Entradas guardadas en la región")
+                .register(registry);
+    }
+}
@@ -0,0 +1,49 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Clase {@code ConfiguracionCbor} que registra el formato binario CBOR
+ * ({@code application/cbor}) como alternativa a JSON en los endpoints de
+ * enemigos. El esquema de los mensajes se describe en CDDL en
+ * {@code /esquemas/enemigo.cddl}.
+ *
+ * <p>
+ * El conversor parte de la misma configuración de Jackson que Spring Boot
+ * aplica a JSON, salvo las fechas, que se escriben y se leen como
+ * milisegundos desde 1970 en lugar de como texto.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Configuration
+public class ConfiguracionCbor {
+
+    /**
+     * Crea el conversor de mensajes CBOR, que Spring MVC utiliza cuando la solicitud
+     * indica {@code application/cbor} en {@code Accept} o en {@code Content-Type}.
+     *
+     * @param builder El constructor de {@code ObjectMapper} configurado por Spring Boot.
+     * @return El conversor de mensajes CBOR.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .featuresToDisable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS,
+                        DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .build());
+    }
+}
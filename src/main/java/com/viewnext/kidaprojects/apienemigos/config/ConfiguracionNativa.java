@@ -0,0 +1,53 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import com.viewnext.kidaprojects.apienemigos.model.CambioEnemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.EstadisticasCombate;
+import com.viewnext.kidaprojects.apienemigos.model.ResumenEnemigo;
+
+/**
+ * Clase {@code ConfiguracionNativa} que declara lo que la imagen nativa de GraalVM
+ * no puede deducir por sí sola: los tipos que se serializan o se construyen por
+ * reflexión sin aparecer en la firma de ningún endpoint, y los recursos y clases
+ * que el proveedor de la caché de segundo nivel carga por su nombre.
+ *
+ * <p>
+ * En la JVM no tiene ningún efecto.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Configuration
+@RegisterReflectionForBinding({ Enemigo.class, ResumenEnemigo.class, EstadisticasCombate.class,
+        CambioEnemigo.class })
+@ImportRuntimeHints(ConfiguracionNativa.PistasCacheHibernate.class)
+public class ConfiguracionNativa {
+
+    /**
+     * Incluye la configuración de las regiones y el proveedor JCache de Caffeine,
+     * que Hibernate instancia a partir de {@code hibernate.javax.cache.provider}.
+     */
+    static class PistasCacheHibernate implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("application.conf").registerPattern("reference.conf");
+            hints.reflection().registerType(
+                    TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Clase {@code ConfiguracionReplicas} que reparte las lecturas entre réplicas de
+ * solo lectura de la base de datos cuando {@code enemigos.datasource.replicas.enabled}
+ * es {@code true}.
+ *
+ * <p>
+ * La primaria se configura con las propiedades {@code spring.datasource.*} de
+ * siempre. Cada URL de {@code enemigos.datasource.replicas.urls} recibe su propio
+ * pool, con el mismo usuario y los mismos ajustes de Hikari que la primaria. Las
+ * transacciones de solo lectura se atienden en una réplica y todo lo demás, incluidas
+ * las migraciones de Flyway, en la primaria; véase {@link FuenteDatosReplicas}.
+ * </p>
+ *
+ * <p>
+ * Lo que se lee de una réplica puede ir por detrás de la primaria, así que las
+ * transacciones de solo lectura consultan la caché de segundo nivel de Hibernate
+ * pero no la rellenan. Las cachés de la aplicación se rellenan en transacciones
+ * de lectura y escritura, que se atienden en la primaria. Como la fuente se elige
+ * al abrir cada conexión, {@code spring.jpa.open-in-view} está desactivado: con
+ * una sesión abierta durante toda la petición, la conexión de la primera lectura,
+ * quizá de una réplica, atendería también las siguientes.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "enemigos.datasource.replicas", name = "enabled", havingValue = "true")
+public class ConfiguracionReplicas {
+
+    /**
+     * Crea el pool de conexiones de la base de datos primaria.
+     *
+     * @param propiedades Las propiedades {@code spring.datasource.*}.
+     * @return El pool de la primaria.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource fuenteDatosPrimaria(DataSourceProperties propiedades) {
+        return propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Crea la fuente de datos que elige entre la primaria y las réplicas.
+     *
+     * @param primaria          El pool de la primaria.
+     * @param urls              Las URL JDBC de las réplicas.
+     * @param esperaTrasFalloMs Los milisegundos que una réplica que ha fallado deja de
+     *                          recibir lecturas.
+     * @param meterRegistry     El registro donde se publican las métricas de los pools.
+     * @return La fuente de datos enrutada.
+     */
+    @Bean
+    public FuenteDatosReplicas fuenteDatosReplicas(HikariDataSource primaria,
+            @Value("${enemigos.datasource.replicas.urls}") List<String> urls,
+            @Value("${enemigos.datasource.replicas.espera-tras-fallo-ms:30000}") long esperaTrasFalloMs,
+            MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            primaria.copyStateTo(replica);
+            replica.setJdbcUrl(urls.get(i));
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        return new FuenteDatosReplicas(primaria, replicas, meterRegistry, esperaTrasFalloMs);
+    }
+
+    /**
+     * Crea el gestor de transacciones; véase {@link GestorTransaccionesReplicas}.
+     *
+     * @param entityManagerFactory La factoría de entidades de JPA.
+     * @param personalizaciones    Las personalizaciones de Spring Boot para los
+     *                             gestores de transacciones.
+     * @return El gestor de transacciones de la aplicación.
+     */
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+            ObjectProvider<TransactionManagerCustomizers> personalizaciones) {
+        JpaTransactionManager transactionManager = new GestorTransaccionesReplicas(entityManagerFactory);
+        personalizaciones.ifAvailable(p -> p.customize(transactionManager));
+        return transactionManager;
+    }
+
+    /**
+     * Expone la fuente de datos enrutada al resto de la aplicación. El proxy retrasa
+     * la petición de la conexión hasta la primera sentencia, cuando ya se sabe si la
+     * transacción es de solo lectura.
+     *
+     * @param fuenteDatosReplicas La fuente de datos enrutada.
+     * @return La fuente de datos principal de la aplicación.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(FuenteDatosReplicas fuenteDatosReplicas) {
+        return new LazyConnectionDataSourceProxy(fuenteDatosReplicas);
+    }
+
+    /**
+     * Gestor de transacciones que impide que las transacciones de solo lectura,
+     * atendidas en una réplica, guarden en las cachés de Hibernate entidades o
+     * resultados que podrían estar desactualizados. Como una misma sesión puede
+     * atender varias transacciones, el modo de caché se fija al comenzar cada una.
+     */
+    static class GestorTransaccionesReplicas extends JpaTransactionManager {
+
+        private static final long serialVersionUID = 1L;
+
+        GestorTransaccionesReplicas(EntityManagerFactory entityManagerFactory) {
+            super(entityManagerFactory);
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            super.doBegin(transaction, definition);
+            EntityManagerHolder sesion = (EntityManagerHolder) TransactionSynchronizationManager
+                    .getResource(obtainEntityManagerFactory());
+            sesion.getEntityManager().unwrap(Session.class)
+                    .setCacheMode(definition.isReadOnly() ? CacheMode.GET : CacheMode.NORMAL);
+        }
+    }
+}
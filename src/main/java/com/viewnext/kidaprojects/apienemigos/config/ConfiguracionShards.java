@@ -0,0 +1,183 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.viewnext.kidaprojects.apienemigos.service.EnrutadorShards;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Clase {@code ConfiguracionShards} que reparte la tabla de enemigos entre varias
+ * bases de datos cuando {@code enemigos.shards.enabled} es {@code true}.
+ *
+ * <p>
+ * El shard 0 se configura con las propiedades {@code spring.datasource.*} de
+ * siempre y cada URL de {@code enemigos.shards.urls} recibe su propio pool, con
+ * el mismo usuario y los mismos ajustes de Hikari. Al arrancar, las migraciones
+ * de Flyway se aplican a todos los shards y el contador de identificadores de
+ * cada uno se lleva al comienzo de su rango; véase {@code EnrutadorShards}.
+ * </p>
+ *
+ * <p>
+ * La caché de consultas de Hibernate se desactiva, porque no distingue el shard
+ * en el que se ejecutó cada consulta; la de entidades se mantiene, ya que los
+ * identificadores son únicos entre shards. No se puede combinar con
+ * {@code ConfiguracionReplicas}: si ambas están activas el arranque falla antes
+ * de registrar ningún bean, con un mensaje que lo indica.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "enemigos.shards", name = "enabled", havingValue = "true")
+@Conditional(ConfiguracionShards.SinReplicas.class)
+public class ConfiguracionShards {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfiguracionShards.class);
+
+    /**
+     * Crea el pool de conexiones del shard 0. Los ajustes de
+     * {@code spring.datasource.hikari.*} se enlazan a mano, porque ese prefijo ya
+     * lo declara {@code ConfiguracionReplicas}.
+     *
+     * @param propiedades Las propiedades {@code spring.datasource.*}.
+     * @param environment El entorno del que se leen los ajustes de Hikari.
+     * @return El pool del shard 0.
+     */
+    @Bean
+    public HikariDataSource fuenteDatosShardInicial(DataSourceProperties propiedades, Environment environment) {
+        HikariDataSource inicial = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(inicial));
+        return inicial;
+    }
+
+    /**
+     * Crea la fuente de datos que elige el shard fijado para el hilo actual.
+     *
+     * @param inicial         El pool del shard 0.
+     * @param urls            Las URL JDBC del resto de shards.
+     * @param enrutadorShards El enrutador que fija el shard de cada operación.
+     * @param meterRegistry   El registro donde se publican las métricas de los pools.
+     * @return La fuente de datos enrutada.
+     */
+    @Bean
+    public FuenteDatosShards fuenteDatosShards(HikariDataSource inicial,
+            @Value("${enemigos.shards.urls}") List<String> urls, EnrutadorShards enrutadorShards,
+            MeterRegistry meterRegistry) {
+        List<HikariDataSource> shards = new ArrayList<>(urls.size() + 1);
+        shards.add(inicial);
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            inicial.copyStateTo(shard);
+            shard.setJdbcUrl(urls.get(i));
+            shard.setPoolName("shard-" + (i + 1));
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.add(shard);
+        }
+        return new FuenteDatosShards(shards, enrutadorShards::getShardActual);
+    }
+
+    /**
+     * Expone la fuente de datos enrutada al resto de la aplicación. El proxy retrasa
+     * la petición de la conexión hasta la primera sentencia.
+     *
+     * @param fuenteDatosShards La fuente de datos enrutada.
+     * @return La fuente de datos principal de la aplicación.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(FuenteDatosShards fuenteDatosShards) {
+        return new LazyConnectionDataSourceProxy(fuenteDatosShards);
+    }
+
+    /**
+     * Desactiva la caché de consultas de Hibernate.
+     *
+     * @return El ajuste de las propiedades de Hibernate.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sinCacheConsultasEntreShards() {
+        return propiedades -> propiedades.put(AvailableSettings.USE_QUERY_CACHE, false);
+    }
+
+    /**
+     * Aplica las migraciones en cada shard y hace que cada uno genere los
+     * identificadores de su rango.
+     *
+     * @param enrutadorShards El enrutador que fija el shard de cada operación.
+     * @param dataSource      La fuente de datos enrutada.
+     * @return La estrategia de migración.
+     */
+    @Bean
+    public FlywayMigrationStrategy migracionShards(EnrutadorShards enrutadorShards, DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        return flyway -> enrutadorShards.enCadaShard(() -> {
+            flyway.migrate();
+            ajustarPrimerId(jdbcTemplate, enrutadorShards.getShardActual(),
+                    enrutadorShards.getPrimerId(enrutadorShards.getShardActual()));
+        });
+    }
+
+    private static void ajustarPrimerId(JdbcTemplate jdbcTemplate, int shard, int primerId) {
+        Integer maximo = jdbcTemplate.queryForObject("SELECT MAX(id_enemigo) FROM enemigos", Integer.class);
+        if (shard == 0 || (maximo != null && maximo >= primerId)) {
+            return;
+        }
+
+        String producto = jdbcTemplate.execute(
+                (ConnectionCallback<String>) conexion -> conexion.getMetaData().getDatabaseProductName());
+        jdbcTemplate.execute("H2".equals(producto)
+                ? "ALTER TABLE enemigos ALTER COLUMN id_enemigo RESTART WITH " + primerId
+                : "ALTER TABLE enemigos AUTO_INCREMENT = " + primerId);
+        LOGGER.info("El shard {} generará los identificadores a partir de {}", shard, primerId);
+    }
+
+    /**
+     * Condición que detiene el arranque si las réplicas de lectura están activas a
+     * la vez que el sharding. Sin ella, el fallo llega más tarde, al sobrescribirse
+     * el bean {@code dataSource}, y el mensaje no dice qué propiedades chocan.
+     */
+    static class SinReplicas implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            if (context.getEnvironment().getProperty("enemigos.datasource.replicas.enabled", Boolean.class, false)) {
+                throw new IllegalStateException("enemigos.shards.enabled y enemigos.datasource.replicas.enabled"
+                        + " no pueden estar activas a la vez: desactive una de las dos");
+            }
+            return true;
+        }
+    }
+}
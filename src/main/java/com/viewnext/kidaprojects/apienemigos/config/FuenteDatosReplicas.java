@@ -0,0 +1,188 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Clase {@code FuenteDatosReplicas} que envía las conexiones de las transacciones de
+ * solo lectura a una de las réplicas de la base de datos y el resto a la primaria.
+ *
+ * <p>
+ * Entre las réplicas disponibles se elige la que tiene menos conexiones en uso y, a
+ * igualdad, se van turnando. Si una réplica no entrega una conexión, la lectura se
+ * hace en la primaria y la réplica no vuelve a elegirse hasta pasados
+ * {@code esperaTrasFallo} milisegundos. Como la transacción solo se conoce una vez
+ * iniciada, esta fuente debe envolverse en un {@code LazyConnectionDataSourceProxy},
+ * que no pide la conexión hasta la primera sentencia.
+ * </p>
+ *
+ * <p>
+ * Las métricas son {@code enemigos.datasource.conexiones}, con la etiqueta
+ * {@code fuente}, y {@code enemigos.datasource.replicas.fallos}.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public class FuenteDatosReplicas extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FuenteDatosReplicas.class);
+
+    private static final String PRIMARIA = "primaria";
+
+    private final DataSource primaria;
+    private final List<Replica> replicas;
+    private final long esperaTrasFallo;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final Counter conexionesPrimaria;
+    private final Counter fallos;
+
+    public FuenteDatosReplicas(DataSource primaria, List<? extends DataSource> replicas, MeterRegistry meterRegistry,
+            long esperaTrasFalloMs) {
+        this.primaria = primaria;
+        this.esperaTrasFallo = TimeUnit.MILLISECONDS.toNanos(esperaTrasFalloMs);
+        this.conexionesPrimaria = Counter.builder("enemigos.datasource.conexiones")
+                .tag("fuente", PRIMARIA)
+                .description("Conexiones entregadas por cada fuente de datos")
+                .register(meterRegistry);
+        this.fallos = Counter.builder("enemigos.datasource.replicas.fallos")
+                .description("Lecturas enviadas a la primaria porque la réplica elegida no respondió")
+                .register(meterRegistry);
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIA, primaria);
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            String nombre = "replica-" + i;
+            destinos.put(i, replicas.get(i));
+            this.replicas.add(new Replica(nombre, replicas.get(i), Counter.builder("enemigos.datasource.conexiones")
+                    .tag("fuente", nombre)
+                    .description("Conexiones entregadas por cada fuente de datos")
+                    .register(meterRegistry)));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+        setLenientFallback(false);
+    }
+
+    /**
+     * Elige la réplica para las transacciones de solo lectura y la primaria para el
+     * resto, incluidas las operaciones fuera de una transacción.
+     *
+     * @return El índice de la réplica elegida, o la clave de la primaria.
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIA;
+        }
+
+        long ahora = System.nanoTime();
+        int inicio = Math.floorMod(turno.getAndIncrement(), replicas.size());
+        int elegida = -1;
+        int menosOcupada = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int indice = (inicio + i) % replicas.size();
+            Replica replica = replicas.get(indice);
+            if (replica.disponible(ahora)) {
+                int activas = replica.conexionesActivas();
+                if (activas < menosOcupada) {
+                    elegida = indice;
+                    menosOcupada = activas;
+                }
+            }
+        }
+        return elegida < 0 ? PRIMARIA : elegida;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object clave = determineCurrentLookupKey();
+        if (clave instanceof Integer indice) {
+            Replica replica = replicas.get(indice);
+            try {
+                Connection conexion = replica.fuente.getConnection();
+                replica.conexiones.increment();
+                return conexion;
+            } catch (SQLException e) {
+                replica.noDisponibleHasta = System.nanoTime() + esperaTrasFallo;
+                fallos.increment();
+                LOGGER.warn("La réplica {} no responde, se lee de la primaria: {}", replica.nombre, e.getMessage());
+            }
+        }
+
+        Connection conexion = primaria.getConnection();
+        conexionesPrimaria.increment();
+        return conexion;
+    }
+
+    /**
+     * Cierra los pools de conexiones de las réplicas. La primaria la cierra quien la
+     * haya creado.
+     */
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.fuente instanceof AutoCloseable cerrable) {
+                try {
+                    cerrable.close();
+                } catch (Exception e) {
+                    LOGGER.warn("No se ha podido cerrar la réplica {}: {}", replica.nombre, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Una réplica con su contador de conexiones y el instante hasta el que no se
+     * elige tras un fallo.
+     */
+    private static final class Replica {
+
+        private final String nombre;
+        private final DataSource fuente;
+        private final Counter conexiones;
+        private volatile long noDisponibleHasta = System.nanoTime();
+
+        private Replica(String nombre, DataSource fuente, Counter conexiones) {
+            this.nombre = nombre;
+            this.fuente = fuente;
+            this.conexiones = conexiones;
+        }
+
+        private boolean disponible(long ahora) {
+            return ahora - noDisponibleHasta >= 0;
+        }
+
+        private int conexionesActivas() {
+            if (fuente instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
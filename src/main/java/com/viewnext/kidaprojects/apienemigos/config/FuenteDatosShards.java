@@ -0,0 +1,73 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Clase {@code FuenteDatosShards} que entrega las conexiones del shard fijado para
+ * el hilo actual por {@code EnrutadorShards}.
+ *
+ * <p>
+ * El shard se consulta al pedir la conexión, así que esta fuente debe envolverse
+ * en un {@code LazyConnectionDataSourceProxy} para que una transacción iniciada
+ * antes de fijar el shard no obtenga la conexión de otro. Sin shard fijado se
+ * usa el shard 0.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public class FuenteDatosShards extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FuenteDatosShards.class);
+
+    private final List<? extends DataSource> shards;
+    private final IntSupplier shardActual;
+
+    public FuenteDatosShards(List<? extends DataSource> shards, IntSupplier shardActual) {
+        this.shards = shards;
+        this.shardActual = shardActual;
+
+        Map<Object, Object> destinos = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            destinos.put(i, shards.get(i));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return shardActual.getAsInt();
+    }
+
+    /**
+     * Cierra los pools de conexiones de los shards añadidos. El del shard 0 lo
+     * cierra quien lo haya creado.
+     */
+    @Override
+    public void close() {
+        for (int i = 1; i < shards.size(); i++) {
+            if (shards.get(i) instanceof AutoCloseable cerrable) {
+                try {
+                    cerrable.close();
+                } catch (Exception e) {
+                    LOGGER.warn("No se ha podido cerrar el shard {}: {}", i, e.getMessage());
+                }
+            }
+        }
+    }
+}
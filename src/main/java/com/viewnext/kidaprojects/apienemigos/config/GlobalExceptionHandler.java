@@ -3,12 +3,22 @@ package com.viewnext.kidaprojects.apienemigos.config;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.viewnext.kidaprojects.apienemigos.service.ParametroInvalidoException;
+import com.viewnext.kidaprojects.apienemigos.service.SuscripcionesAgotadasException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+
 /**
  * Clase {@code GlobalExceptionHandler} que proporciona un controlador de excepciones globales
- * para manejar errores relacionados con solicitudes en formato JSON y argumentos inválidos.
+ * para manejar errores relacionados con solicitudes en formato JSON, argumentos inválidos,
+ * enemigos inexistentes y conflictos de versión.
  *
  * <p>
  * El autor de esta clase es Víctor Colorado "Kid A".
@@ -22,6 +32,17 @@ public class GlobalExceptionHandler {
 
     private static final String INVALID_FORMAT = "Error de formato en la solicitud JSON.";
     private static final String INVALID_ARGUMENT = "Argumento inválido para la solicitud.";
+    private static final String CONCURRENT_MODIFICATION = "El enemigo ha sido modificado por otra solicitud, vuelva a intentarlo.";
+    private static final String ENEMIGO_NOT_FOUND = "Enemigo/s no encontrado";
+    private static final String SUSCRIPCIONES_AGOTADAS = "No se admiten más suscripciones, vuelva a intentarlo más tarde.";
+
+    private final Counter enemigosNoEncontrados;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.enemigosNoEncontrados = Counter.builder("enemigos.no.encontrados")
+                .description("Solicitudes respondidas con 404 porque el enemigo no existe")
+                .register(meterRegistry);
+    }
 
     /**
      * Maneja la excepción {@code HttpMessageNotReadableException} que se produce cuando
@@ -35,6 +56,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_FORMAT);
     }
 
+    /**
+     * Maneja la excepción {@code JsonProcessingException} que se produce cuando el cuerpo
+     * de una solicitud se lee por partes, como un array JSON o una secuencia NDJSON de
+     * enemigos, y alguna de ellas no tiene un formato JSON válido.
+     *
+     * @param ex La excepción {@code JsonProcessingException} que se produjo.
+     * @return Una respuesta HTTP con un estado de error 400 (Bad Request) y un mensaje de error.
+     */
+    @ExceptionHandler(JsonProcessingException.class)
+    public ResponseEntity<String> handleJsonProcessingException(JsonProcessingException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_FORMAT);
+    }
+
     /**
      * Maneja la excepción {@code NumberFormatException} que se produce cuando se intenta
      * convertir una cadena en un número y el formato es inválido.
@@ -46,6 +80,60 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleNumberFormatException(NumberFormatException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_ARGUMENT);
     }
+
+    /**
+     * Maneja la excepción {@code ParametroInvalidoException} que se produce cuando un
+     * parámetro de la solicitud, como el cursor de paginación, no tiene un valor válido.
+     * El resto de {@code IllegalArgumentException} no se tratan aquí, porque indican un
+     * error del servidor y no de la solicitud.
+     *
+     * @param ex La excepción {@code ParametroInvalidoException} que se produjo.
+     * @return Una respuesta HTTP con un estado de error 400 (Bad Request) y un mensaje de error.
+     */
+    @ExceptionHandler(ParametroInvalidoException.class)
+    public ResponseEntity<String> handleParametroInvalido(ParametroInvalidoException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_ARGUMENT);
+    }
+
+    /**
+     * Maneja la excepción {@code EntityNotFoundException} que lanza el servicio cuando
+     * el enemigo o los enemigos solicitados no existen. Todos los endpoints responden
+     * igual y cuentan la respuesta en la métrica {@code enemigos.no.encontrados}.
+     *
+     * @param ex La excepción {@code EntityNotFoundException} que se produjo.
+     * @return Una respuesta HTTP con un estado de error 404 (Not Found) y un mensaje de error.
+     */
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<String> handleEntityNotFoundException(EntityNotFoundException ex) {
+        enemigosNoEncontrados.increment();
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
+    }
+
+    /**
+     * Maneja la excepción {@code SuscripcionesAgotadasException} que se produce cuando un
+     * cliente intenta suscribirse a los cambios de enemigos y ya se ha alcanzado el máximo
+     * de suscripciones simultáneas.
+     *
+     * @param ex La excepción {@code SuscripcionesAgotadasException} que se produjo.
+     * @return Una respuesta HTTP con un estado de error 503 (Service Unavailable) y un mensaje de error.
+     */
+    @ExceptionHandler(SuscripcionesAgotadasException.class)
+    public ResponseEntity<String> handleSuscripcionesAgotadas(SuscripcionesAgotadasException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(SUSCRIPCIONES_AGOTADAS);
+    }
+
+    /**
+     * Maneja la excepción {@code ObjectOptimisticLockingFailureException} que se produce
+     * cuando una actualización basada en la versión de la entidad encuentra que la fila
+     * ha sido modificada por otra solicitud (por ejemplo, un golpe concurrente).
+     *
+     * @param ex La excepción {@code ObjectOptimisticLockingFailureException} que se produjo.
+     * @return Una respuesta HTTP con un estado de error 409 (Conflict) y un mensaje de error.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(CONCURRENT_MODIFICATION);
+    }
 }
 
 
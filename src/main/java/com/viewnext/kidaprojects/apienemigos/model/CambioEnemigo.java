@@ -0,0 +1,34 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+/**
+ * El registro {@code CambioEnemigo} representa el estado de combate de un
+ * enemigo que se envía a los clientes suscritos cada vez que cambia. Solo
+ * incluye los campos que modifican las escrituras sobre enemigos existentes.
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param idEnemigo  El identificador del enemigo.
+ * @param vidaActual La vida actual del enemigo.
+ * @param vencido    Si el enemigo ha sido vencido.
+ * @param activo     Si el enemigo está activo.
+ * @param version    La versión del enemigo con este estado, que permite
+ *                   quedarse con el más reciente cuando se agrupan varios.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record CambioEnemigo(int idEnemigo, int vidaActual, boolean vencido, boolean activo, long version) {
+
+	/**
+	 * Construye el cambio a partir del estado actual de un enemigo.
+	 *
+	 * @param enemigo El enemigo que ha cambiado.
+	 * @return El estado de combate del enemigo.
+	 */
+	public static CambioEnemigo de(Enemigo enemigo) {
+		return new CambioEnemigo(enemigo.getIdEnemigo(), enemigo.getVidaActual(), enemigo.isVencido(),
+				enemigo.isActivo(), enemigo.getVersion());
+	}
+}
@@ -0,0 +1,68 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * La enumeración {@code CamposEnemigo} enumera los valores admitidos por el
+ * parámetro {@code fields} de los listados de enemigos. Cada valor indica la
+ * proyección que se lee de la base de datos y se devuelve al cliente.
+ *
+ * <p>
+ * El autor de esta enumeración es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public enum CamposEnemigo {
+
+	/** Todos los campos del enemigo. */
+	COMPLETO(Enemigo.class, Function.identity()),
+
+	/** Solo el identificador, el nombre y el nivel. */
+	RESUMEN(ResumenEnemigo.class, ResumenEnemigo::de),
+
+	/** Solo los campos que intervienen en un combate. */
+	COMBATE(EstadisticasCombate.class, EstadisticasCombate::de);
+
+	private final Class<?> proyeccion;
+	private final Function<Enemigo, ?> conversion;
+
+	CamposEnemigo(Class<?> proyeccion, Function<Enemigo, ?> conversion) {
+		this.proyeccion = proyeccion;
+		this.conversion = conversion;
+	}
+
+	/**
+	 * Obtiene los campos correspondientes al valor del parámetro {@code fields}.
+	 *
+	 * @param valor El valor del parámetro, sin distinguir mayúsculas, o
+	 *              {@code null} para devolver todos los campos.
+	 * @return Los campos solicitados.
+	 * @throws IllegalArgumentException Si el valor no corresponde a ningún
+	 *                                  conjunto de campos.
+	 */
+	public static CamposEnemigo desde(String valor) throws IllegalArgumentException {
+		return valor == null || valor.isEmpty() ? COMPLETO : valueOf(valor.toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Devuelve el tipo que la base de datos debe construir para estos campos.
+	 *
+	 * @return La clase de la proyección, o {@code Enemigo} para todos los campos.
+	 */
+	public Class<?> getProyeccion() {
+		return proyeccion;
+	}
+
+	/**
+	 * Reduce un enemigo ya cargado en memoria a estos campos.
+	 *
+	 * @param enemigo El enemigo a reducir.
+	 * @return El enemigo o su proyección.
+	 */
+	public Object proyectar(Enemigo enemigo) {
+		return conversion.apply(enemigo);
+	}
+}
@@ -1,18 +1,35 @@
 package com.viewnext.kidaprojects.apienemigos.model;
 
+import java.time.Instant;
 import java.util.Objects;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 /**
  * La clase {@code Enemigo} representa un enemigo en el sistema. Contiene
  * información como el identificador del enemigo, el nombre, la descripción, el
  * nivel de dificultad, la recompensa, la fuerza, la defensa, la vida original, la vida actual, el estado
- * de vencido/no vencido y el estado activo/inactivo del enemigo.
+ * de vencido/no vencido, el estado activo/inactivo del enemigo, la versión
+ * usada para el bloqueo optimista y la fecha de la última modificación. La
+ * versión y la fecha se utilizan también como {@code ETag} y
+ * {@code Last-Modified} de las respuestas HTTP.
+ *
+ * <p>
+ * Los enemigos se guardan en la caché de segundo nivel de Hibernate, en la
+ * región {@code enemigos}, con la estrategia de lectura y escritura.
+ * </p>
  *
  * <p>
  * El autor de esta clase es Víctor Colorado "Kid A".
@@ -23,8 +40,15 @@ import jakarta.persistence.Table;
  */
 @Entity
 @Table(name = "enemigos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Enemigo.REGION_CACHE)
 public class Enemigo {
 
+	/**
+	 * Región de la caché de segundo nivel de Hibernate con las entidades.
+	 */
+	public static final String REGION_CACHE = "enemigos";
+
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private int idEnemigo;
@@ -40,6 +64,13 @@ public class Enemigo {
 	private boolean vencido;
 	private boolean activo;
 
+	@Version
+	private long version;
+
+	@UpdateTimestamp
+	@JdbcTypeCode(SqlTypes.TIMESTAMP)
+	private Instant ultimaModificacion;
+
 	public Enemigo(String nombre, String descripcion, int nivel, int recompensa, int fuerza, int defensa,
 			int vidaOriginal) {
 		super();
@@ -60,6 +91,29 @@ public class Enemigo {
 		
 	}
 
+	/**
+	 * Crea una copia independiente de otro enemigo, incluido su identificador y su
+	 * versión.
+	 *
+	 * @param otro El enemigo a copiar.
+	 */
+	public Enemigo(Enemigo otro) {
+		super();
+		this.idEnemigo = otro.idEnemigo;
+		this.nombre = otro.nombre;
+		this.descripcion = otro.descripcion;
+		this.nivel = otro.nivel;
+		this.recompensa = otro.recompensa;
+		this.fuerza = otro.fuerza;
+		this.defensa = otro.defensa;
+		this.vidaOriginal = otro.vidaOriginal;
+		this.vidaActual = otro.vidaActual;
+		this.vencido = otro.vencido;
+		this.activo = otro.activo;
+		this.version = otro.version;
+		this.ultimaModificacion = otro.ultimaModificacion;
+	}
+
 	public int getIdEnemigo() {
 		return idEnemigo;
 	}
@@ -148,6 +202,22 @@ public class Enemigo {
 		this.activo = activo;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	public Instant getUltimaModificacion() {
+		return ultimaModificacion;
+	}
+
+	public void setUltimaModificacion(Instant ultimaModificacion) {
+		this.ultimaModificacion = ultimaModificacion;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(idEnemigo);
@@ -170,7 +240,7 @@ public class Enemigo {
 		return "Enemigo [idEnemigo=" + idEnemigo + ", nombre=" + nombre + ", descripcion=" + descripcion + ", nivel="
 				+ nivel + ", recompensa=" + recompensa + ", fuerza=" + fuerza + ", defensa=" + defensa
 				+ ", vidaOriginal=" + vidaOriginal + ", vidaActual=" + vidaActual + ", vencido=" + vencido + ", activo="
-				+ activo + "]";
+				+ activo + ", version=" + version + "]";
 	}
 
 	
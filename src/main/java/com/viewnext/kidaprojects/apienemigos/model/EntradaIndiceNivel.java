@@ -0,0 +1,20 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+/**
+ * El registro {@code EntradaIndiceNivel} contiene los datos de un enemigo que
+ * necesita el índice de enemigos por nivel.
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param idEnemigo El identificador del enemigo.
+ * @param nivel     El nivel del enemigo.
+ * @param activo    Si el enemigo está activo.
+ * @param vencido   Si el enemigo está vencido.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record EntradaIndiceNivel(int idEnemigo, int nivel, boolean activo, boolean vencido) {
+}
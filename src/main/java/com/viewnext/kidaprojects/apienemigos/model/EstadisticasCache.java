@@ -0,0 +1,21 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+/**
+ * El registro {@code EstadisticasCache} resume el uso de la caché de enemigos
+ * desde el arranque de la aplicación.
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param aciertos    Número de búsquedas resueltas desde la caché.
+ * @param fallos      Número de búsquedas que han tenido que consultar la base de
+ *                    datos.
+ * @param expulsiones Número de entradas expulsadas por tamaño o por caducidad.
+ * @param tamano      Número aproximado de enemigos almacenados actualmente.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record EstadisticasCache(long aciertos, long fallos, long expulsiones, long tamano) {
+}
@@ -0,0 +1,39 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+/**
+ * El registro {@code EstadisticasCombate} contiene los datos de un enemigo que
+ * intervienen en un combate y se devuelve en los listados con
+ * {@code fields=combate}. Se lee de la base de datos como proyección, sin cargar
+ * la entidad {@code Enemigo}.
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param idEnemigo    El identificador del enemigo.
+ * @param nivel        El nivel de dificultad del enemigo.
+ * @param fuerza       La fuerza del enemigo.
+ * @param defensa      La defensa del enemigo.
+ * @param vidaOriginal La vida con la que empieza el enemigo.
+ * @param vidaActual   La vida que le queda al enemigo.
+ * @param vencido      Si el enemigo ha sido vencido.
+ * @param activo       Si el enemigo está activo.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record EstadisticasCombate(int idEnemigo, int nivel, int fuerza, int defensa, int vidaOriginal,
+		int vidaActual, boolean vencido, boolean activo) {
+
+	/**
+	 * Construye las estadísticas de combate de un enemigo ya cargado en memoria.
+	 *
+	 * @param enemigo El enemigo del que se obtienen las estadísticas.
+	 * @return Las estadísticas de combate del enemigo.
+	 */
+	public static EstadisticasCombate de(Enemigo enemigo) {
+		return new EstadisticasCombate(enemigo.getIdEnemigo(), enemigo.getNivel(), enemigo.getFuerza(),
+				enemigo.getDefensa(), enemigo.getVidaOriginal(), enemigo.getVidaActual(), enemigo.isVencido(),
+				enemigo.isActivo());
+	}
+}
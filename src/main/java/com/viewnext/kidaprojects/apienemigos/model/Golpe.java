@@ -0,0 +1,18 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+/**
+ * El registro {@code Golpe} representa una cantidad de daño infligida a un
+ * enemigo. Se utiliza para aplicar varios golpes en una sola solicitud.
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param idEnemigo El identificador del enemigo que recibe el golpe.
+ * @param damage    La cantidad de daño recibido.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record Golpe(int idEnemigo, int damage) {
+}
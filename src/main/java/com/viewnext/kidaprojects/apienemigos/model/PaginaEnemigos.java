@@ -0,0 +1,21 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+import java.util.List;
+
+/**
+ * El registro {@code PaginaEnemigos} representa una página del listado de
+ * enemigos ordenado por identificador.
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param enemigos  Los enemigos de la página.
+ * @param siguiente El cursor que se debe enviar para obtener la página siguiente,
+ *                  o {@code null} si esta es la última.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record PaginaEnemigos(List<Enemigo> enemigos, String siguiente) {
+}
@@ -0,0 +1,30 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+/**
+ * El registro {@code ResumenEnemigo} representa la vista reducida de un enemigo
+ * que se devuelve en los listados con {@code fields=resumen}. Se lee de la base
+ * de datos como proyección, sin cargar la entidad {@code Enemigo}.
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param idEnemigo El identificador del enemigo.
+ * @param nombre    El nombre del enemigo.
+ * @param nivel     El nivel de dificultad del enemigo.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record ResumenEnemigo(int idEnemigo, String nombre, int nivel) {
+
+	/**
+	 * Construye el resumen de un enemigo ya cargado en memoria.
+	 *
+	 * @param enemigo El enemigo a resumir.
+	 * @return El resumen del enemigo.
+	 */
+	public static ResumenEnemigo de(Enemigo enemigo) {
+		return new ResumenEnemigo(enemigo.getIdEnemigo(), enemigo.getNombre(), enemigo.getNivel());
+	}
+}
@@ -0,0 +1,19 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+/**
+ * El registro {@code SugerenciaNombre} representa un enemigo sugerido al
+ * autocompletar su nombre. Solo contiene los datos necesarios para mostrar la
+ * sugerencia.
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param idEnemigo El identificador del enemigo sugerido.
+ * @param nombre    El nombre del enemigo sugerido.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record SugerenciaNombre(int idEnemigo, String nombre) {
+}
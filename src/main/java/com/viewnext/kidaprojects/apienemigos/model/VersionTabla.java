@@ -0,0 +1,55 @@
+package com.viewnext.kidaprojects.apienemigos.model;
+
+import java.time.Instant;
+
+/**
+ * El registro {@code VersionTabla} identifica el estado del conjunto de enemigos
+ * en un momento dado. Cambia con cada escritura confirmada sobre cualquier
+ * enemigo y se utiliza como {@code ETag} y {@code Last-Modified} de los
+ * listados.
+ *
+ * <p>
+ * La versión solo existe en la memoria de una instancia, así que la aplicación
+ * debe desplegarse como instancia única y ser la única que escribe en la tabla:
+ * con varias instancias, o con escrituras hechas fuera de ella, una instancia
+ * no vería los cambios de las demás y respondería 304 con datos obsoletos.
+ * </p>
+ *
+ * <p>
+ * El autor de este registro es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @param arranque           El instante de arranque de la aplicación, que
+ *                           distingue las versiones de distintas ejecuciones.
+ * @param numero             El número de escrituras desde el arranque.
+ * @param ultimaModificacion El instante de la última escritura, o el arranque si
+ *                           aún no ha habido ninguna.
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public record VersionTabla(Instant arranque, long numero, Instant ultimaModificacion) {
+
+	/**
+	 * Devuelve el identificador de esta versión, común a todas sus
+	 * representaciones.
+	 *
+	 * @return El identificador de esta versión.
+	 */
+	public String etag() {
+		return Long.toString(arranque.toEpochMilli(), 36) + "-" + numero;
+	}
+
+	/**
+	 * Devuelve el valor de la cabecera {@code ETag}, sin comillas, de una
+	 * representación concreta. Al ser un validador fuerte, cada combinación de
+	 * formato y codificación necesita el suyo, porque sus bytes son distintos.
+	 *
+	 * @param representacion El formato y la codificación de la respuesta, por
+	 *                       ejemplo {@code json-gzip}.
+	 * @return El identificador de esta versión en esa representación.
+	 */
+	public String etag(String representacion) {
+		return etag() + "-" + representacion;
+	}
+}
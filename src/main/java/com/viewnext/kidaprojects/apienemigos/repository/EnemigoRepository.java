@@ -1,12 +1,23 @@
 package com.viewnext.kidaprojects.apienemigos.repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.EntradaIndiceNivel;
+import com.viewnext.kidaprojects.apienemigos.model.EstadisticasCombate;
+import com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre;
+
+import jakarta.persistence.QueryHint;
 
 /**
  * La interfaz {@code EnemigoRepository} proporciona métodos para acceder y gestionar
@@ -19,23 +30,262 @@ import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
  * @version 1.0
  * @since 5 de Octubre de 2023
  */
-public interface EnemigoRepository extends JpaRepository<Enemigo, Integer>{
+public interface EnemigoRepository extends JpaRepository<Enemigo, Integer>, EnemigoRepositoryCustom {
+
+	/**
+	 * Sentencia que aplica daño a un enemigo sin leerlo previamente. La utilizan
+	 * {@link EnemigoRepositoryCustom#aplicarDamage(int, int)} y las
+	 * actualizaciones por lotes de {@link EnemigoRepositoryCustom}.
+	 *
+	 * <p>
+	 * La columna {@code vencido} se asigna antes que {@code vida_actual} porque
+	 * MySQL evalúa las asignaciones de izquierda a derecha usando los valores ya
+	 * actualizados; con este orden el resultado es el mismo en cualquier motor.
+	 * </p>
+	 */
+	String APLICAR_DAMAGE = "UPDATE enemigos SET vencido = (vida_actual - :damage) <= 0, "
+			+ "vida_actual = vida_actual - :damage, version = version + 1, "
+			+ "ultima_modificacion = CURRENT_TIMESTAMP(3) WHERE id_enemigo = :idEnemigo";
+
+	/**
+	 * Sentencia que sustituye el estado de combate de un enemigo por el calculado
+	 * en memoria. Se utiliza en las actualizaciones por lotes de
+	 * {@link EnemigoRepositoryCustom}.
+	 */
+	String GUARDAR_ESTADO_COMBATE = "UPDATE enemigos SET vida_actual = :vidaActual, vencido = :vencido, "
+			+ "activo = :activo, version = version + 1, ultima_modificacion = CURRENT_TIMESTAMP(3) "
+			+ "WHERE id_enemigo = :idEnemigo";
+
+	/**
+	 * Región de la caché de consultas de Hibernate con los identificadores que
+	 * devuelven {@link #findIdsByNombrePrefijo(String)} y
+	 * {@link #findIdsByNivel(int)}.
+	 */
+	String REGION_CONSULTAS = "enemigos-consultas";
 
 	 /**
      * Recupera una lista de enemigos cuyos nombres comienzan con el prefijo especificado.
+     * Los identificadores salen de la caché de consultas y las entidades de la de
+     * entidades, por lo que una lectura repetida no ejecuta ninguna sentencia.
      *
      * @param prefijo El prefijo que debe coincidir con el nombre de los enemigos.
      * @return Una lista de enemigos cuyos nombres coinciden con el prefijo.
      */
-	@Query("SELECT e FROM Enemigo e WHERE e.nombre LIKE :prefijo%")
-	List<Enemigo> findByNombrePrefijo(@Param("prefijo") String prefijo);
+	@Transactional(readOnly = true)
+	default List<Enemigo> findByNombrePrefijo(String prefijo) {
+		return cargarPorIds(findIdsByNombrePrefijo(prefijo));
+	}
 	
 	/**
      * Recupera una lista de enemigos cuyo nivel es menor o igual al nivel especificado.
+     * Funciona como {@link #findByNombrePrefijo(String)}.
      *
      * @param nivel El nivel máximo de los enemigos a recuperar.
      * @return Una lista de enemigos cuyo nivel es menor o igual al nivel especificado.
      */
-	@Query("SELECT e FROM Enemigo e WHERE e.nivel <= :nivel")
-	List<Enemigo> findByNivel(@Param("nivel") int nivel);
+	@Transactional(readOnly = true)
+	default List<Enemigo> findByNivel(int nivel) {
+		return cargarPorIds(findIdsByNivel(nivel));
+	}
+
+	/**
+	 * Recupera los identificadores de los enemigos cuyos nombres comienzan con el
+	 * prefijo especificado. El resultado se guarda en la caché de consultas de
+	 * Hibernate; como solo depende del nombre, las escrituras JDBC que cambian la
+	 * vida o el estado de los enemigos no lo invalidan.
+	 *
+	 * @param prefijo El prefijo que debe coincidir con el nombre de los enemigos.
+	 * @return Los identificadores de los enemigos cuyos nombres coinciden con el
+	 *         prefijo.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_CONSULTAS) })
+	@Query("SELECT e.idEnemigo FROM Enemigo e WHERE e.nombre LIKE :prefijo%")
+	List<Integer> findIdsByNombrePrefijo(@Param("prefijo") String prefijo);
+
+	/**
+	 * Recupera los identificadores de los enemigos cuyo nivel es menor o igual al
+	 * nivel especificado. El resultado se guarda en la caché de consultas de
+	 * Hibernate, como el de {@link #findIdsByNombrePrefijo(String)}.
+	 *
+	 * @param nivel El nivel máximo de los enemigos.
+	 * @return Los identificadores de los enemigos con nivel menor o igual al
+	 *         indicado.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = REGION_CONSULTAS) })
+	@Query("SELECT e.idEnemigo FROM Enemigo e WHERE e.nivel <= :nivel")
+	List<Integer> findIdsByNivel(@Param("nivel") int nivel);
+
+	/**
+	 * Recupera los enemigos activos y no vencidos cuyos nombres comienzan con el
+	 * prefijo especificado. La consulta se resuelve con el índice
+	 * {@code idx_enemigos_activos_nombre}.
+	 *
+	 * @param prefijo El prefijo que debe coincidir con el nombre de los enemigos.
+	 * @return Una lista de enemigos activos cuyos nombres coinciden con el prefijo.
+	 */
+	@Transactional(readOnly = true)
+	@Query("SELECT e FROM Enemigo e WHERE e.activo = true AND e.vencido = false AND e.nombre LIKE :prefijo%")
+	List<Enemigo> findActivosByNombrePrefijo(@Param("prefijo") String prefijo);
+
+	/**
+	 * Recupera los enemigos activos y no vencidos cuyo nivel es menor o igual al
+	 * nivel especificado. La consulta se resuelve con el índice
+	 * {@code idx_enemigos_activos_nivel}.
+	 *
+	 * @param nivel El nivel máximo de los enemigos a recuperar.
+	 * @return Una lista de enemigos activos con nivel menor o igual al indicado.
+	 */
+	@Query("SELECT e FROM Enemigo e WHERE e.activo = true AND e.vencido = false AND e.nivel <= :nivel")
+	List<Enemigo> findActivosByNivel(@Param("nivel") int nivel);
+
+	/**
+	 * Recupera el identificador y el nombre de todos los enemigos activos, sin
+	 * cargar las entidades completas. Se utiliza para construir el índice de
+	 * autocompletado.
+	 *
+	 * @return Las sugerencias de todos los enemigos activos.
+	 */
+	@Query("SELECT new com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre(e.idEnemigo, e.nombre) "
+			+ "FROM Enemigo e WHERE e.activo = true")
+	List<SugerenciaNombre> findSugerenciasActivas();
+
+	/**
+	 * Recupera el identificador, el nivel y el estado de todos los enemigos, sin
+	 * cargar las entidades completas. Se utiliza para construir el índice de
+	 * enemigos por nivel.
+	 *
+	 * @return Las entradas de todos los enemigos.
+	 */
+	@Query("SELECT new com.viewnext.kidaprojects.apienemigos.model.EntradaIndiceNivel(e.idEnemigo, e.nivel, "
+			+ "e.activo, e.vencido) FROM Enemigo e")
+	List<EntradaIndiceNivel> findEntradasIndiceNivel();
+
+	/**
+	 * Recupera solo la recompensa de un enemigo, sin cargar la entidad en el
+	 * contexto de persistencia.
+	 *
+	 * @param idEnemigo El identificador del enemigo.
+	 * @return La recompensa del enemigo, o un {@code Optional} vacío si no existe.
+	 */
+	@Transactional(readOnly = true)
+	@Query("SELECT e.recompensa FROM Enemigo e WHERE e.idEnemigo = :idEnemigo")
+	Optional<Integer> findRecompensaById(@Param("idEnemigo") int idEnemigo);
+
+	/**
+	 * Recupera todos los enemigos con el tipo indicado. Si el tipo es un registro
+	 * como {@code ResumenEnemigo}, la consulta solo selecciona las columnas de su
+	 * constructor y no crea entidades; si es {@code Enemigo}, las entidades se
+	 * cargan en modo de solo lectura, sin copia para la detección de cambios.
+	 *
+	 * @param <T>        El tipo de los resultados.
+	 * @param proyeccion La clase de los resultados.
+	 * @return Todos los enemigos con el tipo indicado.
+	 */
+	@Transactional(readOnly = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	<T> List<T> findAllBy(Class<T> proyeccion);
+
+	/**
+	 * Recupera con el tipo indicado los enemigos cuyo nombre comienza con el
+	 * prefijo. Funciona como {@link #findAllBy(Class)}. Spring Data escapa los
+	 * caracteres {@code %} y {@code _} del prefijo y añade la cláusula
+	 * {@code ESCAPE}, por lo que se buscan literalmente.
+	 *
+	 * @param <T>        El tipo de los resultados.
+	 * @param prefijo    El prefijo que debe tener el nombre.
+	 * @param proyeccion La clase de los resultados.
+	 * @return Los enemigos cuyo nombre comienza con el prefijo.
+	 */
+	@Transactional(readOnly = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	<T> List<T> findByNombreStartingWith(String prefijo, Class<T> proyeccion);
+
+	/**
+	 * Recupera con el tipo indicado los enemigos activos y no vencidos cuyo nombre
+	 * comienza con el prefijo. Funciona como
+	 * {@link #findByNombreStartingWith(String, Class)} y se resuelve con el índice
+	 * {@code idx_enemigos_activos_nombre}.
+	 *
+	 * @param <T>        El tipo de los resultados.
+	 * @param prefijo    El prefijo que debe tener el nombre.
+	 * @param proyeccion La clase de los resultados.
+	 * @return Los enemigos activos cuyo nombre comienza con el prefijo.
+	 */
+	@Transactional(readOnly = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	<T> List<T> findByActivoTrueAndVencidoFalseAndNombreStartingWith(String prefijo, Class<T> proyeccion);
+
+	/**
+	 * Recupera una página de enemigos ordenados por identificador, empezando por el
+	 * primero cuyo identificador es mayor que el indicado (paginación por clave).
+	 * A diferencia de la paginación por desplazamiento, el coste no crece con el
+	 * número de páginas ya recorridas.
+	 *
+	 * @param despuesDe El identificador del último enemigo de la página anterior, o
+	 *                  0 para la primera página.
+	 * @param pagina    El tamaño de la página. Solo se utiliza su tamaño, no su
+	 *                  número.
+	 * @return Una lista con, como máximo, tantos enemigos como indique la página.
+	 */
+	@Query("SELECT e FROM Enemigo e WHERE e.idEnemigo > :despuesDe ORDER BY e.idEnemigo")
+	List<Enemigo> findPagina(@Param("despuesDe") int despuesDe, Pageable pagina);
+
+	/**
+	 * Recorre todos los enemigos ordenados por identificador sin cargarlos en
+	 * memoria a la vez. El flujo debe consumirse dentro de una transacción y
+	 * cerrarse al terminar.
+	 *
+	 * @return Un flujo con todos los enemigos.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("SELECT e FROM Enemigo e ORDER BY e.idEnemigo")
+	Stream<Enemigo> streamAll();
+
+	/**
+	 * Recorre las estadísticas de combate de todos los enemigos activos sin cargar
+	 * las entidades. El flujo debe consumirse dentro de una transacción y cerrarse
+	 * al terminar.
+	 *
+	 * @return Un flujo con las estadísticas de combate de los enemigos activos.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT new com.viewnext.kidaprojects.apienemigos.model.EstadisticasCombate(e.idEnemigo, e.nivel, "
+			+ "e.fuerza, e.defensa, e.vidaOriginal, e.vidaActual, e.vencido, e.activo) "
+			+ "FROM Enemigo e WHERE e.activo = true ORDER BY e.idEnemigo")
+	Stream<EstadisticasCombate> streamEstadisticasCombateActivas();
+
+	/**
+	 * Recupera, en orden, los identificadores de enemigo mayores que uno dado y no
+	 * mayores que un límite (paginación por clave). Permite recorrer la tabla por
+	 * bloques de filas existentes sin visitar los huecos entre identificadores.
+	 *
+	 * @param despuesDe El último identificador del bloque anterior.
+	 * @param hasta     El mayor identificador que puede devolverse.
+	 * @param bloque    El tamaño del bloque. Solo se utiliza su tamaño, no su
+	 *                  número.
+	 * @return Una lista con, como máximo, tantos identificadores como indique el
+	 *         bloque.
+	 */
+	@Query("SELECT e.idEnemigo FROM Enemigo e WHERE e.idEnemigo > :despuesDe AND e.idEnemigo <= :hasta "
+			+ "ORDER BY e.idEnemigo")
+	List<Integer> findIdsBloque(@Param("despuesDe") int despuesDe, @Param("hasta") int hasta, Pageable bloque);
+
+	/**
+	 * Recupera el menor identificador de enemigo existente.
+	 *
+	 * @return El menor identificador, o {@code null} si no hay enemigos.
+	 */
+	@Query("SELECT MIN(e.idEnemigo) FROM Enemigo e")
+	Integer findMinIdEnemigo();
+
+	/**
+	 * Recupera el mayor identificador de enemigo existente.
+	 *
+	 * @return El mayor identificador, o {@code null} si no hay enemigos.
+	 */
+	@Query("SELECT MAX(e.idEnemigo) FROM Enemigo e")
+	Integer findMaxIdEnemigo();
 }
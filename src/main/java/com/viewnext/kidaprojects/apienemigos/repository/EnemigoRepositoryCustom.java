@@ -0,0 +1,93 @@
+package com.viewnext.kidaprojects.apienemigos.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import com.viewnext.kidaprojects.apienemigos.model.CambioEnemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+/**
+ * La interfaz {@code EnemigoRepositoryCustom} declara operaciones sobre la tabla
+ * de enemigos que no se pueden expresar de forma eficiente con consultas JPA y
+ * que se implementan directamente sobre JDBC o la sesión de Hibernate. Cada
+ * escritura invalida las entradas afectadas de la caché de segundo nivel.
+ *
+ * <p>
+ * El autor de esta interfaz es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public interface EnemigoRepositoryCustom {
+
+	/**
+	 * Aplica una cantidad de daño a un enemigo en una única sentencia UPDATE, sin
+	 * leer previamente la fila. La resta se realiza en la propia base de datos, por
+	 * lo que golpes concurrentes sobre el mismo enemigo no se pierden.
+	 *
+	 * @param idEnemigo El identificador del enemigo que recibe el daño.
+	 * @param damage    La cantidad de daño recibido.
+	 * @return El número de filas actualizadas (0 si el enemigo no existe).
+	 */
+	int aplicarDamage(int idEnemigo, int damage);
+
+	/**
+	 * Aplica daño a varios enemigos enviando todas las sentencias UPDATE en un único
+	 * lote JDBC y dentro de una misma transacción.
+	 *
+	 * @param damagePorEnemigo El daño a aplicar indexado por el identificador del
+	 *                         enemigo. Se recomienda un mapa ordenado por
+	 *                         identificador para que las filas se bloqueen siempre en
+	 *                         el mismo orden.
+	 * @return El número de filas actualizadas por cada sentencia, en el orden de
+	 *         iteración del mapa.
+	 */
+	int[] aplicarDamageEnLote(Map<Integer, Integer> damagePorEnemigo);
+
+	/**
+	 * Sustituye el estado de combate de varios enemigos enviando todas las
+	 * sentencias UPDATE en un único lote JDBC y dentro de una misma transacción.
+	 *
+	 * @param estados El estado de cada enemigo, preferiblemente ordenado por
+	 *                identificador para que las filas se bloqueen siempre en el
+	 *                mismo orden.
+	 * @return El número de filas actualizadas por cada sentencia.
+	 */
+	int[] guardarEstadoCombateEnLote(List<CambioEnemigo> estados);
+
+	/**
+	 * Inserta varios enemigos enviando todas las sentencias INSERT en un único lote
+	 * JDBC. Es necesario porque Hibernate no puede agrupar inserciones de entidades
+	 * con identificadores {@code IDENTITY}.
+	 *
+	 * @param enemigos Los enemigos a insertar. Su identificador se ignora y se
+	 *                 sustituye por el generado por la base de datos.
+	 * @return Los identificadores generados, en el mismo orden que los enemigos.
+	 */
+	List<Integer> insertarEnLote(List<Enemigo> enemigos);
+
+	/**
+	 * Reinicia con una única sentencia UPDATE los enemigos de un rango de
+	 * identificadores, dejándolos activos, no vencidos y con su vida original. Cada
+	 * invocación se ejecuta en su propia transacción para que los bloqueos duren lo
+	 * mínimo posible.
+	 *
+	 * @param desde El primer identificador del rango (incluido).
+	 * @param hasta El último identificador del rango (incluido).
+	 * @param nivel El nivel máximo de los enemigos a reiniciar, o {@code null} para
+	 *              reiniciarlos todos.
+	 * @return El número de enemigos reiniciados.
+	 */
+	int reiniciarRango(int desde, int hasta, Integer nivel);
+
+	/**
+	 * Carga los enemigos indicados consultando primero la caché de segundo nivel;
+	 * solo los que no están en ella se leen de la base de datos, con una única
+	 * sentencia.
+	 *
+	 * @param ids Los identificadores de los enemigos.
+	 * @return Los enemigos que existen, en el mismo orden que los identificadores.
+	 */
+	List<Enemigo> cargarPorIds(List<Integer> ids);
+}
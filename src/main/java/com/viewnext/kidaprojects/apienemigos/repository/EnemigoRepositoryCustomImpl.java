@@ -0,0 +1,243 @@
+package com.viewnext.kidaprojects.apienemigos.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.viewnext.kidaprojects.apienemigos.model.CambioEnemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * La clase {@code EnemigoRepositoryCustomImpl} implementa las operaciones de
+ * {@code EnemigoRepositoryCustom} mediante {@code NamedParameterJdbcTemplate}.
+ * Spring Data la combina automáticamente con {@code EnemigoRepository}.
+ *
+ * <p>
+ * Como estas sentencias no pasan por Hibernate, cada operación invalida por sí
+ * misma las entidades afectadas de la caché de segundo nivel: al ejecutarse, para
+ * que el resto de la transacción lea los valores nuevos, y de nuevo al
+ * confirmarse, por si otra transacción había vuelto a guardar los anteriores
+ * mientras tanto. Las consultas en caché solo guardan identificadores filtrados
+ * por nombre o nivel, que las actualizaciones no cambian; por eso solo las
+ * inserciones invalidan la región {@link EnemigoRepository#REGION_CONSULTAS}.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+class EnemigoRepositoryCustomImpl implements EnemigoRepositoryCustom {
+
+	private static final String INSERTAR = "INSERT INTO enemigos (nombre, descripcion, nivel, recompensa, fuerza, "
+			+ "defensa, vida_original, vida_actual, vencido, activo, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+	private static final String REINICIAR_RANGO = "UPDATE enemigos SET activo = TRUE, vencido = FALSE, "
+			+ "vida_actual = vida_original, version = version + 1, ultima_modificacion = CURRENT_TIMESTAMP(3) "
+			+ "WHERE id_enemigo BETWEEN :desde AND :hasta AND (:nivel IS NULL OR nivel <= :nivel)";
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	/**
+	 * Carga los enemigos con la carga múltiple de Hibernate, que resuelve desde
+	 * la sesión y la caché de segundo nivel los que ya están en ellas. La carga
+	 * múltiple solo consulta la caché si se le indica un modo de caché; se usa el
+	 * de la sesión, que las réplicas fijan en {@code GET}.
+	 *
+	 * @param ids Los identificadores de los enemigos.
+	 * @return Los enemigos que existen, en el mismo orden que los identificadores.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Enemigo> cargarPorIds(List<Integer> ids) {
+		Session sesion = entityManager.unwrap(Session.class);
+		return sesion.byMultipleIds(Enemigo.class)
+				.with(sesion.getCacheMode())
+				.enableSessionCheck(true)
+				.multiLoad(ids).stream()
+				.filter(Objects::nonNull)
+				.toList();
+	}
+
+	/**
+	 * Aplica daño a un enemigo con una sentencia JDBC.
+	 *
+	 * @param idEnemigo El identificador del enemigo que recibe el daño.
+	 * @param damage    La cantidad de daño recibido.
+	 * @return El número de filas actualizadas.
+	 */
+	@Override
+	@Transactional
+	public int aplicarDamage(int idEnemigo, int damage) {
+		int filas = jdbcTemplate.update(EnemigoRepository.APLICAR_DAMAGE, new MapSqlParameterSource()
+				.addValue("idEnemigo", idEnemigo)
+				.addValue("damage", damage));
+		invalidarCache(List.of(idEnemigo));
+		return filas;
+	}
+
+	/**
+	 * Aplica daño a varios enemigos en un único lote JDBC.
+	 *
+	 * @param damagePorEnemigo El daño a aplicar indexado por el identificador del
+	 *                         enemigo.
+	 * @return El número de filas actualizadas por cada sentencia.
+	 */
+	@Override
+	@Transactional
+	public int[] aplicarDamageEnLote(Map<Integer, Integer> damagePorEnemigo) {
+		SqlParameterSource[] parametros = new SqlParameterSource[damagePorEnemigo.size()];
+		int i = 0;
+
+		for (Map.Entry<Integer, Integer> entrada : damagePorEnemigo.entrySet()) {
+			parametros[i++] = new MapSqlParameterSource()
+					.addValue("idEnemigo", entrada.getKey())
+					.addValue("damage", entrada.getValue());
+		}
+
+		int[] filas = jdbcTemplate.batchUpdate(EnemigoRepository.APLICAR_DAMAGE, parametros);
+		invalidarCache(damagePorEnemigo.keySet());
+		return filas;
+	}
+
+	/**
+	 * Sustituye el estado de combate de varios enemigos en un único lote JDBC.
+	 *
+	 * @param estados El estado de cada enemigo.
+	 * @return El número de filas actualizadas por cada sentencia.
+	 */
+	@Override
+	@Transactional
+	public int[] guardarEstadoCombateEnLote(List<CambioEnemigo> estados) {
+		SqlParameterSource[] parametros = new SqlParameterSource[estados.size()];
+		int i = 0;
+
+		for (CambioEnemigo estado : estados) {
+			parametros[i++] = new MapSqlParameterSource()
+					.addValue("idEnemigo", estado.idEnemigo())
+					.addValue("vidaActual", estado.vidaActual())
+					.addValue("vencido", estado.vencido())
+					.addValue("activo", estado.activo());
+		}
+
+		int[] filas = jdbcTemplate.batchUpdate(EnemigoRepository.GUARDAR_ESTADO_COMBATE, parametros);
+		invalidarCache(estados.stream().map(CambioEnemigo::idEnemigo).toList());
+		return filas;
+	}
+
+	/**
+	 * Inserta varios enemigos en un único lote JDBC y recupera los identificadores
+	 * generados.
+	 *
+	 * @param enemigos Los enemigos a insertar.
+	 * @return Los identificadores generados, en el mismo orden que los enemigos.
+	 */
+	@Override
+	@Transactional
+	public List<Integer> insertarEnLote(List<Enemigo> enemigos) {
+		List<Integer> generados = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<List<Integer>>) conexion -> {
+			try (PreparedStatement sentencia = conexion.prepareStatement(INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+				for (Enemigo enemigo : enemigos) {
+					sentencia.setString(1, enemigo.getNombre());
+					sentencia.setString(2, enemigo.getDescripcion());
+					sentencia.setInt(3, enemigo.getNivel());
+					sentencia.setInt(4, enemigo.getRecompensa());
+					sentencia.setInt(5, enemigo.getFuerza());
+					sentencia.setInt(6, enemigo.getDefensa());
+					sentencia.setInt(7, enemigo.getVidaOriginal());
+					sentencia.setInt(8, enemigo.getVidaActual());
+					sentencia.setBoolean(9, enemigo.isVencido());
+					sentencia.setBoolean(10, enemigo.isActivo());
+					sentencia.addBatch();
+				}
+				sentencia.executeBatch();
+
+				List<Integer> ids = new ArrayList<>(enemigos.size());
+				try (ResultSet claves = sentencia.getGeneratedKeys()) {
+					while (claves.next()) {
+						ids.add(claves.getInt(1));
+					}
+				}
+				return ids;
+			}
+		});
+		Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+		invalidarAhoraYAlConfirmar(() -> cache.evictQueryRegion(EnemigoRepository.REGION_CONSULTAS));
+		return generados;
+	}
+
+	/**
+	 * Reinicia los enemigos del rango con una sentencia JDBC. Una actualización
+	 * masiva de JPQL bloquearía toda la región de la caché mientras dura la
+	 * transacción; en su lugar, la región de enemigos se vacía de forma explícita.
+	 *
+	 * @param desde El primer identificador del rango (incluido).
+	 * @param hasta El último identificador del rango (incluido).
+	 * @param nivel El nivel máximo de los enemigos a reiniciar, o {@code null} para
+	 *              reiniciarlos todos.
+	 * @return El número de enemigos reiniciados.
+	 */
+	@Override
+	@Transactional
+	public int reiniciarRango(int desde, int hasta, Integer nivel) {
+		int filas = jdbcTemplate.update(REINICIAR_RANGO, new MapSqlParameterSource()
+				.addValue("desde", desde)
+				.addValue("hasta", hasta)
+				.addValue("nivel", nivel, Types.INTEGER));
+		Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+		invalidarAhoraYAlConfirmar(() -> cache.evictEntityData(Enemigo.class));
+		return filas;
+	}
+
+	/**
+	 * Invalida en la caché de segundo nivel los enemigos indicados.
+	 */
+	private void invalidarCache(Collection<Integer> ids) {
+		Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+		invalidarAhoraYAlConfirmar(() -> ids.forEach(id -> cache.evictEntityData(Enemigo.class, id)));
+	}
+
+	/**
+	 * Ejecuta la invalidación ahora y de nuevo al confirmarse la transacción.
+	 */
+	private static void invalidarAhoraYAlConfirmar(Runnable invalidar) {
+		invalidar.run();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					invalidar.run();
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.viewnext.kidaprojects.apienemigos.restcontroller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.viewnext.kidaprojects.apienemigos.model.VersionTabla;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * La clase {@code CacheRespuestas} guarda el JSON o el CBOR ya serializado de
+ * los listados de enemigos, de modo que las solicitudes repetidas se responden copiando un
+ * array de bytes en la respuesta, sin consultar el servicio ni volver a
+ * serializar con Jackson.
+ *
+ * <p>
+ * Cada entrada se identifica por la ruta y los parámetros de la solicitud, el
+ * formato (JSON o CBOR) y la versión de la tabla de enemigos
+ * ({@code VersionTabla}). Cualquier
+ * escritura a través del servicio cambia la versión, por lo que las entradas
+ * anteriores dejan de utilizarse y acaban expulsadas por tamaño
+ * ({@code enemigos.respuestas.cache.tamano-maximo-bytes}) o por falta de uso. La
+ * variante comprimida con gzip se calcula la primera vez que un cliente la
+ * acepta y se guarda junto a la respuesta sin comprimir.
+ * </p>
+ *
+ * <p>
+ * Se puede desactivar con {@code enemigos.respuestas.cache.enabled=false}; en
+ * ese caso cada solicitud se serializa de nuevo.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+public class CacheRespuestas {
+
+	private final ObjectMapper objectMapper;
+	private final ObjectMapper cborMapper;
+	private final Cache<Clave, RespuestaSerializada> cache;
+
+	public CacheRespuestas(ObjectMapper objectMapper, MappingJackson2CborHttpMessageConverter conversorCbor,
+			MeterRegistry meterRegistry,
+			@Value("${enemigos.respuestas.cache.enabled:true}") boolean activada,
+			@Value("${enemigos.respuestas.cache.tamano-maximo-bytes:67108864}") long tamanoMaximoBytes) {
+		this.objectMapper = objectMapper;
+		this.cborMapper = conversorCbor.getObjectMapper();
+		if (activada) {
+			this.cache = Caffeine.newBuilder()
+					.maximumWeight(tamanoMaximoBytes)
+					.weigher((Clave clave, RespuestaSerializada respuesta) -> respuesta.datos.length)
+					.expireAfterAccess(Duration.ofMinutes(10))
+					.recordStats()
+					.build();
+			CaffeineCacheMetrics.monitor(meterRegistry, cache, "respuestas");
+		} else {
+			this.cache = null;
+		}
+	}
+
+	/**
+	 * Devuelve la respuesta serializada de un listado, generándola solo si no está
+	 * en la caché para la versión indicada. Las solicitudes simultáneas de la misma
+	 * respuesta esperan a que la genere la primera.
+	 *
+	 * @param ruta      La ruta y los parámetros que identifican el listado.
+	 * @param formato   {@code application/json} o {@code application/cbor}.
+	 * @param version   La versión de la tabla leída antes de generar el contenido.
+	 * @param contenido Genera el objeto a serializar. Las excepciones que lance se
+	 *                  propagan y no se guarda nada en la caché.
+	 * @return La respuesta serializada.
+	 */
+	public RespuestaSerializada obtener(String ruta, MediaType formato, VersionTabla version, Supplier<?> contenido) {
+		boolean cbor = MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(formato);
+		if (cache == null) {
+			return serializar(contenido.get(), cbor);
+		}
+		return cache.get(new Clave(ruta, cbor, version.numero()), clave -> serializar(contenido.get(), cbor));
+	}
+
+	private RespuestaSerializada serializar(Object contenido, boolean cbor) {
+		try {
+			return new RespuestaSerializada((cbor ? cborMapper : objectMapper).writeValueAsBytes(contenido));
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private record Clave(String ruta, boolean cbor, long version) {
+	}
+
+	/**
+	 * Cuerpo de una respuesta ya serializado. Los arrays devueltos son compartidos
+	 * y no deben modificarse.
+	 */
+	public static final class RespuestaSerializada {
+
+		private final byte[] datos;
+		private volatile byte[] gzip;
+
+		RespuestaSerializada(byte[] datos) {
+			this.datos = datos;
+		}
+
+		public byte[] getDatos() {
+			return datos;
+		}
+
+		/**
+		 * Devuelve la respuesta comprimida con gzip. Se comprime solo la primera vez;
+		 * si dos hilos lo piden a la vez ambos obtienen el mismo resultado.
+		 *
+		 * @return La respuesta comprimida.
+		 */
+		public byte[] getGzip() {
+			byte[] comprimido = gzip;
+			if (comprimido == null) {
+				comprimido = comprimir(datos);
+				gzip = comprimido;
+			}
+			return comprimido;
+		}
+
+		private static byte[] comprimir(byte[] datos) {
+			ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, datos.length / 4));
+			try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+				gzip.write(datos);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return salida.toByteArray();
+		}
+	}
+}
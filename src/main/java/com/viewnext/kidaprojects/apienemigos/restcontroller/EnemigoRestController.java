@@ -1,25 +1,49 @@
 package com.viewnext.kidaprojects.apienemigos.restcontroller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.viewnext.kidaprojects.apienemigos.model.CamposEnemigo;
 import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.EstadisticasCache;
+import com.viewnext.kidaprojects.apienemigos.model.Golpe;
+import com.viewnext.kidaprojects.apienemigos.model.PaginaEnemigos;
+import com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre;
+import com.viewnext.kidaprojects.apienemigos.model.VersionTabla;
+import com.viewnext.kidaprojects.apienemigos.restcontroller.CacheRespuestas.RespuestaSerializada;
+import com.viewnext.kidaprojects.apienemigos.service.DifusionCambios;
 import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
-
-import jakarta.persistence.EntityNotFoundException;
+import com.viewnext.kidaprojects.apienemigos.service.ParametroInvalidoException;
 
 /**
  * El controlador {@code EnemigoRestController} maneja las solicitudes
@@ -40,39 +64,141 @@ public class EnemigoRestController {
 	@Autowired
 	private EnemigoService service;
 
-	private static final String ENEMIGO_NOT_FOUND = "Enemigo/s no encontrado";
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private CacheRespuestas cacheRespuestas;
+
+	@Autowired
+	private MappingJackson2CborHttpMessageConverter conversorCbor;
+
+	@Value("${enemigos.suscripciones.timeout-ms:1800000}")
+	private long timeoutSuscripcion;
 
 	/**
 	 * Maneja una solicitud GET para recuperar todos los enemigos en el sistema.
 	 *
-	 * @return ResponseEntity que contiene una lista de enemigos si se encuentran, o
-	 *         un mensaje de error si no se encuentran enemigos.
+	 * @param fields   Los campos de cada enemigo a devolver: {@code resumen},
+	 *                 {@code combate} o todos si no se indica.
+	 * @param peticion La solicitud, para comprobar sus cabeceras condicionales.
+	 * @return ResponseEntity que contiene una lista de enemigos si se encuentran,
+	 *         una respuesta 304 si no han cambiado desde la versión indicada por el
+	 *         cliente, o un mensaje de error si no se encuentran enemigos.
 	 */
-	@GetMapping(value = "enemigo", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> showAllEnemigos() {
-		try {
-			List<Enemigo> listaEnemigos = service.showAll();
-			return ResponseEntity.ok(listaEnemigos);
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
+	@GetMapping(value = "enemigo", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<?> showAllEnemigos(@RequestParam(value = "fields", required = false) String fields,
+			WebRequest peticion) {
+		CamposEnemigo campos = camposSolicitados(fields);
+		return listado(peticion, "enemigo?fields=" + campos,
+				() -> campos == CamposEnemigo.COMPLETO ? service.showAll() : service.showAll(campos.getProyeccion()));
+	}
+
+	/**
+	 * Maneja una solicitud GET para recuperar todos los enemigos en formato NDJSON
+	 * (un objeto JSON por línea). Cada enemigo se escribe en la respuesta en cuanto
+	 * se lee de la base de datos, por lo que la memoria utilizada no depende del
+	 * número de enemigos.
+	 *
+	 * @return ResponseEntity cuyo cuerpo escribe los enemigos a medida que se leen.
+	 */
+	@GetMapping(value = "enemigo", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamAllEnemigos() {
+		StreamingResponseBody cuerpo = salida -> {
+			JsonGenerator generador = objectMapper.getFactory().createGenerator(salida);
+			try {
+				service.recorrerTodos(enemigo -> {
+					try {
+						objectMapper.writeValue(generador, enemigo);
+						generador.writeRaw('\n');
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			generador.flush();
+		};
+
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+	}
+
+	/**
+	 * Maneja una solicitud GET que abre un flujo de eventos del servidor (SSE) con
+	 * los cambios de estado de los enemigos indicados. Primero se envía el estado
+	 * actual de los que existen y después, en eventos {@code cambios}, un array con
+	 * el último estado de cada enemigo que haya cambiado desde el evento anterior.
+	 * La conexión se cierra tras {@code enemigos.suscripciones.timeout-ms}
+	 * milisegundos o si el cliente no lee los eventos a tiempo; el cliente puede
+	 * volver a suscribirse.
+	 *
+	 * @param ids Los identificadores de los enemigos, separados por comas.
+	 * @return El flujo de eventos.
+	 */
+	@GetMapping(value = "enemigo/suscripcion", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter suscribirCambios(@RequestParam("ids") Set<Integer> ids) {
+		SseEmitter emisor = new SseEmitter(timeoutSuscripcion);
+		DifusionCambios.Suscripcion suscripcion = service.suscribir(ids,
+				cambios -> emisor.send(SseEmitter.event().name("cambios").data(cambios, MediaType.APPLICATION_JSON)),
+				emisor::complete);
+
+		emisor.onCompletion(suscripcion::cancelar);
+		emisor.onTimeout(suscripcion::cancelar);
+		emisor.onError(e -> suscripcion.cancelar());
+		return emisor;
+	}
+
+	/**
+	 * Maneja una solicitud GET para recuperar una página de enemigos ordenados por
+	 * su ID.
+	 *
+	 * @param cursor El cursor devuelto en la página anterior, o nada para obtener
+	 *               la primera página.
+	 * @param limite   El número máximo de enemigos de la página.
+	 * @param peticion La solicitud, para comprobar sus cabeceras condicionales.
+	 * @return ResponseEntity que contiene la página de enemigos y el cursor de la
+	 *         página siguiente, o una respuesta 304 si no han cambiado.
+	 */
+	@GetMapping(value = "enemigo/pagina",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<PaginaEnemigos> showPaginaEnemigos(
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "limite", defaultValue = "100") int limite, WebRequest peticion) {
+		MediaType formato = formatoRespuesta(peticion);
+		if (sinCambios(peticion, service.getVersionTabla(), representacion(formato, false))) {
+			return null;
 		}
+		return ResponseEntity.ok().contentType(formato).header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+				.body(service.showPagina(cursor, limite));
 	}
 
 	/**
-	 * Maneja una solicitud GET para recuperar un enemigo por su ID.
+	 * Maneja una solicitud GET para recuperar un enemigo por su ID. La respuesta
+	 * incluye la versión del enemigo como {@code ETag} y su última modificación
+	 * como {@code Last-Modified}; si coinciden con las cabeceras
+	 * {@code If-None-Match} o {@code If-Modified-Since} de la solicitud, se
+	 * responde 304 sin serializar el enemigo. Como el enemigo se obtiene de la
+	 * caché, en ese caso tampoco se accede a la base de datos.
 	 *
 	 * @param idEnemigo El ID del enemigo a recuperar.
+	 * @param peticion  La solicitud, para elegir el formato de la respuesta y su
+	 *                  {@code ETag}.
 	 * @return ResponseEntity que contiene el enemigo si se encuentra, o un mensaje
 	 *         de error si no se encuentra el enemigo.
 	 */
-	@GetMapping(value = "enemigo/{idEnemigo}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> showEnemigoById(@PathVariable("idEnemigo") int idEnemigo) {
-		try {
-			Enemigo enemigo = service.showById(idEnemigo);
-			return ResponseEntity.ok(enemigo);
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
+	@GetMapping(value = "enemigo/{idEnemigo}",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<?> showEnemigoById(@PathVariable("idEnemigo") int idEnemigo, WebRequest peticion) {
+		Enemigo enemigo = service.showById(idEnemigo);
+		MediaType formato = formatoRespuesta(peticion);
+		ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok().contentType(formato)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+				.eTag(enemigo.getVersion() + "-" + representacion(formato, false));
+		if (enemigo.getUltimaModificacion() != null) {
+			respuesta.lastModified(enemigo.getUltimaModificacion());
 		}
+		return respuesta.body(enemigo);
 	}
 
 	/**
@@ -84,52 +210,94 @@ public class EnemigoRestController {
 	 * @return ResponseEntity que contiene la recompensa si se encuentra, o un
 	 *         mensaje de error si no se encuentra el enemigo.
 	 */
-	@GetMapping(value = "enemigo/recompensa/{idEnemigo}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@GetMapping(value = "enemigo/recompensa/{idEnemigo}",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
 	public ResponseEntity<?> getRecompensaByIdEnemigo(@PathVariable("idEnemigo") int idEnemigo) {
-		try {
-			int recompensa = service.getRecomenpsa(idEnemigo);
-			return ResponseEntity.ok(recompensa);
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
-		}
-
+		int recompensa = service.getRecomenpsa(idEnemigo);
+		return ResponseEntity.ok(recompensa);
 	}
 
 	/**
 	 * Maneja una solicitud GET para recuperar enemigos cuyos nombres coinciden con
 	 * un prefijo dado.
 	 *
-	 * @param prefijo El prefijo del nombre del enemigo a buscar.
-	 * @return ResponseEntity que contiene una lista de enemigos si se encuentran, o
-	 *         un mensaje de error si no se encuentran enemigos.
+	 * @param prefijo     El prefijo del nombre del enemigo a buscar.
+	 * @param soloActivos Si es {@code true}, solo se devuelven los enemigos
+	 *                    activos y no vencidos.
+	 * @param fields      Los campos de cada enemigo a devolver: {@code resumen},
+	 *                    {@code combate} o todos si no se indica.
+	 * @param peticion    La solicitud, para comprobar sus cabeceras
+	 *                    condicionales.
+	 * @return ResponseEntity que contiene una lista de enemigos si se encuentran,
+	 *         una respuesta 304 si no han cambiado, o un mensaje de error si no se
+	 *         encuentran enemigos.
 	 */
-	@GetMapping(value = "enemigo/nombre", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> showEnemigosByNombreLike(@RequestParam("prefijo") String prefijo) {
-		try {
-			List<Enemigo> listaEnemigos = service.showByNombreLike(prefijo);
-			return ResponseEntity.ok(listaEnemigos);
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
-		}
+	@GetMapping(value = "enemigo/nombre",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<?> showEnemigosByNombreLike(@RequestParam("prefijo") String prefijo,
+			@RequestParam(value = "soloActivos", defaultValue = "false") boolean soloActivos,
+			@RequestParam(value = "fields", required = false) String fields, WebRequest peticion) {
+		CamposEnemigo campos = camposSolicitados(fields);
+		return listado(peticion,
+				"enemigo/nombre?prefijo=" + prefijo + "&soloActivos=" + soloActivos + "&fields=" + campos, () -> campos == CamposEnemigo.COMPLETO ? service.showByNombreLike(prefijo, soloActivos)
+						: service.showByNombreLike(prefijo, soloActivos, campos.getProyeccion()));
+	}
+
+	/**
+	 * Maneja una solicitud GET para autocompletar el nombre de un enemigo. Las
+	 * sugerencias se obtienen de un índice en memoria, sin distinguir mayúsculas ni
+	 * acentos, y solo incluyen enemigos activos.
+	 *
+	 * @param prefijo El prefijo escrito por el usuario.
+	 * @param limite  El número máximo de sugerencias (10 por defecto, 100 como
+	 *                máximo).
+	 * @return ResponseEntity con la lista de sugerencias {@code {idEnemigo, nombre}},
+	 *         vacía si ningún enemigo coincide.
+	 */
+	@GetMapping(value = "enemigo/autocompletar",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<List<SugerenciaNombre>> autocompletarNombre(@RequestParam("prefijo") String prefijo,
+			@RequestParam(value = "limite", defaultValue = "10") int limite) {
+		return ResponseEntity.ok(service.autocompletar(prefijo, limite));
 	}
 
 	/**
 	 * Maneja una solicitud GET para recuperar enemigos cuyo nivel de dificultad sea
-	 * igual o menor al nivel especificado.
+	 * igual o menor al nivel especificado, ordenados por nivel e identificador.
 	 *
-	 * @param nivel El nivel de dificultad máximo deseado.
-	 * @return ResponseEntity que contiene una lista de enemigos si se encuentran, o
-	 *         un mensaje de error si no se encuentran enemigos.
+	 * @param nivel       El nivel de dificultad máximo deseado.
+	 * @param soloActivos Si es {@code true}, equivale a {@code activo=true} y
+	 *                    {@code vencido=false}.
+	 * @param activo      Filtro opcional por el estado {@code activo}.
+	 * @param vencido     Filtro opcional por el estado {@code vencido}.
+	 * @param limite      El número máximo de enemigos a devolver (opcional).
+	 * @param fields      Los campos de cada enemigo a devolver: {@code resumen},
+	 *                    {@code combate} o todos si no se indica.
+	 * @param peticion    La solicitud, para comprobar sus cabeceras
+	 *                    condicionales.
+	 * @return ResponseEntity que contiene una lista de enemigos si se encuentran,
+	 *         una respuesta 304 si no han cambiado, o un mensaje de error si no se
+	 *         encuentran enemigos.
 	 */
-	@GetMapping(value = "enemigo/nivel", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> showEnemigosByNivel(@RequestParam("nivel") int nivel) {
+	@GetMapping(value = "enemigo/nivel",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<?> showEnemigosByNivel(@RequestParam("nivel") int nivel,
+			@RequestParam(value = "soloActivos", defaultValue = "false") boolean soloActivos,
+			@RequestParam(value = "activo", required = false) Boolean activo,
+			@RequestParam(value = "vencido", required = false) Boolean vencido,
+			@RequestParam(value = "limite", required = false) Integer limite,
+			@RequestParam(value = "fields", required = false) String fields, WebRequest peticion) {
+		CamposEnemigo campos = camposSolicitados(fields);
+		Boolean filtroActivo = soloActivos ? Boolean.TRUE : activo;
+		Boolean filtroVencido = soloActivos ? Boolean.FALSE : vencido;
 
-		try {
-			List<Enemigo> listaEnemigos = service.showByNivel(nivel);
-			return ResponseEntity.ok(listaEnemigos);
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
-		}
+		return listado(peticion, "enemigo/nivel?nivel=" + nivel + "&activo=" + filtroActivo + "&vencido="
+				+ filtroVencido + "&limite=" + limite + "&fields=" + campos, () -> {
+					List<Enemigo> listaEnemigos = service.showByNivel(nivel, filtroActivo, filtroVencido, limite);
+					// Los enemigos ya están en la caché, así que la proyección se hace en memoria
+					return campos == CamposEnemigo.COMPLETO ? listaEnemigos
+							: listaEnemigos.stream().map(campos::proyectar).toList();
+				});
 	}
 
 	/**
@@ -139,7 +307,9 @@ public class EnemigoRestController {
 	 * @return ResponseEntity que contiene el enemigo creado y la URI del nuevo
 	 *         recurso.
 	 */
-	@PostMapping(value = "enemigo", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+	@PostMapping(value = "enemigo",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE },
+			consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
 	public ResponseEntity<Enemigo> createEnemigo(@RequestBody Enemigo enemigo) {
 		Enemigo enemigoCreado = service.createEnemigo(enemigo);
 
@@ -151,6 +321,38 @@ public class EnemigoRestController {
 
 	}
 
+	/**
+	 * Maneja una solicitud POST para crear varios enemigos en una sola llamada. El
+	 * cuerpo puede ser un array JSON, una secuencia NDJSON (un enemigo por línea)
+	 * o su equivalente en CBOR; en todos los casos se lee a medida que se insertan
+	 * los enemigos.
+	 *
+	 * @param cuerpo  El cuerpo de la solicitud con los enemigos a crear.
+	 * @param formato El tipo de contenido del cuerpo.
+	 * @return ResponseEntity que contiene los IDs de los enemigos creados, en el
+	 *         mismo orden en que se enviaron.
+	 * @throws IOException Si el cuerpo de la solicitud no se puede leer.
+	 */
+	@PostMapping(value = "enemigo/batch",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE },
+			consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+					MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<List<Integer>> createEnemigos(InputStream cuerpo,
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType formato) throws IOException {
+		ObjectMapper lector = MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(formato) ? conversorCbor.getObjectMapper()
+				: objectMapper;
+		try (MappingIterator<Enemigo> enemigos = lector.readerFor(Enemigo.class).readValues(cuerpo)) {
+			List<Integer> ids = service.createEnemigos(enemigos);
+			return ResponseEntity.status(HttpStatus.CREATED).body(ids);
+		} catch (RuntimeException e) {
+			// El iterador envuelve los errores de formato en excepciones no comprobadas
+			if (e.getCause() instanceof JsonProcessingException formatoInvalido) {
+				throw formatoInvalido;
+			}
+			throw e;
+		}
+	}
+
 	/**
 	 * Maneja una solicitud PUT para actualizar la vida de un enemigo basado en su
 	 * ID y la cantidad de daño recibido.
@@ -160,15 +362,28 @@ public class EnemigoRestController {
 	 * @return ResponseEntity que contiene el enemigo actualizado o un mensaje de
 	 *         error si el enemigo no se encuentra.
 	 */
-	@PutMapping(value = "enemigo/{idEnemigo}/damage", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PutMapping(value = "enemigo/{idEnemigo}/damage",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
 	public ResponseEntity<?> updateVidaEnemigo(@PathVariable("idEnemigo") int idEnemigo,
 			@RequestParam("damage") int damage) {
-		try {
-			Enemigo enemigoActualizado = service.updateVida(idEnemigo, damage);
-			return ResponseEntity.ok(enemigoActualizado);
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
-		}
+		Enemigo enemigoActualizado = service.updateVida(idEnemigo, damage);
+		return ResponseEntity.ok(enemigoActualizado);
+	}
+
+	/**
+	 * Maneja una solicitud POST para aplicar varios golpes en una sola llamada. Los
+	 * golpes dirigidos al mismo enemigo se suman antes de aplicarse.
+	 *
+	 * @param golpes La lista de golpes, cada uno con el ID del enemigo y el daño.
+	 * @return ResponseEntity que contiene el estado resultante de cada enemigo
+	 *         golpeado, o un mensaje de error si no se encuentra ninguno.
+	 */
+	@PostMapping(value = "enemigo/damage/batch",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE },
+			consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<?> updateVidaEnemigos(@RequestBody List<Golpe> golpes) {
+		List<Enemigo> listaEnemigos = service.updateVidaEnLote(golpes);
+		return ResponseEntity.ok(listaEnemigos);
 	}
 
 	/**
@@ -179,26 +394,120 @@ public class EnemigoRestController {
 	 * @return ResponseEntity que contiene el enemigo desactivado o un mensaje de
 	 *         error si el enemigo no se encuentra.
 	 */
-	@DeleteMapping(value = "enemigo/{idEnemigo}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@DeleteMapping(value = "enemigo/{idEnemigo}",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
 	public ResponseEntity<?> setEstadoInactivo(@PathVariable("idEnemigo") int idEnemigo) {
-		try {
-			Enemigo enemigoInactivo = service.setEstadoInactivo(idEnemigo);
-			return ResponseEntity.ok(enemigoInactivo);
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
-		}
+		Enemigo enemigoInactivo = service.setEstadoInactivo(idEnemigo);
+		return ResponseEntity.ok(enemigoInactivo);
 	}
 
 	/**
-	 * Maneja una solicitud POST para reiniciar el estado de todos los enemigos en
-	 * el sistema.
+	 * Maneja una solicitud POST para reiniciar el estado de los enemigos en el
+	 * sistema. Sin parámetros se reinician todos los enemigos.
 	 *
-	 * @return ResponseEntity que contiene un mensaje indicando que los enemigos han
+	 * @param nivel El nivel máximo de los enemigos a reiniciar (opcional).
+	 * @param desde El primer ID de enemigo a reiniciar (opcional).
+	 * @param hasta El último ID de enemigo a reiniciar (opcional).
+	 * @return ResponseEntity que contiene un mensaje indicando cuántos enemigos han
 	 *         sido reiniciados.
 	 */
 	@PostMapping(value = "enemigo/reinicio")
-	public ResponseEntity<String> reiniciarEnemigos() {
-		service.reiniciarEnemigos();
-		return ResponseEntity.ok("Enemigos reiniciados");
+	public ResponseEntity<String> reiniciarEnemigos(@RequestParam(value = "nivel", required = false) Integer nivel,
+			@RequestParam(value = "desde", required = false) Integer desde,
+			@RequestParam(value = "hasta", required = false) Integer hasta) {
+		int reiniciados = service.reiniciarEnemigos(nivel, desde, hasta);
+		return ResponseEntity.ok("Enemigos reiniciados: " + reiniciados);
+	}
+
+	/**
+	 * Maneja una solicitud GET para consultar los contadores de aciertos, fallos y
+	 * expulsiones de la caché de enemigos.
+	 *
+	 * @return ResponseEntity que contiene las estadísticas de la caché.
+	 */
+	@GetMapping(value = "enemigo/cache",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<EstadisticasCache> getEstadisticasCache() {
+		return ResponseEntity.ok(service.getEstadisticasCache());
+	}
+
+	/**
+	 * Responde a una solicitud de un listado de enemigos. Si el cliente ya tiene la
+	 * versión actual responde 304; si no, copia en la respuesta el JSON guardado en
+	 * {@code CacheRespuestas}, comprimido con gzip cuando el cliente lo acepta, y
+	 * solo consulta el servicio y serializa si aún no estaba guardado.
+	 */
+	private ResponseEntity<?> listado(WebRequest peticion, String ruta, Supplier<?> contenido) {
+		VersionTabla version = service.getVersionTabla();
+		MediaType formato = formatoRespuesta(peticion);
+		String codificaciones = peticion.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		boolean gzip = codificaciones != null && codificaciones.contains("gzip");
+		if (sinCambios(peticion, version, representacion(formato, gzip))) {
+			return null;
+		}
+
+		RespuestaSerializada respuesta = cacheRespuestas.obtener(ruta, formato, version, contenido);
+		ResponseEntity.BodyBuilder cuerpo = ResponseEntity.ok().contentType(formato)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+
+		if (gzip) {
+			return cuerpo.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(respuesta.getGzip());
+		}
+		return cuerpo.body(respuesta.getDatos());
+	}
+
+	/**
+	 * Obtiene los campos pedidos en el parámetro {@code fields}, rechazando con
+	 * {@code ParametroInvalidoException} los valores desconocidos.
+	 */
+	private static CamposEnemigo camposSolicitados(String fields) throws ParametroInvalidoException {
+		try {
+			return CamposEnemigo.desde(fields);
+		} catch (IllegalArgumentException e) {
+			throw new ParametroInvalidoException("fields", e);
+		}
+	}
+
+	/**
+	 * Elige entre JSON y CBOR según la cabecera {@code Accept}, dando preferencia
+	 * al tipo con mayor calidad y, a igual calidad, al primero. Los comodines
+	 * equivalen a JSON.
+	 */
+	private static MediaType formatoRespuesta(WebRequest peticion) {
+		String aceptados = peticion.getHeader(HttpHeaders.ACCEPT);
+		MediaType formato = MediaType.APPLICATION_JSON;
+		if (aceptados == null) {
+			return formato;
+		}
+
+		double mejorCalidad = -1;
+		for (MediaType tipo : MediaType.parseMediaTypes(aceptados)) {
+			MediaType candidato = MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(tipo) ? MediaType.APPLICATION_CBOR
+					: tipo.isCompatibleWith(MediaType.APPLICATION_JSON) ? MediaType.APPLICATION_JSON : null;
+			if (candidato != null && tipo.getQualityValue() > mejorCalidad) {
+				formato = candidato;
+				mejorCalidad = tipo.getQualityValue();
+			}
+		}
+		return formato;
+	}
+
+	/**
+	 * Identifica el formato y la codificación de una respuesta dentro de su
+	 * {@code ETag}, de modo que JSON, CBOR y sus versiones comprimidas no
+	 * compartan un mismo validador fuerte.
+	 */
+	private static String representacion(MediaType formato, boolean gzip) {
+		return (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(formato) ? "cbor" : "json") + (gzip ? "-gzip" : "");
+	}
+
+	/**
+	 * Compara las cabeceras condicionales de la solicitud con la versión de la
+	 * tabla de enemigos, que se obtiene de memoria, en la representación indicada.
+	 * Si no ha cambiado, prepara la respuesta 304; en cualquier caso añade las
+	 * cabeceras {@code ETag} y {@code Last-Modified} a la respuesta.
+	 */
+	private boolean sinCambios(WebRequest peticion, VersionTabla version, String representacion) {
+		return peticion.checkNotModified(version.etag(representacion), version.ultimaModificacion().toEpochMilli());
 	}
 }
@@ -0,0 +1,357 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * La clase {@code AcumuladorDamage} agrupa en memoria los golpes recibidos por
+ * cada enemigo y los escribe en la base de datos por lotes, en lugar de realizar
+ * una escritura por golpe.
+ *
+ * <p>
+ * El daño de cada enemigo se suma en un {@code LongAdder}, de modo que los golpes
+ * concurrentes no compiten por un mismo contador. El volcado se realiza cada
+ * {@code enemigos.damage.write-behind.intervalo-ms} milisegundos, cuando se
+ * alcanzan {@code enemigos.damage.write-behind.umbral-golpes} golpes pendientes
+ * y al detener la aplicación. Mientras tanto, el estado devuelto a los clientes se
+ * calcula a partir del último estado leído de la base de datos más el daño
+ * acumulado.
+ * </p>
+ *
+ * <p>
+ * Solo se activa con {@code enemigos.damage.write-behind.enabled=true}. Los golpes
+ * que aún no se han volcado se pierden si el proceso termina de forma abrupta.
+ * </p>
+ *
+ * <p>
+ * Los enemigos sin daño pendiente que no reciben golpes durante
+ * {@code enemigos.damage.write-behind.inactividad-ms} milisegundos se retiran en
+ * el siguiente volcado, para que la memoria no crezca con cada enemigo golpeado
+ * alguna vez; el próximo golpe vuelve a leerlo. Un golpe que coincide con la
+ * retirada lo detecta y se registra en la entrada nueva. El daño de cada
+ * sentencia se acota al rango de un {@code int}; el resto se vuelca en el
+ * siguiente ciclo.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+@ConditionalOnProperty(prefix = "enemigos.damage.write-behind", name = "enabled", havingValue = "true")
+public class AcumuladorDamage {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AcumuladorDamage.class);
+
+	private final EnemigoRepository enemigoRepository;
+	private final EnrutadorShards enrutadorShards;
+	private final TransactionTemplate transactionTemplate;
+	private final VersionEnemigos versionEnemigos;
+	private final long umbralGolpes;
+	private final long inactividadNanos;
+	private final Map<Integer, EstadoAcumulado> estados = new ConcurrentHashMap<>();
+	private final LongAdder golpesPendientes = new LongAdder();
+	private final LongAdder golpesRecibidos = new LongAdder();
+	private final LongAdder escriturasBdd = new LongAdder();
+	private final AtomicBoolean volcadoSolicitado = new AtomicBoolean();
+	/**
+	 * Serializa los volcados. Es un {@code ReentrantLock} y no un bloque
+	 * {@code synchronized} para no fijar el hilo portador mientras un hilo virtual
+	 * espera a la base de datos.
+	 */
+	private final ReentrantLock bloqueoVolcado = new ReentrantLock();
+	private final ScheduledExecutorService planificador;
+
+	public AcumuladorDamage(EnemigoRepository enemigoRepository, EnrutadorShards enrutadorShards,
+			TransactionTemplate transactionTemplate, VersionEnemigos versionEnemigos, MeterRegistry meterRegistry,
+			@Value("${enemigos.damage.write-behind.intervalo-ms:100}") long intervaloMs,
+			@Value("${enemigos.damage.write-behind.umbral-golpes:5000}") long umbralGolpes,
+			@Value("${enemigos.damage.write-behind.inactividad-ms:60000}") long inactividadMs) {
+		this.enemigoRepository = enemigoRepository;
+		this.enrutadorShards = enrutadorShards;
+		this.transactionTemplate = transactionTemplate;
+		this.versionEnemigos = versionEnemigos;
+		this.umbralGolpes = umbralGolpes;
+		this.inactividadNanos = TimeUnit.MILLISECONDS.toNanos(inactividadMs);
+		FunctionCounter.builder("enemigos.damage.golpes", golpesRecibidos, LongAdder::sum)
+				.description("Golpes registrados en el acumulador de daño").register(meterRegistry);
+		FunctionCounter.builder("enemigos.damage.escrituras", escriturasBdd, LongAdder::sum)
+				.description("Sentencias UPDATE enviadas por el acumulador de daño").register(meterRegistry);
+		this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread hilo = new Thread(r, "volcado-damage");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		this.planificador.scheduleWithFixedDelay(this::volcarSinPropagar, intervaloMs, intervaloMs,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Registra un golpe sobre un enemigo sin escribir en la base de datos.
+	 *
+	 * @param idEnemigo El identificador del enemigo que recibe el golpe.
+	 * @param damage    La cantidad de daño recibido.
+	 * @return Una copia del enemigo con la vida resultante de todos los golpes
+	 *         acumulados hasta el momento.
+	 * @throws EntityNotFoundException Si el enemigo no existe.
+	 */
+	public Enemigo registrarGolpe(int idEnemigo, int damage) throws EntityNotFoundException {
+		EstadoAcumulado estado = estados.computeIfAbsent(idEnemigo, this::cargar);
+
+		estado.damageTotal.add(damage);
+		while (estado.retirado) {
+			// La entrada se está retirando: el golpe se deshace y se registra en la que la sustituya
+			estado.damageTotal.add(-damage);
+			Thread.onSpinWait();
+			estado = estados.computeIfAbsent(idEnemigo, this::cargar);
+			estado.damageTotal.add(damage);
+		}
+		golpesRecibidos.increment();
+		golpesPendientes.increment();
+
+		if (golpesPendientes.sum() >= umbralGolpes && volcadoSolicitado.compareAndSet(false, true)) {
+			planificador.execute(this::volcarSinPropagar);
+		}
+
+		return estado.comoEnemigo();
+	}
+
+	/**
+	 * Escribe en la base de datos, en un único lote ordenado por identificador, el
+	 * daño acumulado desde el último volcado. Con sharding se escribe un lote en
+	 * cada shard, todos a la vez, y el daño de cada uno se da por volcado en cuanto
+	 * se confirma su lote, aunque falle el de otro shard.
+	 */
+	public void volcar() {
+		bloqueoVolcado.lock();
+		try {
+			volcadoSolicitado.set(false);
+			golpesPendientes.reset();
+
+			long ahora = System.nanoTime();
+			Map<Integer, Integer> lote = new TreeMap<>();
+			for (Map.Entry<Integer, EstadoAcumulado> entrada : estados.entrySet()) {
+				EstadoAcumulado estado = entrada.getValue();
+				long pendiente = estado.damageTotal.sum() - estado.damageVolcado;
+				if (pendiente != 0) {
+					lote.put(entrada.getKey(), acotar(pendiente));
+					estado.ultimoGolpe = ahora;
+				} else if (ahora - estado.ultimoGolpe >= inactividadNanos) {
+					retirar(entrada.getKey(), estado);
+				}
+			}
+
+			if (lote.isEmpty()) {
+				return;
+			}
+
+			try {
+				enrutadorShards.porShard(lote.keySet(), Integer::intValue, ids -> {
+					Map<Integer, Integer> parte = new TreeMap<>();
+					ids.forEach(id -> parte.put(id, lote.get(id)));
+					enemigoRepository.aplicarDamageEnLote(parte);
+
+					parte.forEach((id, damage) -> estados.get(id).damageVolcado += damage);
+					escriturasBdd.add(parte.size());
+					return List.of();
+				});
+			} finally {
+				versionEnemigos.incrementar();
+			}
+		} finally {
+			bloqueoVolcado.unlock();
+		}
+	}
+
+	/**
+	 * Vuelca el daño pendiente y vuelve a leer de la base de datos el estado de un
+	 * enemigo. Se debe invocar después de cualquier otra escritura sobre el enemigo.
+	 *
+	 * @param idEnemigo El identificador del enemigo a refrescar.
+	 */
+	public void refrescar(int idEnemigo) {
+		EstadoAcumulado estado = estados.get(idEnemigo);
+		if (estado == null) {
+			return;
+		}
+
+		bloqueoVolcado.lock();
+		try {
+			volcar();
+			leer(idEnemigo).ifPresentOrElse(
+					enemigo -> estado.base = new Base(enemigo, estado.damageVolcado),
+					() -> estados.remove(idEnemigo));
+		} finally {
+			bloqueoVolcado.unlock();
+		}
+	}
+
+	/**
+	 * Vuelca el daño pendiente y vuelve a leer de la base de datos el estado de
+	 * todos los enemigos acumulados. Se debe invocar después de escrituras masivas.
+	 */
+	public void refrescarTodo() {
+		bloqueoVolcado.lock();
+		try {
+			volcar();
+
+			Map<Integer, Enemigo> actuales = new HashMap<>();
+			enrutadorShards.porShard(estados.keySet(), Integer::intValue,
+					ids -> transactionTemplate.execute(status -> enemigoRepository.findAllById(ids)))
+					.forEach(e -> actuales.put(e.getIdEnemigo(), e));
+
+			estados.forEach((idEnemigo, estado) -> {
+				Enemigo enemigo = actuales.get(idEnemigo);
+				if (enemigo == null) {
+					estados.remove(idEnemigo);
+				} else {
+					estado.base = new Base(enemigo, estado.damageVolcado);
+				}
+			});
+		} finally {
+			bloqueoVolcado.unlock();
+		}
+	}
+
+	/**
+	 * Devuelve el número total de golpes registrados desde el arranque.
+	 *
+	 * @return El número de golpes recibidos.
+	 */
+	public long getGolpesRecibidos() {
+		return golpesRecibidos.sum();
+	}
+
+	/**
+	 * Devuelve el número de enemigos cuyo estado se conserva en memoria.
+	 *
+	 * @return El número de enemigos acumulados.
+	 */
+	public int getEnemigosAcumulados() {
+		return estados.size();
+	}
+
+	/**
+	 * Devuelve el número total de sentencias UPDATE enviadas a la base de datos
+	 * desde el arranque.
+	 *
+	 * @return El número de escrituras realizadas.
+	 */
+	public long getEscriturasBdd() {
+		return escriturasBdd.sum();
+	}
+
+	/**
+	 * Detiene el volcado periódico y escribe el daño pendiente antes de que se
+	 * cierre la conexión con la base de datos.
+	 */
+	@PreDestroy
+	public void cerrar() throws InterruptedException {
+		planificador.shutdown();
+		planificador.awaitTermination(10, TimeUnit.SECONDS);
+		volcar();
+	}
+
+	private void volcarSinPropagar() {
+		try {
+			volcar();
+		} catch (RuntimeException e) {
+			// El daño no volcado se conserva y se reintenta en el siguiente ciclo
+			LOGGER.error("Error al volcar el daño acumulado", e);
+		}
+	}
+
+	private EstadoAcumulado cargar(int idEnemigo) {
+		Enemigo enemigo = leer(idEnemigo).orElseThrow(EnemigoNoEncontradoException::new);
+		return new EstadoAcumulado(new Base(enemigo, 0));
+	}
+
+	/**
+	 * Retira una entrada sin daño pendiente. Se marca antes de comprobar el daño:
+	 * o esta comprobación ve el golpe concurrente y la entrada se conserva, o el
+	 * golpe ve la marca y se repite sobre la entrada nueva.
+	 */
+	private void retirar(int idEnemigo, EstadoAcumulado estado) {
+		estado.retirado = true;
+		if (estado.damageTotal.sum() == estado.damageVolcado) {
+			estados.remove(idEnemigo, estado);
+		} else {
+			estado.retirado = false;
+		}
+	}
+
+	private static int acotar(long valor) {
+		return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, valor));
+	}
+
+	/**
+	 * Lee un enemigo en una transacción de lectura y escritura, para que con
+	 * réplicas se lea de la primaria y refleje los golpes ya volcados.
+	 */
+	private Optional<Enemigo> leer(int idEnemigo) {
+		return enrutadorShards.enShardDe(idEnemigo,
+				() -> transactionTemplate.execute(status -> enemigoRepository.findById(idEnemigo)));
+	}
+
+	/**
+	 * Último estado leído de la base de datos junto con el daño acumulado que ya
+	 * estaba incluido en él.
+	 */
+	private record Base(Enemigo enemigo, long damageIncluido) {
+	}
+
+	private static final class EstadoAcumulado {
+
+		private final LongAdder damageTotal = new LongAdder();
+		private volatile Base base;
+		private volatile boolean retirado;
+		// Solo se modifican durante un volcado, con el bloqueo de volcado adquirido
+		private long damageVolcado;
+		private long ultimoGolpe = System.nanoTime();
+
+		private EstadoAcumulado(Base base) {
+			this.base = base;
+		}
+
+		private Enemigo comoEnemigo() {
+			Base actual = base;
+			long pendiente = damageTotal.sum() - actual.damageIncluido();
+			Enemigo enemigo = new Enemigo(actual.enemigo());
+
+			if (pendiente != 0) {
+				enemigo.setVidaActual(acotar(enemigo.getVidaActual() - pendiente));
+				enemigo.setVencido(enemigo.getVidaActual() <= 0);
+			}
+
+			return enemigo;
+		}
+	}
+}
@@ -0,0 +1,322 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.EstadisticasCache;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * La clase {@code CacheEnemigos} mantiene en memoria los enemigos consultados por
+ * su identificador, de modo que las lecturas repetidas no acceden a la base de
+ * datos.
+ *
+ * <p>
+ * La caché tiene un tamaño máximo ({@code enemigos.cache.tamano-maximo}) y un
+ * tiempo de vida ({@code enemigos.cache.ttl-segundos}) a partir de la carga de
+ * cada entrada. Las escrituras realizadas a través de {@code EnemigoServiceImpl}
+ * sustituyen o invalidan las entradas afectadas. Los enemigos devueltos son compartidos y no
+ * deben modificarse. Los contadores de la caché se publican también como
+ * métricas {@code cache.*} con la etiqueta {@code cache=enemigos}.
+ * </p>
+ *
+ * <p>
+ * Los identificadores que no existen se recuerdan en una segunda caché
+ * ({@code enemigos.cache.inexistentes.tamano-maximo} y
+ * {@code enemigos.cache.inexistentes.ttl-segundos}), de modo que las consultas
+ * repetidas de un enemigo inexistente tampoco acceden a la base de datos. Crear
+ * un enemigo invalida su identificador en ambas cachés; una fila insertada por
+ * otra vía puede quedar oculta, como mucho, durante el tiempo de vida de esta
+ * segunda caché. Sus contadores se publican con la etiqueta
+ * {@code cache=enemigos-inexistentes}.
+ * </p>
+ *
+ * <p>
+ * Una lectura que empezó antes de una creación puede no encontrar el enemigo y
+ * terminar después de que la creación haya invalidado su identificador. Para que
+ * no lo marque entonces como inexistente, cada creación incrementa un contador
+ * de generación: la lectura lo anota antes de consultar la base de datos y solo
+ * recuerda los identificadores no encontrados si no ha cambiado.
+ * </p>
+ *
+ * <p>
+ * Los enemigos que faltan se leen con consultas {@code IN} de, como mucho,
+ * {@code enemigos.cache.tamano-bloque} identificadores. Los recorridos grandes,
+ * como los listados por nivel, solo guardan en la caché los enemigos leídos si
+ * no pasan de {@code enemigos.cache.relleno-maximo}; si no, se leen sin
+ * guardarlos, para no expulsar las entradas que sí se consultan a menudo.
+ * </p>
+ *
+ * <p>
+ * Los enemigos que faltan se leen en una transacción de lectura y escritura,
+ * para que con réplicas se lean siempre de la primaria: las cachés se rellenan
+ * justo después de las escrituras que las invalidan, y una réplica retrasada
+ * dejaría el estado anterior, o un falso inexistente, durante todo su tiempo de
+ * vida.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+public class CacheEnemigos {
+
+	private final EnemigoRepository enemigoRepository;
+	private final EnrutadorShards enrutadorShards;
+	private final TransactionTemplate transactionTemplate;
+	private final Cache<Integer, Enemigo> cache;
+	private final Cache<Integer, Boolean> inexistentes;
+	private final AtomicLong generacion = new AtomicLong();
+	private final int tamanoBloque;
+	private final int rellenoMaximo;
+
+	public CacheEnemigos(EnemigoRepository enemigoRepository, EnrutadorShards enrutadorShards,
+			TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+			@Value("${enemigos.cache.tamano-maximo:10000}") long tamanoMaximo,
+			@Value("${enemigos.cache.ttl-segundos:300}") long ttlSegundos,
+			@Value("${enemigos.cache.inexistentes.tamano-maximo:100000}") long tamanoMaximoInexistentes,
+			@Value("${enemigos.cache.inexistentes.ttl-segundos:60}") long ttlSegundosInexistentes,
+			@Value("${enemigos.cache.tamano-bloque:1000}") int tamanoBloque,
+			@Value("${enemigos.cache.relleno-maximo:1000}") int rellenoMaximo) {
+		if (tamanoBloque <= 0) {
+			throw new IllegalStateException("enemigos.cache.tamano-bloque debe ser mayor que 0: " + tamanoBloque);
+		}
+		this.enemigoRepository = enemigoRepository;
+		this.enrutadorShards = enrutadorShards;
+		this.transactionTemplate = transactionTemplate;
+		this.tamanoBloque = tamanoBloque;
+		this.rellenoMaximo = rellenoMaximo;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximo)
+				.expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+				.recordStats()
+				.build();
+		this.inexistentes = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximoInexistentes)
+				.expireAfterWrite(Duration.ofSeconds(ttlSegundosInexistentes))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "enemigos");
+		CaffeineCacheMetrics.monitor(meterRegistry, inexistentes, "enemigos-inexistentes");
+	}
+
+	/**
+	 * Recupera un enemigo por su identificador, consultando la base de datos solo si
+	 * no está en la caché ni se sabe ya que no existe.
+	 *
+	 * @param idEnemigo El identificador del enemigo a recuperar.
+	 * @return El enemigo, o un {@code Optional} vacío si no existe.
+	 */
+	public Optional<Enemigo> buscar(int idEnemigo) {
+		if (esInexistente(idEnemigo)) {
+			return Optional.empty();
+		}
+
+		return Optional.ofNullable(cache.get(idEnemigo, id -> {
+			long generacionLectura = generacion.get();
+			Enemigo enemigo = enrutadorShards.enShardDe(id,
+					() -> transactionTemplate.execute(status -> enemigoRepository.findById(id))).orElse(null);
+			if (enemigo == null) {
+				registrarInexistente(id, generacionLectura);
+			}
+			return enemigo;
+		}));
+	}
+
+	/**
+	 * Indica si se sabe, sin consultar la base de datos, que un enemigo no existe.
+	 *
+	 * @param idEnemigo El identificador del enemigo.
+	 * @return {@code true} si una consulta reciente no encontró el enemigo.
+	 */
+	public boolean esInexistente(int idEnemigo) {
+		return inexistentes.getIfPresent(idEnemigo) != null;
+	}
+
+	/**
+	 * Recuerda que un enemigo no existe, tras una consulta a la base de datos
+	 * primaria que no lo ha encontrado, salvo que desde que empezó la consulta se
+	 * haya creado algún enemigo. La comprobación y la escritura son atómicas
+	 * respecto a la invalidación de la clave, que la creación hace después de
+	 * incrementar la generación.
+	 */
+	private void registrarInexistente(int idEnemigo, long generacionLectura) {
+		inexistentes.asMap().compute(idEnemigo,
+				(id, actual) -> generacion.get() == generacionLectura ? Boolean.TRUE : actual);
+	}
+
+	/**
+	 * Recupera un enemigo de la caché sin consultar la base de datos si no está en
+	 * ella.
+	 *
+	 * @param idEnemigo El identificador del enemigo a recuperar.
+	 * @return El enemigo, o un {@code Optional} vacío si no está en la caché.
+	 */
+	public Optional<Enemigo> buscarSiPresente(int idEnemigo) {
+		return Optional.ofNullable(cache.getIfPresent(idEnemigo));
+	}
+
+	/**
+	 * Recupera varios enemigos por su identificador. Los que no están en la caché
+	 * se leen de la base de datos por bloques y se guardan en ella.
+	 *
+	 * @param ids Los identificadores de los enemigos a recuperar.
+	 * @return Los enemigos existentes, en el mismo orden que los identificadores.
+	 */
+	public List<Enemigo> buscarTodos(int[] ids) {
+		List<Integer> claves = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			if (!esInexistente(id)) {
+				claves.add(id);
+			}
+		}
+
+		Map<Integer, Enemigo> encontrados = cache.getAll(claves, faltan -> {
+			long generacionLectura = generacion.get();
+			Map<Integer, Enemigo> cargados = cargar(List.copyOf(faltan));
+			for (Integer id : faltan) {
+				if (!cargados.containsKey(id)) {
+					registrarInexistente(id, generacionLectura);
+				}
+			}
+			return cargados;
+		});
+
+		return new ArrayList<>(encontrados.values());
+	}
+
+	/**
+	 * Recupera los enemigos de un recorrido que puede ser grande, como un listado
+	 * por nivel. Si no son más de {@code enemigos.cache.relleno-maximo} equivale a
+	 * {@link #buscarTodos(int[])}; si no, los que faltan en la caché se leen por
+	 * bloques sin guardarlos en ella.
+	 *
+	 * @param ids Los identificadores de los enemigos a recuperar.
+	 * @return Los enemigos existentes, en el mismo orden que los identificadores.
+	 */
+	public List<Enemigo> buscarRecorrido(int[] ids) {
+		if (ids.length <= rellenoMaximo) {
+			return buscarTodos(ids);
+		}
+
+		List<Integer> claves = new ArrayList<>(ids.length);
+		for (int id : ids) {
+			claves.add(id);
+		}
+		Map<Integer, Enemigo> presentes = cache.getAllPresent(claves);
+		List<Integer> faltan = new ArrayList<>(claves.size() - presentes.size());
+		for (Integer id : claves) {
+			if (!presentes.containsKey(id)) {
+				faltan.add(id);
+			}
+		}
+		Map<Integer, Enemigo> cargados = cargar(faltan);
+
+		List<Enemigo> enemigos = new ArrayList<>(ids.length);
+		for (Integer id : claves) {
+			Enemigo enemigo = presentes.containsKey(id) ? presentes.get(id) : cargados.get(id);
+			if (enemigo != null) {
+				enemigos.add(enemigo);
+			}
+		}
+		return enemigos;
+	}
+
+	/**
+	 * Lee de la base de datos primaria los enemigos indicados, con consultas de
+	 * como mucho {@code enemigos.cache.tamano-bloque} identificadores.
+	 */
+	private Map<Integer, Enemigo> cargar(List<Integer> ids) {
+		Map<Integer, Enemigo> cargados = new HashMap<>();
+		for (int inicio = 0; inicio < ids.size(); inicio += tamanoBloque) {
+			List<Integer> bloque = ids.subList(inicio, Math.min(inicio + tamanoBloque, ids.size()));
+			for (Enemigo enemigo : enrutadorShards.porShard(bloque, Integer::intValue,
+					parte -> transactionTemplate.execute(status -> enemigoRepository.findAllById(parte)))) {
+				cargados.put(enemigo.getIdEnemigo(), enemigo);
+			}
+		}
+		return cargados;
+	}
+
+	/**
+	 * Registra la creación de un enemigo y guarda su estado en la caché.
+	 *
+	 * @param enemigo El enemigo tal como ha quedado en la base de datos.
+	 */
+	public void creado(Enemigo enemigo) {
+		generacion.incrementAndGet();
+		actualizar(enemigo);
+	}
+
+	/**
+	 * Registra la creación de varios enemigos e invalida sus identificadores.
+	 *
+	 * @param ids Los identificadores de los enemigos creados.
+	 */
+	public void creados(List<Integer> ids) {
+		generacion.incrementAndGet();
+		ids.forEach(this::invalidar);
+	}
+
+	/**
+	 * Elimina de la caché un enemigo que ha sido modificado.
+	 *
+	 * @param idEnemigo El identificador del enemigo a invalidar.
+	 */
+	public void invalidar(int idEnemigo) {
+		cache.invalidate(idEnemigo);
+		inexistentes.invalidate(idEnemigo);
+	}
+
+	/**
+	 * Guarda en la caché el estado de un enemigo recién escrito, sin volver a leerlo
+	 * de la base de datos, que podría ser una réplica aún sin el cambio. Si la caché
+	 * ya tiene una versión posterior del enemigo, se conserva esa.
+	 *
+	 * @param enemigo El enemigo tal como ha quedado en la base de datos.
+	 */
+	public void actualizar(Enemigo enemigo) {
+		inexistentes.invalidate(enemigo.getIdEnemigo());
+		cache.asMap().merge(enemigo.getIdEnemigo(), enemigo,
+				(actual, nuevo) -> nuevo.getVersion() >= actual.getVersion() ? nuevo : actual);
+	}
+
+	/**
+	 * Elimina de la caché todos los enemigos. Se utiliza tras escrituras masivas.
+	 */
+	public void invalidarTodo() {
+		cache.invalidateAll();
+		inexistentes.invalidateAll();
+	}
+
+	/**
+	 * Devuelve los contadores de aciertos, fallos y expulsiones de la caché.
+	 *
+	 * @return Las estadísticas acumuladas desde el arranque.
+	 */
+	public EstadisticasCache getEstadisticas() {
+		CacheStats stats = cache.stats();
+		return new EstadisticasCache(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+				cache.estimatedSize());
+	}
+}
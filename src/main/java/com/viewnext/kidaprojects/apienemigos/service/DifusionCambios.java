@@ -0,0 +1,411 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.viewnext.kidaprojects.apienemigos.model.CambioEnemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * La clase {@code DifusionCambios} envía a los clientes suscritos el nuevo
+ * estado de combate de los enemigos que les interesan cada vez que cambia, de
+ * modo que no necesitan consultar periódicamente {@code GET /enemigo/{id}}.
+ *
+ * <p>
+ * Cada suscripción guarda sus cambios pendientes en un mapa por identificador:
+ * si un enemigo cambia varias veces antes de que se envíe el anterior, solo se
+ * envía el estado de mayor versión, aunque se publique antes que otro más
+ * antiguo. Por ello la cola de cada suscriptor nunca tiene más
+ * entradas que enemigos suscritos, como máximo
+ * {@code enemigos.suscripciones.maximo-ids}. Los envíos se realizan fuera del
+ * hilo que escribe, de uno en uno por suscriptor, y agrupan todos los cambios
+ * pendientes en un único mensaje.
+ * </p>
+ *
+ * <p>
+ * Los envíos se reparten entre {@code enemigos.suscripciones.hilos-envio} hilos
+ * y no se admiten más de {@code enemigos.suscripciones.maximo} suscripciones a la
+ * vez, de modo que ni los hilos ni las tareas de envío en espera, como mucho una
+ * por suscripción, crecen con el número de clientes.
+ * </p>
+ *
+ * <p>
+ * Un suscriptor que tiene cambios esperando más de
+ * {@code enemigos.suscripciones.retraso-maximo-ms} milisegundos, normalmente
+ * porque no lee lo que se le envía, se descarta para que no retenga memoria ni
+ * hilos de envío; el cliente puede volver a suscribirse.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+public class DifusionCambios {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DifusionCambios.class);
+
+	private final int maximoIds;
+	private final int maximoSuscripciones;
+	private final long retrasoMaximoNanos;
+	private final Map<Integer, Set<Suscripcion>> porEnemigo = new ConcurrentHashMap<>();
+	private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+	private final LongAdder cambiosEnviados = new LongAdder();
+	private final LongAdder cambiosAgrupados = new LongAdder();
+	private final LongAdder suscriptoresDescartados = new LongAdder();
+	private final ExecutorService envios;
+	private final ScheduledExecutorService vigilancia;
+
+	public DifusionCambios(MeterRegistry meterRegistry,
+			@Value("${enemigos.suscripciones.maximo-ids:1000}") int maximoIds,
+			@Value("${enemigos.suscripciones.maximo:10000}") int maximoSuscripciones,
+			@Value("${enemigos.suscripciones.hilos-envio:16}") int hilosEnvio,
+			@Value("${enemigos.suscripciones.retraso-maximo-ms:5000}") long retrasoMaximoMs) {
+		this.maximoIds = maximoIds;
+		this.maximoSuscripciones = maximoSuscripciones;
+		this.retrasoMaximoNanos = TimeUnit.MILLISECONDS.toNanos(retrasoMaximoMs);
+		Gauge.builder("enemigos.suscripciones.activas", suscripciones, Set::size)
+				.description("Clientes suscritos a los cambios de enemigos").register(meterRegistry);
+		FunctionCounter.builder("enemigos.suscripciones.cambios.enviados", cambiosEnviados, LongAdder::sum)
+				.description("Cambios de enemigos enviados a los suscriptores").register(meterRegistry);
+		FunctionCounter.builder("enemigos.suscripciones.cambios.agrupados", cambiosAgrupados, LongAdder::sum)
+				.description("Cambios sustituidos por uno posterior del mismo enemigo antes de enviarse")
+				.register(meterRegistry);
+		FunctionCounter.builder("enemigos.suscripciones.descartadas", suscriptoresDescartados, LongAdder::sum)
+				.description("Suscriptores descartados por no leer los cambios a tiempo").register(meterRegistry);
+
+		AtomicInteger numeroHilo = new AtomicInteger();
+		this.envios = Executors.newFixedThreadPool(hilosEnvio, r -> {
+			Thread hilo = new Thread(r, "envio-cambios-" + numeroHilo.incrementAndGet());
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		this.vigilancia = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread hilo = new Thread(r, "vigilancia-suscripciones");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		long intervaloMs = Math.max(1, retrasoMaximoMs / 4);
+		this.vigilancia.scheduleWithFixedDelay(this::descartarLentos, intervaloMs, intervaloMs,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Registra un suscriptor a los cambios de un conjunto de enemigos. No se
+	 * comprueba que los enemigos existan.
+	 *
+	 * @param ids         Los identificadores de los enemigos.
+	 * @param receptor    Recibe cada grupo de cambios. Nunca se invoca desde dos
+	 *                    hilos a la vez para la misma suscripción.
+	 * @param alDescartar Se ejecuta si la suscripción se descarta porque el
+	 *                    suscriptor no lee los cambios a tiempo.
+	 * @return La suscripción, que se debe cancelar cuando el cliente se desconecte.
+	 * @throws ParametroInvalidoException     Si no se indica ningún identificador
+	 *                                        o se indican más de
+	 *                                        {@code enemigos.suscripciones.maximo-ids}.
+	 * @throws SuscripcionesAgotadasException Si ya hay
+	 *                                        {@code enemigos.suscripciones.maximo}
+	 *                                        suscripciones.
+	 */
+	public Suscripcion suscribir(Collection<Integer> ids, Receptor receptor, Runnable alDescartar)
+			throws ParametroInvalidoException, SuscripcionesAgotadasException {
+		Set<Integer> conjunto = new HashSet<>(ids);
+		if (conjunto.isEmpty() || conjunto.size() > maximoIds || conjunto.contains(null)) {
+			throw new ParametroInvalidoException("ids");
+		}
+
+		Suscripcion suscripcion = new Suscripcion(Set.copyOf(conjunto), receptor, alDescartar);
+		if (!reservarPlaza(suscripcion)) {
+			throw new SuscripcionesAgotadasException(maximoSuscripciones);
+		}
+		for (Integer idEnemigo : suscripcion.ids) {
+			porEnemigo.compute(idEnemigo, (id, suscritos) -> {
+				Set<Suscripcion> resultado = suscritos == null ? ConcurrentHashMap.newKeySet() : suscritos;
+				resultado.add(suscripcion);
+				return resultado;
+			});
+		}
+		return suscripcion;
+	}
+
+	/**
+	 * Envía el estado de un enemigo a quienes estén suscritos a él. Si no hay
+	 * ninguno, solo cuesta una búsqueda en un mapa.
+	 *
+	 * @param enemigo El enemigo que ha cambiado.
+	 */
+	public void publicar(Enemigo enemigo) {
+		Set<Suscripcion> suscritos = porEnemigo.get(enemigo.getIdEnemigo());
+		if (suscritos == null) {
+			return;
+		}
+
+		CambioEnemigo cambio = CambioEnemigo.de(enemigo);
+		for (Suscripcion suscripcion : suscritos) {
+			suscripcion.encolar(cambio, true);
+		}
+	}
+
+	/**
+	 * Envía el estado de varios enemigos a quienes estén suscritos a ellos.
+	 *
+	 * @param enemigos Los enemigos que han cambiado.
+	 */
+	public void publicar(Collection<Enemigo> enemigos) {
+		enemigos.forEach(this::publicar);
+	}
+
+	/**
+	 * Devuelve los identificadores de los enemigos que tienen algún suscriptor.
+	 * Tras una escritura masiva, solo hace falta leer y publicar estos enemigos.
+	 *
+	 * @return Una copia de los identificadores suscritos.
+	 */
+	public Set<Integer> getIdsSuscritos() {
+		return Set.copyOf(porEnemigo.keySet());
+	}
+
+	/**
+	 * Detiene la vigilancia y los envíos en curso.
+	 */
+	@PreDestroy
+	public void cerrar() {
+		vigilancia.shutdownNow();
+		envios.shutdownNow();
+	}
+
+	private void descartarLentos() {
+		long ahora = System.nanoTime();
+		for (Suscripcion suscripcion : suscripciones) {
+			if (suscripcion.esLenta(ahora) && suscripcion.cerrar()) {
+				suscriptoresDescartados.increment();
+				LOGGER.debug("Suscriptor descartado por no leer los cambios de {}", suscripcion.ids);
+				// Se avisa desde otro hilo porque cerrar la conexión puede esperar al envío bloqueado
+				ejecutar(suscripcion.alDescartar);
+			}
+		}
+	}
+
+	/**
+	 * Añade la suscripción si aún no se ha alcanzado el máximo. Se sincroniza
+	 * para que dos altas simultáneas no lo superen; las bajas no lo necesitan.
+	 */
+	private synchronized boolean reservarPlaza(Suscripcion suscripcion) {
+		if (suscripciones.size() >= maximoSuscripciones) {
+			return false;
+		}
+		return suscripciones.add(suscripcion);
+	}
+
+	private void eliminar(Suscripcion suscripcion) {
+		suscripciones.remove(suscripcion);
+		for (Integer idEnemigo : suscripcion.ids) {
+			porEnemigo.computeIfPresent(idEnemigo, (id, suscritos) -> {
+				suscritos.remove(suscripcion);
+				return suscritos.isEmpty() ? null : suscritos;
+			});
+		}
+	}
+
+	private boolean ejecutar(Runnable tarea) {
+		try {
+			envios.execute(tarea);
+			return true;
+		} catch (RejectedExecutionException e) {
+			// La aplicación se está deteniendo
+			return false;
+		}
+	}
+
+	/**
+	 * Recibe los cambios de los enemigos de una suscripción.
+	 */
+	@FunctionalInterface
+	public interface Receptor {
+
+		/**
+		 * Entrega un grupo de cambios al cliente.
+		 *
+		 * @param cambios Los cambios pendientes, como máximo uno por enemigo.
+		 * @throws IOException Si el cliente se ha desconectado. La suscripción se
+		 *                     cancela.
+		 */
+		void recibir(List<CambioEnemigo> cambios) throws IOException;
+	}
+
+	/**
+	 * Suscripción de un cliente a los cambios de un conjunto de enemigos.
+	 */
+	public final class Suscripcion {
+
+		private final Set<Integer> ids;
+		private final Receptor receptor;
+		private final Runnable alDescartar;
+		/**
+		 * Protege los cambios pendientes. Es un {@code ReentrantLock} y no un bloque
+		 * {@code synchronized} para no fijar el hilo portador de un hilo virtual.
+		 */
+		private final ReentrantLock bloqueo = new ReentrantLock();
+		private final Map<Integer, CambioEnemigo> pendientes = new LinkedHashMap<>();
+		private final AtomicBoolean enviando = new AtomicBoolean();
+		private final AtomicBoolean cerrada = new AtomicBoolean();
+		// Momento en que se encoló el cambio pendiente más antiguo
+		private long pendientesDesde;
+
+		private Suscripcion(Set<Integer> ids, Receptor receptor, Runnable alDescartar) {
+			this.ids = ids;
+			this.receptor = receptor;
+			this.alDescartar = alDescartar;
+		}
+
+		/**
+		 * Devuelve los identificadores de los enemigos suscritos.
+		 *
+		 * @return Los identificadores suscritos.
+		 */
+		public Set<Integer> getIds() {
+			return ids;
+		}
+
+		/**
+		 * Encola el estado actual de un enemigo suscrito, por ejemplo para enviar el
+		 * estado inicial al suscribirse. Solo sustituye a un cambio pendiente del
+		 * mismo enemigo si tiene una versión mayor.
+		 *
+		 * @param enemigo El enemigo suscrito.
+		 */
+		public void enviarEstado(Enemigo enemigo) {
+			if (ids.contains(enemigo.getIdEnemigo())) {
+				encolar(CambioEnemigo.de(enemigo), false);
+			}
+		}
+
+		/**
+		 * Cancela la suscripción. Los cambios pendientes se descartan.
+		 */
+		public void cancelar() {
+			cerrar();
+		}
+
+		private boolean cerrar() {
+			if (!cerrada.compareAndSet(false, true)) {
+				return false;
+			}
+			eliminar(this);
+			return true;
+		}
+
+		private void encolar(CambioEnemigo cambio, boolean sustituir) {
+			if (cerrada.get()) {
+				return;
+			}
+
+			bloqueo.lock();
+			try {
+				if (pendientes.isEmpty()) {
+					pendientesDesde = System.nanoTime();
+				}
+				// Se conserva la versión mayor; a igual versión, el cambio publicado después
+				CambioEnemigo anterior = pendientes.get(cambio.idEnemigo());
+				if (anterior == null || cambio.version() > anterior.version()
+						|| (sustituir && cambio.version() == anterior.version())) {
+					pendientes.put(cambio.idEnemigo(), cambio);
+				}
+				if (anterior != null && sustituir) {
+					cambiosAgrupados.increment();
+				}
+			} finally {
+				bloqueo.unlock();
+			}
+
+			programarEnvio();
+		}
+
+		private void programarEnvio() {
+			if (enviando.compareAndSet(false, true) && !ejecutar(this::enviar)) {
+				enviando.set(false);
+			}
+		}
+
+		private void enviar() {
+			try {
+				List<CambioEnemigo> lote;
+				while (!cerrada.get() && !(lote = extraerPendientes()).isEmpty()) {
+					receptor.recibir(lote);
+					cambiosEnviados.add(lote.size());
+				}
+			} catch (IOException | RuntimeException e) {
+				// El cliente se ha desconectado
+				cerrar();
+			} finally {
+				enviando.set(false);
+			}
+
+			// Un cambio encolado mientras terminaba el envío no debe quedarse sin enviar
+			if (!cerrada.get() && tienePendientes()) {
+				programarEnvio();
+			}
+		}
+
+		private List<CambioEnemigo> extraerPendientes() {
+			bloqueo.lock();
+			try {
+				if (pendientes.isEmpty()) {
+					return List.of();
+				}
+				List<CambioEnemigo> lote = new ArrayList<>(pendientes.values());
+				pendientes.clear();
+				return lote;
+			} finally {
+				bloqueo.unlock();
+			}
+		}
+
+		private boolean tienePendientes() {
+			bloqueo.lock();
+			try {
+				return !pendientes.isEmpty();
+			} finally {
+				bloqueo.unlock();
+			}
+		}
+
+		private boolean esLenta(long ahora) {
+			bloqueo.lock();
+			try {
+				return !pendientes.isEmpty() && ahora - pendientesDesde > retrasoMaximoNanos;
+			} finally {
+				bloqueo.unlock();
+			}
+		}
+	}
+}
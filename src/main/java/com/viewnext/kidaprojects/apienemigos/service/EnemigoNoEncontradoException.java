@@ -0,0 +1,36 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Excepción {@code EnemigoNoEncontradoException} que lanza {@code EnemigoService}
+ * cuando el enemigo o los enemigos solicitados no existen.
+ *
+ * <p>
+ * Es una respuesta habitual, no un error, por lo que la excepción no captura la
+ * traza de la pila: crearla cuesta lo mismo que cualquier otro objeto pequeño,
+ * aunque se consulten muchos identificadores inexistentes. Extiende
+ * {@code EntityNotFoundException} para que el contrato del servicio no cambie.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public class EnemigoNoEncontradoException extends EntityNotFoundException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * No captura la traza de la pila.
+	 *
+	 * @return Esta misma excepción.
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
@@ -1,8 +1,16 @@
 package com.viewnext.kidaprojects.apienemigos.service;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.EstadisticasCache;
+import com.viewnext.kidaprojects.apienemigos.model.Golpe;
+import com.viewnext.kidaprojects.apienemigos.model.PaginaEnemigos;
+import com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre;
+import com.viewnext.kidaprojects.apienemigos.model.VersionTabla;
 
 /**
  * La interfaz {@code EnemigoService} proporciona métodos para gestionar enemigos en el sistema.
@@ -23,21 +31,74 @@ public interface EnemigoService {
      */
     List<Enemigo> showAll();
 
+    /**
+     * Recupera todos los enemigos del sistema reducidos a una proyección, sin cargar las entidades completas.
+     *
+     * @param <T>        El tipo de la proyección, por ejemplo {@code ResumenEnemigo}.
+     * @param proyeccion La clase de la proyección.
+     * @return Una lista con la proyección de todos los enemigos.
+     */
+    <T> List<T> showAll(Class<T> proyeccion);
+
+    /**
+     * Recupera una página de enemigos ordenados por identificador.
+     *
+     * @param cursor El cursor devuelto en la página anterior, o {@code null} para la primera página.
+     * @param limite El número máximo de enemigos de la página.
+     * @return La página de enemigos junto con el cursor de la página siguiente.
+     * @throws ParametroInvalidoException Si el cursor no es válido.
+     */
+    PaginaEnemigos showPagina(String cursor, int limite);
+
+    /**
+     * Recorre todos los enemigos del sistema ordenados por identificador, entregándolos uno a uno
+     * sin mantenerlos en memoria.
+     *
+     * @param consumidor La operación que se aplica a cada enemigo.
+     */
+    void recorrerTodos(Consumer<Enemigo> consumidor);
+
     /**
      * Recupera una lista de enemigos cuyos nombres coinciden con un prefijo dado.
      *
-     * @param prefijo El prefijo del nombre de los enemigos a buscar.
+     * @param prefijo     El prefijo del nombre de los enemigos a buscar.
+     * @param soloActivos Si es {@code true}, solo se devuelven los enemigos activos y no vencidos.
      * @return Una lista de enemigos cuyos nombres coinciden con el prefijo.
      */
-    List<Enemigo> showByNombreLike(String prefijo);
+    List<Enemigo> showByNombreLike(String prefijo, boolean soloActivos);
+
+    /**
+     * Recupera los enemigos cuyos nombres coinciden con un prefijo dado reducidos a una proyección, sin cargar
+     * las entidades completas.
+     *
+     * @param <T>         El tipo de la proyección, por ejemplo {@code ResumenEnemigo}.
+     * @param prefijo     El prefijo del nombre de los enemigos a buscar.
+     * @param soloActivos Si es {@code true}, solo se devuelven los enemigos activos y no vencidos.
+     * @param proyeccion  La clase de la proyección.
+     * @return Una lista con la proyección de los enemigos cuyos nombres coinciden con el prefijo.
+     */
+    <T> List<T> showByNombreLike(String prefijo, boolean soloActivos, Class<T> proyeccion);
 
     /**
      * Recupera una lista de enemigos cuyo nivel de dificultad sea igual o menor al nivel especificado.
      *
-     * @param nivel El nivel de dificultad máximo deseado.
+     * @param nivel   El nivel de dificultad máximo deseado.
+     * @param activo  El valor de {@code activo} de los enemigos a devolver, o {@code null} para no filtrar.
+     * @param vencido El valor de {@code vencido} de los enemigos a devolver, o {@code null} para no filtrar.
+     * @param limite  El número máximo de enemigos a devolver, o {@code null} para devolverlos todos.
      * @return Una lista de enemigos con niveles de dificultad iguales o menores al nivel especificado.
+     * @throws ParametroInvalidoException Si el límite es menor que 1.
      */
-    List<Enemigo> showByNivel(int nivel);
+    List<Enemigo> showByNivel(int nivel, Boolean activo, Boolean vencido, Integer limite);
+
+    /**
+     * Sugiere enemigos activos cuyo nombre empieza por el prefijo indicado, sin distinguir mayúsculas ni acentos.
+     *
+     * @param prefijo El prefijo escrito por el usuario.
+     * @param limite  El número máximo de sugerencias.
+     * @return Las sugerencias en orden alfabético, posiblemente vacías.
+     */
+    List<SugerenciaNombre> autocompletar(String prefijo, int limite);
 
     /**
      * Recupera un enemigo por su identificador único.
@@ -63,6 +124,14 @@ public interface EnemigoService {
      */
     Enemigo createEnemigo(Enemigo enemigo);
 
+    /**
+     * Crea varios enemigos en el sistema a partir de una secuencia que puede leerse a medida que se insertan.
+     *
+     * @param enemigos Los enemigos que se van a crear.
+     * @return Los identificadores únicos asignados, en el mismo orden que los enemigos.
+     */
+    List<Integer> createEnemigos(Iterator<Enemigo> enemigos);
+
     /**
      * Actualiza la vida de un enemigo mediante su identificador único y la cantidad de daño recibido.
      *
@@ -72,6 +141,17 @@ public interface EnemigoService {
      */
     Enemigo updateVida(int idEnemigo, int damage);
 
+    /**
+     * Aplica varios golpes en una sola operación. Los golpes dirigidos al mismo enemigo se suman antes de
+     * escribirlos.
+     *
+     * @param golpes Los golpes a aplicar.
+     * @return El estado resultante de cada enemigo existente que ha recibido algún golpe, ordenado por su
+     *         identificador.
+     * @throws ParametroInvalidoException Si no se indica ningún golpe.
+     */
+    List<Enemigo> updateVidaEnLote(List<Golpe> golpes);
+
     
     /**
      * Establece el estado de un enemigo como "Inactivo" mediante su identificador único.
@@ -84,7 +164,46 @@ public interface EnemigoService {
     /**
      * Reinicia el estado de todos los enemigos, estableciendo su estado como activos y no vencidos. Este método se utiliza
      * para reiniciar todos los enemigos en el sistema.
+     *
+     * @return El número de enemigos reiniciados.
      */
-    void reiniciarEnemigos();
-}
+    int reiniciarEnemigos();
+
+    /**
+     * Reinicia el estado de los enemigos que cumplen los filtros indicados, estableciendo su estado como activos y no
+     * vencidos y restaurando su vida original.
+     *
+     * @param nivel  El nivel máximo de los enemigos a reiniciar, o {@code null} para no filtrar por nivel.
+     * @param desde  El primer identificador a reiniciar, o {@code null} para empezar por el primero.
+     * @param hasta  El último identificador a reiniciar, o {@code null} para llegar hasta el último.
+     * @return El número de enemigos reiniciados.
+     */
+    int reiniciarEnemigos(Integer nivel, Integer desde, Integer hasta);
 
+    /**
+     * Devuelve los contadores de uso de la caché de enemigos por identificador.
+     *
+     * @return Las estadísticas de aciertos, fallos y expulsiones de la caché.
+     */
+    EstadisticasCache getEstadisticasCache();
+
+    /**
+     * Devuelve la versión actual del conjunto de enemigos, que cambia con cada escritura confirmada.
+     *
+     * @return La versión actual de la tabla de enemigos.
+     */
+    VersionTabla getVersionTabla();
+
+    /**
+     * Suscribe a un cliente a los cambios de estado de un conjunto de enemigos. El receptor recibe primero el estado
+     * actual de los enemigos existentes y después cada cambio de vida, vencimiento o actividad.
+     *
+     * @param ids         Los identificadores de los enemigos.
+     * @param receptor    Recibe los cambios.
+     * @param alDescartar Se ejecuta si la suscripción se descarta porque el cliente no lee los cambios a tiempo.
+     * @return La suscripción, que se debe cancelar cuando el cliente se desconecte.
+     * @throws ParametroInvalidoException     Si no se indica ningún identificador o se indican demasiados.
+     * @throws SuscripcionesAgotadasException Si ya hay demasiados clientes suscritos.
+     */
+    DifusionCambios.Suscripcion suscribir(Set<Integer> ids, DifusionCambios.Receptor receptor, Runnable alDescartar);
+}
@@ -1,15 +1,39 @@
 package com.viewnext.kidaprojects.apienemigos.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.EntradaIndiceNivel;
+import com.viewnext.kidaprojects.apienemigos.model.EstadisticasCache;
+import com.viewnext.kidaprojects.apienemigos.model.Golpe;
+import com.viewnext.kidaprojects.apienemigos.model.PaginaEnemigos;
+import com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre;
+import com.viewnext.kidaprojects.apienemigos.model.VersionTabla;
 import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 
 /**
  * La clase {@code EnemigoServiceImpl} implementa la interfaz
@@ -26,65 +50,275 @@ import jakarta.persistence.EntityNotFoundException;
 @Service
 public class EnemigoServiceImpl implements EnemigoService {
 
+	private static final int LIMITE_MAXIMO_PAGINA = 1000;
+	private static final int LIMITE_MAXIMO_SUGERENCIAS = 100;
+
 	@Autowired
 	private EnemigoRepository enemigoRepository;
 
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private CacheEnemigos cacheEnemigos;
+
+	@Autowired(required = false)
+	private AcumuladorDamage acumuladorDamage;
+
+	@Autowired(required = false)
+	private MotorCombate motorCombate;
+
+	@Autowired
+	private IndiceNombres indiceNombres;
+
+	@Autowired
+	private IndiceNiveles indiceNiveles;
+
+	@Autowired
+	private VersionEnemigos versionEnemigos;
+
+	@Autowired
+	private DifusionCambios difusionCambios;
+
+	@Autowired
+	private EnrutadorShards enrutadorShards;
+
+	@Value("${enemigos.reinicio.tamano-bloque:5000}")
+	private int tamanoBloqueReinicio;
+
+	@Value("${enemigos.batch.tamano-bloque:1000}")
+	private int tamanoBloqueInsercion;
+
 	/**
-	 * Recupera una lista de todos los enemigos en el sistema.
+	 * Comprueba al arrancar que los tamaños de bloque configurados son positivos,
+	 * ya que con cero o un valor negativo el reinicio y la inserción por bloques
+	 * no avanzarían nunca.
+	 *
+	 * @throws IllegalStateException Si algún tamaño de bloque no es mayor que 0.
+	 */
+	@PostConstruct
+	void comprobarConfiguracion() throws IllegalStateException {
+		if (tamanoBloqueReinicio <= 0) {
+			throw new IllegalStateException(
+					"enemigos.reinicio.tamano-bloque debe ser mayor que 0: " + tamanoBloqueReinicio);
+		}
+		if (tamanoBloqueInsercion <= 0) {
+			throw new IllegalStateException(
+					"enemigos.batch.tamano-bloque debe ser mayor que 0: " + tamanoBloqueInsercion);
+		}
+	}
+
+	/**
+	 * Recupera una lista de todos los enemigos en el sistema. Cada shard se
+	 * consulta en su propia transacción de solo lectura, por lo que Hibernate no
+	 * guarda una copia de cada entidad para detectar cambios.
 	 *
 	 * @return Una lista de todos los enemigos.
 	 * @throws EntityNotFoundException Si no se encuentran enemigos en el sistema.
 	 */
 	@Override
 	public List<Enemigo> showAll() throws EntityNotFoundException {
-		List<Enemigo> listaEnemigos = enemigoRepository.findAll();
+		List<Enemigo> listaEnemigos = enrutadorShards.enTodos(enemigoRepository::findAll);
+
+		if (listaEnemigos.isEmpty()) {
+			throw new EnemigoNoEncontradoException();
+		}
+
+		return listaEnemigos;
+	}
+
+	/**
+	 * Recupera todos los enemigos del sistema reducidos a una proyección. Solo se
+	 * seleccionan las columnas de la proyección y no se crean entidades.
+	 *
+	 * @param proyeccion La clase de la proyección.
+	 * @return Una lista con la proyección de todos los enemigos.
+	 * @throws EntityNotFoundException Si no se encuentran enemigos en el sistema.
+	 */
+	@Override
+	public <T> List<T> showAll(Class<T> proyeccion) throws EntityNotFoundException {
+		List<T> listaEnemigos = enrutadorShards.enTodos(() -> enemigoRepository.findAllBy(proyeccion));
 
 		if (listaEnemigos.isEmpty()) {
-			throw new EntityNotFoundException();
+			throw new EnemigoNoEncontradoException();
 		}
 
 		return listaEnemigos;
 	}
 
+	/**
+	 * Recupera una página de enemigos ordenados por identificador mediante
+	 * paginación por clave: el cursor codifica el identificador del último enemigo
+	 * devuelto, por lo que cada página se obtiene con un recorrido de índice
+	 * independiente del número de páginas anteriores.
+	 *
+	 * @param cursor El cursor devuelto en la página anterior, o {@code null} para
+	 *               la primera página.
+	 * @param limite El número máximo de enemigos de la página, acotado entre 1 y
+	 *               1000.
+	 * @return La página de enemigos junto con el cursor de la página siguiente.
+	 * @throws ParametroInvalidoException Si el cursor no es válido.
+	 */
+	@Override
+	public PaginaEnemigos showPagina(String cursor, int limite) throws ParametroInvalidoException {
+		int despuesDe = cursor == null || cursor.isEmpty() ? 0 : decodificarCursor(cursor);
+		int tamano = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+
+		// Se pide un enemigo más de los necesarios para saber si existe otra página. Los shards guardan rangos
+		// consecutivos de identificadores, así que se consultan en orden hasta completarla
+		List<Enemigo> listaEnemigos = new ArrayList<>(tamano + 1);
+		for (int shard = enrutadorShards.shardDe(despuesDe + 1); shard < enrutadorShards.getNumeroShards()
+				&& listaEnemigos.size() <= tamano; shard++) {
+			PageRequest restantes = PageRequest.ofSize(tamano + 1 - listaEnemigos.size());
+			listaEnemigos.addAll(enrutadorShards.enShard(shard,
+					() -> enemigoRepository.findPagina(despuesDe, restantes)));
+		}
+
+		if (listaEnemigos.size() <= tamano) {
+			return new PaginaEnemigos(listaEnemigos, null);
+		}
+
+		List<Enemigo> pagina = listaEnemigos.subList(0, tamano);
+		return new PaginaEnemigos(pagina, codificarCursor(pagina.get(tamano - 1).getIdEnemigo()));
+	}
+
+	/**
+	 * Recorre todos los enemigos del sistema ordenados por identificador. Las
+	 * filas se leen de la base de datos por bloques y cada entidad se separa del
+	 * contexto de persistencia en cuanto se ha entregado, de modo que la memoria
+	 * utilizada no depende del tamaño de la tabla.
+	 *
+	 * @param consumidor La operación que se aplica a cada enemigo.
+	 */
+	@Override
+	public void recorrerTodos(Consumer<Enemigo> consumidor) {
+		TransactionTemplate lectura = new TransactionTemplate(transactionTemplate.getTransactionManager());
+		lectura.setReadOnly(true);
+
+		enrutadorShards.enCadaShard(() -> lectura.executeWithoutResult(status -> {
+			try (Stream<Enemigo> enemigos = enemigoRepository.streamAll()) {
+				enemigos.forEach(enemigo -> {
+					consumidor.accept(enemigo);
+					entityManager.detach(enemigo);
+				});
+			}
+		}));
+	}
+
 	/**
 	 * Recupera una lista de enemigos cuyos nombres coinciden con un prefijo dado.
+	 * Cada shard se consulta en su propia transacción de solo lectura.
 	 *
-	 * @param prefijo El prefijo del nombre de los enemigos a buscar.
+	 * @param prefijo     El prefijo del nombre de los enemigos a buscar.
+	 * @param soloActivos Si es {@code true}, solo se devuelven los enemigos
+	 *                    activos y no vencidos.
 	 * @return Una lista de enemigos cuyos nombres coinciden con el prefijo.
 	 * @throws EntityNotFoundException Si no se encuentran enemigos con el prefijo
 	 *                                 especificado.
 	 */
 	@Override
-	public List<Enemigo> showByNombreLike(String prefijo) throws EntityNotFoundException {
-		List<Enemigo> listaEnemigos = enemigoRepository.findByNombrePrefijo(prefijo);
+	public List<Enemigo> showByNombreLike(String prefijo, boolean soloActivos) throws EntityNotFoundException {
+		List<Enemigo> listaEnemigos = enrutadorShards.enTodos(() -> soloActivos
+				? enemigoRepository.findActivosByNombrePrefijo(prefijo)
+				: enemigoRepository.findByNombrePrefijo(prefijo));
 		if (listaEnemigos.isEmpty()) {
-			throw new EntityNotFoundException();
+			throw new EnemigoNoEncontradoException();
+		}
+		return listaEnemigos;
+	}
+
+	/**
+	 * Recupera los enemigos cuyos nombres coinciden con un prefijo dado reducidos a
+	 * una proyección. Solo se seleccionan las columnas de la proyección y no se
+	 * crean entidades. Los caracteres {@code %} y {@code _} del prefijo se buscan
+	 * literalmente.
+	 *
+	 * @param prefijo     El prefijo del nombre de los enemigos a buscar.
+	 * @param soloActivos Si es {@code true}, solo se devuelven los enemigos
+	 *                    activos y no vencidos.
+	 * @param proyeccion  La clase de la proyección.
+	 * @return Una lista con la proyección de los enemigos cuyos nombres coinciden
+	 *         con el prefijo.
+	 * @throws EntityNotFoundException Si no se encuentran enemigos con el prefijo
+	 *                                 especificado.
+	 */
+	@Override
+	public <T> List<T> showByNombreLike(String prefijo, boolean soloActivos, Class<T> proyeccion)
+			throws EntityNotFoundException {
+		List<T> listaEnemigos = enrutadorShards.enTodos(() -> soloActivos
+				? enemigoRepository.findByActivoTrueAndVencidoFalseAndNombreStartingWith(prefijo, proyeccion)
+				: enemigoRepository.findByNombreStartingWith(prefijo, proyeccion));
+		if (listaEnemigos.isEmpty()) {
+			throw new EnemigoNoEncontradoException();
 		}
 		return listaEnemigos;
 	}
 
 	/**
 	 * Recupera una lista de enemigos cuyo nivel de dificultad sea igual o menor al
-	 * nivel especificado.
+	 * nivel especificado. Los identificadores se obtienen del índice de niveles en
+	 * memoria y los enemigos de la caché, por lo que solo se accede a la base de
+	 * datos, por bloques, para los enemigos que no están en ella. Los listados
+	 * grandes no guardan en la caché los enemigos leídos.
 	 *
-	 * @param nivel El nivel de dificultad máximo deseado.
+	 * @param nivel   El nivel de dificultad máximo deseado.
+	 * @param activo  El valor de {@code activo} de los enemigos a devolver, o
+	 *                {@code null} para no filtrar.
+	 * @param vencido El valor de {@code vencido} de los enemigos a devolver, o
+	 *                {@code null} para no filtrar.
+	 * @param limite  El número máximo de enemigos a devolver, o {@code null} para
+	 *                devolverlos todos.
 	 * @return Una lista de enemigos con niveles de dificultad iguales o menores al
-	 *         nivel especificado.
-	 * @throws EntityNotFoundException Si no se encuentran enemigos con el nivel
-	 *                                 especificado.
+	 *         nivel especificado, ordenada por nivel e identificador.
+	 * @throws ParametroInvalidoException Si el límite es menor que 1.
+	 * @throws EntityNotFoundException    Si no se encuentran enemigos con el nivel
+	 *                                    especificado.
 	 */
 	@Override
-	public List<Enemigo> showByNivel(int nivel) throws EntityNotFoundException {
-		List<Enemigo> listaEnemigos = enemigoRepository.findByNivel(nivel);
+	public List<Enemigo> showByNivel(int nivel, Boolean activo, Boolean vencido, Integer limite)
+			throws ParametroInvalidoException, EntityNotFoundException {
+		if (limite != null && limite < 1) {
+			throw new ParametroInvalidoException("limite");
+		}
+
+		int[] ids = indiceNiveles.buscar(nivel, activo, vencido, limite == null ? Integer.MAX_VALUE : limite);
+		List<Enemigo> listaEnemigos = cacheEnemigos.buscarRecorrido(ids);
+		if (motorCombate != null) {
+			listaEnemigos.replaceAll(motorCombate::aplicarEstado);
+		}
+
+		// El índice puede ir un instante por detrás de la caché: se descartan los que ya no cumplen el filtro
+		if (activo != null || vencido != null) {
+			listaEnemigos.removeIf(e -> (activo != null && e.isActivo() != activo)
+					|| (vencido != null && e.isVencido() != vencido));
+		}
 
 		if (listaEnemigos.isEmpty()) {
-			throw new EntityNotFoundException();
+			throw new EnemigoNoEncontradoException();
 		}
 		return listaEnemigos;
 	}
 
 	/**
-	 * Recupera un enemigo por su identificador único.
+	 * Sugiere enemigos activos cuyo nombre empieza por el prefijo indicado, sin
+	 * distinguir mayúsculas ni acentos. Las sugerencias se obtienen del índice de
+	 * nombres en memoria, sin acceder a la base de datos.
+	 *
+	 * @param prefijo El prefijo escrito por el usuario.
+	 * @param limite  El número máximo de sugerencias, acotado entre 1 y 100.
+	 * @return Las sugerencias en orden alfabético, posiblemente vacías.
+	 */
+	@Override
+	public List<SugerenciaNombre> autocompletar(String prefijo, int limite) {
+		return indiceNombres.buscar(prefijo, Math.max(1, Math.min(limite, LIMITE_MAXIMO_SUGERENCIAS)));
+	}
+
+	/**
+	 * Recupera un enemigo por su identificador único. La consulta se resuelve desde
+	 * la caché de enemigos siempre que sea posible.
 	 *
 	 * @param idEnemigo El identificador único del enemigo a recuperar.
 	 * @return El enemigo correspondiente al identificador dado.
@@ -93,18 +327,22 @@ public class EnemigoServiceImpl implements EnemigoService {
 	 */
 	@Override
 	public Enemigo showById(int idEnemigo) throws EntityNotFoundException {
-		Optional<Enemigo> optionalEnemigo = enemigoRepository.findById(idEnemigo);
+		Optional<Enemigo> optionalEnemigo = cacheEnemigos.buscar(idEnemigo);
 
 		if (optionalEnemigo.isEmpty()) {
-			throw new EntityNotFoundException();
+			throw new EnemigoNoEncontradoException();
 		}
 
-		return optionalEnemigo.get();
+		return motorCombate == null ? optionalEnemigo.get() : motorCombate.aplicarEstado(optionalEnemigo.get());
 	}
 
 	/**
 	 * Obtiene la recompensa asociada a un enemigo específico identificado por su
-	 * ID.
+	 * ID. Si el enemigo está en la caché se toma de ella; si no, solo se lee la
+	 * columna {@code recompensa}, sin cargar la entidad ni añadirla a la caché. Si
+	 * no se encuentra, lo que con réplicas puede deberse a que la réplica aún no
+	 * tiene el enemigo, se busca a través de la caché de enemigos, que lo lee de la
+	 * primaria y recuerda los identificadores que no existen.
 	 *
 	 * @param idEnemigo El ID del enemigo del cual se desea obtener la recompensa.
 	 * @return La cantidad de recompensa asociada al enemigo especificado, o -1 si
@@ -114,15 +352,23 @@ public class EnemigoServiceImpl implements EnemigoService {
 	 */
 	@Override
 	public int getRecomenpsa(int idEnemigo) throws EntityNotFoundException {
-		Optional<Enemigo> optionalEnemigo = enemigoRepository.findById(idEnemigo);
-
-		if (optionalEnemigo.isEmpty()) {
-			throw new EntityNotFoundException();
+		Optional<Enemigo> enCache = cacheEnemigos.buscarSiPresente(idEnemigo);
+		if (enCache.isPresent()) {
+			return enCache.get().getRecompensa();
+		}
+		if (cacheEnemigos.esInexistente(idEnemigo)) {
+			throw new EnemigoNoEncontradoException();
 		}
 
-		Enemigo enemigo = optionalEnemigo.get();
+		Optional<Integer> optionalRecompensa = enrutadorShards.enShardDe(idEnemigo,
+				() -> enemigoRepository.findRecompensaById(idEnemigo));
 
-		return enemigo.getRecompensa();
+		if (optionalRecompensa.isEmpty()) {
+			return cacheEnemigos.buscar(idEnemigo).map(Enemigo::getRecompensa)
+					.orElseThrow(EnemigoNoEncontradoException::new);
+		}
+
+		return optionalRecompensa.get();
 	}
 
 	/**
@@ -130,17 +376,103 @@ public class EnemigoServiceImpl implements EnemigoService {
 	 *
 	 * @param enemigo El enemigo que se va a crear.
 	 * @return El enemigo creado con su identificador único.
+	 * @throws IllegalStateException Si, con sharding, el identificador generado
+	 *                               no pertenece al rango del shard; la inserción
+	 *                               se deshace.
 	 */
 	@Override
 	public Enemigo createEnemigo(Enemigo enemigo) {
+		int shard = enrutadorShards.elegirShardAlta();
+		Enemigo enemigoCreado = enrutadorShards.enShard(shard, () -> transactionTemplate.execute(status -> {
+			Enemigo guardado = enemigoRepository.save(enemigo);
+			enrutadorShards.comprobarIdAlta(shard, guardado.getIdEnemigo());
+			return guardado;
+		}));
+
+		cacheEnemigos.creado(enemigoCreado);
+
+		if (enemigoCreado.isActivo()) {
+			indiceNombres.agregar(enemigoCreado.getIdEnemigo(), enemigoCreado.getNombre());
+		}
+		indiceNiveles.agregar(List.of(entradaIndiceNivel(enemigoCreado)));
+		versionEnemigos.incrementar();
+		difusionCambios.publicar(enemigoCreado);
 
-		return enemigoRepository.save(enemigo);
+		return enemigoCreado;
+	}
+
+	/**
+	 * Crea varios enemigos en el sistema. Los enemigos se leen de la secuencia a
+	 * medida que se insertan, en lotes JDBC de {@code enemigos.batch.tamano-bloque}
+	 * filas, por lo que solo un bloque permanece en memoria a la vez. Todas las
+	 * inserciones forman parte de una misma transacción, en un mismo shard, y los
+	 * enemigos se añaden a los índices en memoria solo si esta se confirma.
+	 *
+	 * @param enemigos Los enemigos que se van a crear.
+	 * @return Los identificadores únicos asignados, en el mismo orden que los
+	 *         enemigos.
+	 * @throws IllegalStateException Si, con sharding, algún identificador
+	 *                               generado no pertenece al rango del shard;
+	 *                               todas las inserciones se deshacen.
+	 */
+	@Override
+	public List<Integer> createEnemigos(Iterator<Enemigo> enemigos) {
+		int shard = enrutadorShards.elegirShardAlta();
+		return enrutadorShards.enShard(shard, () -> transactionTemplate.execute(status -> {
+			List<Integer> ids = new ArrayList<>();
+			List<SugerenciaNombre> activos = new ArrayList<>();
+			List<EntradaIndiceNivel> entradas = new ArrayList<>();
+			List<Enemigo> bloque = new ArrayList<>(tamanoBloqueInsercion);
+
+			while (enemigos.hasNext()) {
+				bloque.add(enemigos.next());
+
+				if (bloque.size() == tamanoBloqueInsercion || !enemigos.hasNext()) {
+					List<Integer> idsBloque = enemigoRepository.insertarEnLote(bloque);
+					idsBloque.forEach(id -> enrutadorShards.comprobarIdAlta(shard, id));
+					for (int i = 0; i < bloque.size(); i++) {
+						Enemigo enemigo = bloque.get(i);
+						if (enemigo.isActivo()) {
+							activos.add(new SugerenciaNombre(idsBloque.get(i), enemigo.getNombre()));
+						}
+						entradas.add(new EntradaIndiceNivel(idsBloque.get(i), enemigo.getNivel(), enemigo.isActivo(),
+								enemigo.isVencido()));
+					}
+					ids.addAll(idsBloque);
+					bloque.clear();
+				}
+			}
+
+			despuesDeConfirmar(() -> {
+				cacheEnemigos.creados(ids);
+				activos.forEach(s -> indiceNombres.agregar(s.idEnemigo(), s.nombre()));
+				indiceNiveles.agregar(entradas);
+				versionEnemigos.incrementar();
+			});
+
+			return ids;
+		}));
 	}
 
 	/**
 	 * Actualiza la vida de un enemigo mediante su identificador único y la cantidad
 	 * de daño recibido.
 	 *
+	 * <p>
+	 * El daño se aplica con una única sentencia UPDATE condicional en la base de
+	 * datos, de modo que los golpes simultáneos sobre el mismo enemigo no se
+	 * pierden y el estado {@code vencido} se calcula sobre la vida resultante. A
+	 * continuación se vuelve a leer la fila dentro de la misma transacción para
+	 * devolver la entidad completa.
+	 * </p>
+	 *
+	 * <p>
+	 * Si el acumulador de daño está activo, el golpe se registra en memoria y se
+	 * escribe más tarde junto con el resto de golpes del mismo enemigo, sin abrir
+	 * ninguna transacción. Si lo está el motor de combate, el golpe se aplica a su
+	 * estado en memoria y ni siquiera se invalida la caché de enemigos.
+	 * </p>
+	 *
 	 * @param idEnemigo El identificador único del enemigo a actualizar.
 	 * @param damage    La cantidad de daño que el enemigo ha recibido.
 	 * @return El enemigo con la vida actualizada.
@@ -149,28 +481,106 @@ public class EnemigoServiceImpl implements EnemigoService {
 	 */
 	@Override
 	public Enemigo updateVida(int idEnemigo, int damage) throws EntityNotFoundException {
-		Optional<Enemigo> optionalEnemigo = enemigoRepository.findById(idEnemigo);
+		Enemigo enemigoActualizado;
+
+		if (motorCombate != null) {
+			enemigoActualizado = motorCombate.aplicarDamage(idEnemigo, damage);
+		} else if (acumuladorDamage != null) {
+			enemigoActualizado = acumuladorDamage.registrarGolpe(idEnemigo, damage);
+		} else {
+			enemigoActualizado = enrutadorShards.enShardDe(idEnemigo, () -> transactionTemplate.execute(status -> {
+				int filasActualizadas = enemigoRepository.aplicarDamage(idEnemigo, damage);
+
+				if (filasActualizadas == 0) {
+					throw new EnemigoNoEncontradoException();
+				}
+
+				return enemigoRepository.findById(idEnemigo).orElseThrow(EnemigoNoEncontradoException::new);
+			}));
+		}
 
-		if (optionalEnemigo.isEmpty()) {
-			throw new EntityNotFoundException();
+		if (acumuladorDamage != null) {
+			cacheEnemigos.invalidar(idEnemigo);
+		} else if (motorCombate == null) {
+			cacheEnemigos.actualizar(enemigoActualizado);
 		}
+		indiceNiveles.actualizarEstado(entradaIndiceNivel(enemigoActualizado));
+		versionEnemigos.incrementar();
+		difusionCambios.publicar(enemigoActualizado);
 
-		Enemigo enemigo = optionalEnemigo.get();
+		return enemigoActualizado;
+	}
 
-		int vidaActual = enemigo.getVidaActual();
-		
-		enemigo.setVidaActual(vidaActual - damage);
+	/**
+	 * Aplica varios golpes en una sola operación. Los golpes dirigidos al mismo
+	 * enemigo se suman y el resultado se escribe con un único lote JDBC, ordenado
+	 * por identificador para que las filas se bloqueen siempre en el mismo orden,
+	 * dentro de una sola transacción por shard. Con sharding, los shards se
+	 * actualizan a la vez y cada uno confirma su parte por separado.
+	 *
+	 * @param golpes Los golpes a aplicar.
+	 * @return El estado resultante de cada enemigo existente que ha recibido algún
+	 *         golpe, ordenado por su identificador.
+	 * @throws ParametroInvalidoException Si no se indica ningún golpe.
+	 * @throws EntityNotFoundException    Si ninguno de los enemigos existe.
+	 */
+	@Override
+	public List<Enemigo> updateVidaEnLote(List<Golpe> golpes)
+			throws ParametroInvalidoException, EntityNotFoundException {
+		if (golpes == null || golpes.isEmpty()) {
+			throw new ParametroInvalidoException("golpes");
+		}
 
-		if (vidaActual <= 0) {
-			enemigo.setVencido(true);
+		Map<Integer, Integer> damagePorEnemigo = new TreeMap<>();
+		for (Golpe golpe : golpes) {
+			damagePorEnemigo.merge(golpe.idEnemigo(), golpe.damage(), Integer::sum);
 		}
 
-		return enemigoRepository.save(enemigo);
+		List<Enemigo> listaEnemigos;
+
+		if (motorCombate != null || acumuladorDamage != null) {
+			listaEnemigos = new ArrayList<>(damagePorEnemigo.size());
+			for (Map.Entry<Integer, Integer> entrada : damagePorEnemigo.entrySet()) {
+				try {
+					listaEnemigos.add(motorCombate != null
+							? motorCombate.aplicarDamage(entrada.getKey(), entrada.getValue())
+							: acumuladorDamage.registrarGolpe(entrada.getKey(), entrada.getValue()));
+				} catch (EntityNotFoundException e) {
+					// Los enemigos inexistentes se omiten del resultado
+				}
+			}
+		} else {
+			listaEnemigos = enrutadorShards.porShard(damagePorEnemigo.keySet(), Integer::intValue,
+					ids -> transactionTemplate.execute(status -> {
+						Map<Integer, Integer> damageShard = new TreeMap<>();
+						ids.forEach(id -> damageShard.put(id, damagePorEnemigo.get(id)));
+						enemigoRepository.aplicarDamageEnLote(damageShard);
+
+						return enemigoRepository.findAllById(ids);
+					}));
+			listaEnemigos.sort(Comparator.comparingInt(Enemigo::getIdEnemigo));
+		}
+
+		if (acumuladorDamage != null) {
+			damagePorEnemigo.keySet().forEach(cacheEnemigos::invalidar);
+		} else if (motorCombate == null) {
+			listaEnemigos.forEach(cacheEnemigos::actualizar);
+		}
+		listaEnemigos.forEach(e -> indiceNiveles.actualizarEstado(entradaIndiceNivel(e)));
+		versionEnemigos.incrementar();
+		difusionCambios.publicar(listaEnemigos);
+
+		if (listaEnemigos.isEmpty()) {
+			throw new EnemigoNoEncontradoException();
+		}
+
+		return listaEnemigos;
 	}
 
 	/**
 	 * Establece el estado de un enemigo como "Inactivo" mediante su identificador
-	 * único.
+	 * único. Si el motor de combate está activo, el cambio se aplica a su estado en
+	 * memoria y se escribe en el siguiente volcado.
 	 *
 	 * @param idEnemigo El identificador único del enemigo a marcar como "Inactivo".
 	 * @return El enemigo con el estado actualizado.
@@ -179,36 +589,207 @@ public class EnemigoServiceImpl implements EnemigoService {
 	 */
 	@Override
 	public Enemigo setEstadoInactivo(int idEnemigo) throws EntityNotFoundException {
-		Optional<Enemigo> optionalEnemigo = enemigoRepository.findById(idEnemigo);
+		Enemigo enemigoInactivo;
 
-		if (optionalEnemigo.isEmpty()) {
-			throw new EntityNotFoundException();
+		if (motorCombate != null) {
+			enemigoInactivo = motorCombate.desactivar(idEnemigo);
+		} else {
+			enemigoInactivo = enrutadorShards.enShardDe(idEnemigo, () -> transactionTemplate.execute(status -> {
+				Optional<Enemigo> optionalEnemigo = enemigoRepository.findById(idEnemigo);
+
+				if (optionalEnemigo.isEmpty()) {
+					throw new EnemigoNoEncontradoException();
+				}
+
+				Enemigo enemigo = optionalEnemigo.get();
+
+				enemigo.setActivo(false);
+
+				return enemigoRepository.save(enemigo);
+			}));
+
+			cacheEnemigos.actualizar(enemigoInactivo);
 		}
 
-		Enemigo enemigo = optionalEnemigo.get();
+		indiceNombres.eliminar(idEnemigo, enemigoInactivo.getNombre());
+		indiceNiveles.actualizarEstado(entradaIndiceNivel(enemigoInactivo));
+		versionEnemigos.incrementar();
+		difusionCambios.publicar(enemigoInactivo);
 
-		enemigo.setActivo(false);
+		if (acumuladorDamage != null) {
+			acumuladorDamage.refrescar(idEnemigo);
+		}
 
-		return enemigoRepository.save(enemigo);
+		return enemigoInactivo;
 	}
 
 	/**
 	 * Reinicia el estado de todos los enemigos, estableciendo su estado como
 	 * activos y no vencidos. Este método se utiliza para reiniciar todos los
 	 * enemigos en el sistema.
+	 *
+	 * @return El número de enemigos reiniciados.
 	 */
 	@Override
-	public void reiniciarEnemigos() {
-		List<Enemigo> listaEnemigos = enemigoRepository.findAll();
+	public int reiniciarEnemigos() {
+		return reiniciarEnemigos(null, null, null);
+	}
 
-		for (Enemigo e : listaEnemigos) {
-			e.setActivo(true);
-			e.setVencido(false);
-			e.setVidaActual(e.getVidaOriginal());
+	/**
+	 * Reinicia el estado de los enemigos que cumplen los filtros indicados sin
+	 * cargarlos en memoria. La tabla se recorre por clave en bloques de
+	 * {@code enemigos.reinicio.tamano-bloque} enemigos existentes, sin visitar los
+	 * huecos entre identificadores, y cada bloque se reinicia con una única
+	 * sentencia UPDATE en su propia transacción, de modo que en tablas muy grandes
+	 * ninguna fila permanece bloqueada durante todo el proceso. Con sharding, cada
+	 * shard recorre su parte a la vez. Si el motor de combate está activo, antes se
+	 * escriben sus cambios pendientes y después se reinicia también su estado en
+	 * memoria.
+	 *
+	 * @param nivel El nivel máximo de los enemigos a reiniciar, o {@code null} para
+	 *              no filtrar por nivel.
+	 * @param desde El primer identificador a reiniciar, o {@code null} para empezar
+	 *              por el primero.
+	 * @param hasta El último identificador a reiniciar, o {@code null} para llegar
+	 *              hasta el último.
+	 * @return El número de enemigos reiniciados.
+	 */
+	@Override
+	public int reiniciarEnemigos(Integer nivel, Integer desde, Integer hasta) {
+		if (motorCombate != null) {
+			motorCombate.volcar();
+		}
+		if (acumuladorDamage != null) {
+			acumuladorDamage.volcar();
+		}
+
+		int reiniciados = enrutadorShards.enTodos(() -> List.of(reiniciarShard(nivel, desde, hasta))).stream()
+				.mapToInt(Integer::intValue).sum();
+
+		if (motorCombate != null) {
+			motorCombate.reiniciar(nivel, desde, hasta);
+		}
+		cacheEnemigos.invalidarTodo();
+		indiceNombres.recargar();
+		indiceNiveles.recargar();
+		versionEnemigos.incrementar();
+
+		if (acumuladorDamage != null) {
+			acumuladorDamage.refrescarTodo();
+		}
+
+		// Solo se vuelven a leer los enemigos que algún cliente está siguiendo
+		Set<Integer> idsSuscritos = difusionCambios.getIdsSuscritos();
+		if (!idsSuscritos.isEmpty()) {
+			// La caché acaba de vaciarse, así que se leen de la primaria y quedan ya cargados
+			difusionCambios.publicar(
+					cacheEnemigos.buscarTodos(idsSuscritos.stream().mapToInt(Integer::intValue).sorted().toArray()));
+		}
+
+		return reiniciados;
+	}
+
+	/**
+	 * Devuelve los contadores de uso de la caché de enemigos.
+	 *
+	 * @return Las estadísticas de aciertos, fallos y expulsiones de la caché.
+	 */
+	@Override
+	public EstadisticasCache getEstadisticasCache() {
+		return cacheEnemigos.getEstadisticas();
+	}
+
+	/**
+	 * Devuelve la versión actual del conjunto de enemigos, que cambia con cada
+	 * escritura confirmada. Se obtiene de memoria, sin consultar la base de datos.
+	 *
+	 * @return La versión actual de la tabla de enemigos.
+	 */
+	@Override
+	public VersionTabla getVersionTabla() {
+		return versionEnemigos.getVersion();
+	}
+
+	/**
+	 * Suscribe a un cliente a los cambios de estado de un conjunto de enemigos. El
+	 * estado inicial se toma de la caché de enemigos y los cambios posteriores se
+	 * envían a medida que los aplican los métodos de escritura de este servicio,
+	 * sin consultar la base de datos.
+	 *
+	 * @param ids         Los identificadores de los enemigos.
+	 * @param receptor    Recibe los cambios.
+	 * @param alDescartar Se ejecuta si la suscripción se descarta porque el cliente
+	 *                    no lee los cambios a tiempo.
+	 * @return La suscripción, que se debe cancelar cuando el cliente se desconecte.
+	 * @throws ParametroInvalidoException     Si no se indica ningún identificador
+	 *                                        o se indican demasiados.
+	 * @throws SuscripcionesAgotadasException Si ya hay demasiados clientes
+	 *                                        suscritos.
+	 */
+	@Override
+	public DifusionCambios.Suscripcion suscribir(Set<Integer> ids, DifusionCambios.Receptor receptor,
+			Runnable alDescartar) throws ParametroInvalidoException, SuscripcionesAgotadasException {
+		// Se suscribe antes de leer el estado inicial para no perder los cambios intermedios
+		DifusionCambios.Suscripcion suscripcion = difusionCambios.suscribir(ids, receptor, alDescartar);
+		int[] idsSuscritos = suscripcion.getIds().stream().mapToInt(Integer::intValue).sorted().toArray();
+		for (Enemigo enemigo : cacheEnemigos.buscarTodos(idsSuscritos)) {
+			suscripcion.enviarEstado(motorCombate == null ? enemigo : motorCombate.aplicarEstado(enemigo));
+		}
+		return suscripcion;
+	}
 
+	private int reiniciarShard(Integer nivel, Integer desde, Integer hasta) {
+		PageRequest bloque = PageRequest.ofSize(tamanoBloqueReinicio);
+		int ultimo = desde == null ? 0 : Math.max(desde, 1) - 1;
+		int fin = hasta == null ? Integer.MAX_VALUE : hasta;
+		int reiniciados = 0;
+
+		List<Integer> ids;
+		do {
+			ids = enemigoRepository.findIdsBloque(ultimo, fin, bloque);
+			if (!ids.isEmpty()) {
+				int primero = ids.get(0);
+				ultimo = ids.get(ids.size() - 1);
+				reiniciados += enemigoRepository.reiniciarRango(primero, ultimo, nivel);
+			}
+		} while (ids.size() == tamanoBloqueReinicio);
+
+		return reiniciados;
+	}
+
+	private static EntradaIndiceNivel entradaIndiceNivel(Enemigo enemigo) {
+		return new EntradaIndiceNivel(enemigo.getIdEnemigo(), enemigo.getNivel(), enemigo.isActivo(),
+				enemigo.isVencido());
+	}
+
+	/**
+	 * Ejecuta una acción cuando se confirme la transacción actual, o
+	 * inmediatamente si no hay ninguna transacción activa.
+	 */
+	private static void despuesDeConfirmar(Runnable accion) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					accion.run();
+				}
+			});
+		} else {
+			accion.run();
 		}
+	}
 
-		enemigoRepository.saveAll(listaEnemigos);
+	private static String codificarCursor(int idEnemigo) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(Integer.toString(idEnemigo).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static int decodificarCursor(String cursor) throws ParametroInvalidoException {
+		try {
+			return Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+		} catch (IllegalArgumentException e) {
+			throw new ParametroInvalidoException("cursor", e);
+		}
 	}
 
 }
@@ -0,0 +1,280 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.EstadisticasCache;
+import com.viewnext.kidaprojects.apienemigos.model.Golpe;
+import com.viewnext.kidaprojects.apienemigos.model.PaginaEnemigos;
+import com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre;
+import com.viewnext.kidaprojects.apienemigos.model.VersionTabla;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * La clase {@code EnemigoServiceMetricas} envuelve a {@code EnemigoServiceImpl}
+ * y registra el tiempo de cada método del servicio en el temporizador
+ * {@code enemigos.servicio}, etiquetado con el nombre del método.
+ *
+ * <p>
+ * Los temporizadores se crean una sola vez al arrancar y cada invocación solo
+ * mide el tiempo con {@code System.nanoTime()}, de modo que la medición no
+ * reserva memoria por solicitud.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Service
+@Primary
+public class EnemigoServiceMetricas implements EnemigoService {
+
+	private static final String TEMPORIZADOR = "enemigos.servicio";
+
+	private final EnemigoService delegado;
+
+	private final Timer showAll;
+	private final Timer showPagina;
+	private final Timer recorrerTodos;
+	private final Timer showByNombreLike;
+	private final Timer showByNivel;
+	private final Timer autocompletar;
+	private final Timer showById;
+	private final Timer getRecompensa;
+	private final Timer createEnemigo;
+	private final Timer createEnemigos;
+	private final Timer updateVida;
+	private final Timer updateVidaEnLote;
+	private final Timer setEstadoInactivo;
+	private final Timer reiniciarEnemigos;
+
+	public EnemigoServiceMetricas(@Qualifier("enemigoServiceImpl") EnemigoService delegado,
+			MeterRegistry meterRegistry) {
+		this.delegado = delegado;
+		this.showAll = temporizador(meterRegistry, "showAll");
+		this.showPagina = temporizador(meterRegistry, "showPagina");
+		this.recorrerTodos = temporizador(meterRegistry, "recorrerTodos");
+		this.showByNombreLike = temporizador(meterRegistry, "showByNombreLike");
+		this.showByNivel = temporizador(meterRegistry, "showByNivel");
+		this.autocompletar = temporizador(meterRegistry, "autocompletar");
+		this.showById = temporizador(meterRegistry, "showById");
+		this.getRecompensa = temporizador(meterRegistry, "getRecompensa");
+		this.createEnemigo = temporizador(meterRegistry, "createEnemigo");
+		this.createEnemigos = temporizador(meterRegistry, "createEnemigos");
+		this.updateVida = temporizador(meterRegistry, "updateVida");
+		this.updateVidaEnLote = temporizador(meterRegistry, "updateVidaEnLote");
+		this.setEstadoInactivo = temporizador(meterRegistry, "setEstadoInactivo");
+		this.reiniciarEnemigos = temporizador(meterRegistry, "reiniciarEnemigos");
+	}
+
+	@Override
+	public List<Enemigo> showAll() {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.showAll();
+		} finally {
+			registrar(showAll, inicio);
+		}
+	}
+
+	@Override
+	public <T> List<T> showAll(Class<T> proyeccion) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.showAll(proyeccion);
+		} finally {
+			registrar(showAll, inicio);
+		}
+	}
+
+	@Override
+	public PaginaEnemigos showPagina(String cursor, int limite) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.showPagina(cursor, limite);
+		} finally {
+			registrar(showPagina, inicio);
+		}
+	}
+
+	@Override
+	public void recorrerTodos(Consumer<Enemigo> consumidor) {
+		long inicio = System.nanoTime();
+		try {
+			delegado.recorrerTodos(consumidor);
+		} finally {
+			registrar(recorrerTodos, inicio);
+		}
+	}
+
+	@Override
+	public List<Enemigo> showByNombreLike(String prefijo, boolean soloActivos) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.showByNombreLike(prefijo, soloActivos);
+		} finally {
+			registrar(showByNombreLike, inicio);
+		}
+	}
+
+	@Override
+	public <T> List<T> showByNombreLike(String prefijo, boolean soloActivos, Class<T> proyeccion) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.showByNombreLike(prefijo, soloActivos, proyeccion);
+		} finally {
+			registrar(showByNombreLike, inicio);
+		}
+	}
+
+	@Override
+	public List<Enemigo> showByNivel(int nivel, Boolean activo, Boolean vencido, Integer limite) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.showByNivel(nivel, activo, vencido, limite);
+		} finally {
+			registrar(showByNivel, inicio);
+		}
+	}
+
+	@Override
+	public List<SugerenciaNombre> autocompletar(String prefijo, int limite) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.autocompletar(prefijo, limite);
+		} finally {
+			registrar(autocompletar, inicio);
+		}
+	}
+
+	@Override
+	public Enemigo showById(int idEnemigo) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.showById(idEnemigo);
+		} finally {
+			registrar(showById, inicio);
+		}
+	}
+
+	@Override
+	public int getRecomenpsa(int idEnemigo) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.getRecomenpsa(idEnemigo);
+		} finally {
+			registrar(getRecompensa, inicio);
+		}
+	}
+
+	@Override
+	public Enemigo createEnemigo(Enemigo enemigo) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.createEnemigo(enemigo);
+		} finally {
+			registrar(createEnemigo, inicio);
+		}
+	}
+
+	@Override
+	public List<Integer> createEnemigos(Iterator<Enemigo> enemigos) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.createEnemigos(enemigos);
+		} finally {
+			registrar(createEnemigos, inicio);
+		}
+	}
+
+	@Override
+	public Enemigo updateVida(int idEnemigo, int damage) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.updateVida(idEnemigo, damage);
+		} finally {
+			registrar(updateVida, inicio);
+		}
+	}
+
+	@Override
+	public List<Enemigo> updateVidaEnLote(List<Golpe> golpes) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.updateVidaEnLote(golpes);
+		} finally {
+			registrar(updateVidaEnLote, inicio);
+		}
+	}
+
+	@Override
+	public Enemigo setEstadoInactivo(int idEnemigo) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.setEstadoInactivo(idEnemigo);
+		} finally {
+			registrar(setEstadoInactivo, inicio);
+		}
+	}
+
+	@Override
+	public int reiniciarEnemigos() {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.reiniciarEnemigos();
+		} finally {
+			registrar(reiniciarEnemigos, inicio);
+		}
+	}
+
+	@Override
+	public int reiniciarEnemigos(Integer nivel, Integer desde, Integer hasta) {
+		long inicio = System.nanoTime();
+		try {
+			return delegado.reiniciarEnemigos(nivel, desde, hasta);
+		} finally {
+			registrar(reiniciarEnemigos, inicio);
+		}
+	}
+
+	@Override
+	public EstadisticasCache getEstadisticasCache() {
+		return delegado.getEstadisticasCache();
+	}
+
+	@Override
+	public VersionTabla getVersionTabla() {
+		return delegado.getVersionTabla();
+	}
+
+	@Override
+	public DifusionCambios.Suscripcion suscribir(Set<Integer> ids, DifusionCambios.Receptor receptor,
+			Runnable alDescartar) {
+		return delegado.suscribir(ids, receptor, alDescartar);
+	}
+
+	private static Timer temporizador(MeterRegistry meterRegistry, String metodo) {
+		return Timer.builder(TEMPORIZADOR)
+				.description("Tiempo de ejecución de los métodos de EnemigoService")
+				.tag("metodo", metodo)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	private static void registrar(Timer temporizador, long inicio) {
+		temporizador.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+	}
+}
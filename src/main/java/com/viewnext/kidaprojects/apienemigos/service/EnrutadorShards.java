@@ -0,0 +1,288 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * La clase {@code EnrutadorShards} decide en qué base de datos (shard) se lee o
+ * se escribe cada enemigo y ejecuta las consultas que abarcan a todos ellos.
+ *
+ * <p>
+ * Con {@code enemigos.shards.enabled=true} el shard 0 es la base de datos de
+ * {@code spring.datasource.*} y cada URL de {@code enemigos.shards.urls} añade
+ * uno más. Cada shard guarda un rango fijo de identificadores de
+ * {@code enemigos.shards.tamano-rango} enemigos: el shard {@code n} genera los
+ * identificadores a partir de {@code n * tamano-rango + 1}, por lo que son únicos
+ * en todo el sistema y el shard de un enemigo se deduce de su identificador sin
+ * consultar ninguna tabla. Los enemigos nuevos se reparten entre los shards por
+ * turnos. Al arrancar se comprueba que todos los rangos caben en un {@code int},
+ * y cada alta se deshace si el identificador generado se sale del rango de su
+ * shard, porque se leería después en otro.
+ * </p>
+ *
+ * <p>
+ * El shard se fija para el hilo actual durante cada operación y la fuente de
+ * datos enrutada lo lee al pedir una conexión, por lo que una transacción debe
+ * comenzar dentro de la operación y no abarcar más de un shard. Por eso
+ * {@code spring.jpa.open-in-view} está desactivado: la sesión abierta para toda
+ * la petición conservaría la primera conexión y las operaciones sucesivas en el
+ * mismo hilo, como {@link #enCadaShard(Runnable)}, leerían siempre ese shard. Las consultas
+ * que recorren todos los shards se lanzan en paralelo, cada una en su propia
+ * transacción, y sus resultados se concatenan en el orden de los shards, que es
+ * también el de los identificadores. Se ejecutan en un pool fijo de
+ * {@code enemigos.shards.consultas-por-shard} hilos por shard. Sin sharding solo
+ * hay un shard y todas las operaciones se ejecutan en el hilo que las invoca.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+public class EnrutadorShards {
+
+	private final int numeroShards;
+	private final int tamanoRango;
+	private final ThreadLocal<Integer> shardActual = new ThreadLocal<>();
+	private final AtomicInteger turnoAltas = new AtomicInteger();
+	private final ExecutorService consultas;
+
+	public EnrutadorShards(@Value("${enemigos.shards.enabled:false}") boolean activo,
+			@Value("${enemigos.shards.urls:}") List<String> urls,
+			@Value("${enemigos.shards.tamano-rango:100000000}") int tamanoRango,
+			@Value("${enemigos.shards.consultas-por-shard:4}") int consultasPorShard) {
+		this.numeroShards = activo ? urls.size() + 1 : 1;
+		this.tamanoRango = tamanoRango;
+		if (tamanoRango <= 0 || (long) numeroShards * tamanoRango > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Los rangos de " + numeroShards + " shards de " + tamanoRango
+					+ " identificadores no caben en un int: revise enemigos.shards.tamano-rango");
+		}
+		if (numeroShards == 1) {
+			this.consultas = null;
+		} else {
+			AtomicInteger numeroHilo = new AtomicInteger();
+			this.consultas = Executors.newFixedThreadPool(numeroShards * Math.max(1, consultasPorShard), r -> {
+				Thread hilo = new Thread(r, "consultas-shards-" + numeroHilo.incrementAndGet());
+				hilo.setDaemon(true);
+				return hilo;
+			});
+		}
+	}
+
+	/**
+	 * Devuelve el número de shards.
+	 *
+	 * @return El número de shards, 1 si el sharding no está activo.
+	 */
+	public int getNumeroShards() {
+		return numeroShards;
+	}
+
+	/**
+	 * Devuelve el shard fijado para el hilo actual.
+	 *
+	 * @return El shard actual, o 0 si no se ha fijado ninguno.
+	 */
+	public int getShardActual() {
+		Integer shard = shardActual.get();
+		return shard == null ? 0 : shard;
+	}
+
+	/**
+	 * Devuelve el primer identificador que genera un shard.
+	 *
+	 * @param shard El shard.
+	 * @return El primer identificador de su rango.
+	 */
+	public int getPrimerId(int shard) {
+		return shard * tamanoRango + 1;
+	}
+
+	/**
+	 * Devuelve el shard que guarda un enemigo.
+	 *
+	 * @param idEnemigo El identificador del enemigo.
+	 * @return El shard cuyo rango contiene el identificador.
+	 */
+	public int shardDe(int idEnemigo) {
+		return idEnemigo <= 0 ? 0 : Math.min((idEnemigo - 1) / tamanoRango, numeroShards - 1);
+	}
+
+	/**
+	 * Comprueba que el identificador generado al crear un enemigo pertenece al
+	 * rango del shard en el que se ha insertado. Se invoca dentro de la
+	 * transacción de la inserción para que se deshaga si no es así.
+	 *
+	 * @param shard     El shard en el que se ha insertado el enemigo.
+	 * @param idEnemigo El identificador generado.
+	 * @throws IllegalStateException Si el identificador está fuera del rango del
+	 *                               shard.
+	 */
+	public void comprobarIdAlta(int shard, int idEnemigo) throws IllegalStateException {
+		if (numeroShards > 1 && (idEnemigo < getPrimerId(shard) || idEnemigo - getPrimerId(shard) >= tamanoRango)) {
+			throw new IllegalStateException("El identificador " + idEnemigo + " generado en el shard " + shard
+					+ " está fuera de su rango, que empieza en " + getPrimerId(shard));
+		}
+	}
+
+	/**
+	 * Elige, por turnos, el shard en el que se crean los próximos enemigos.
+	 *
+	 * @return El shard elegido.
+	 */
+	public int elegirShardAlta() {
+		return Math.floorMod(turnoAltas.getAndIncrement(), numeroShards);
+	}
+
+	/**
+	 * Ejecuta una operación con el shard indicado fijado para el hilo actual.
+	 *
+	 * @param <T>       El tipo del resultado.
+	 * @param shard     El shard.
+	 * @param operacion La operación, que debe abrir sus propias transacciones.
+	 * @return El resultado de la operación.
+	 */
+	public <T> T enShard(int shard, Supplier<T> operacion) {
+		Integer anterior = shardActual.get();
+		shardActual.set(shard);
+		try {
+			return operacion.get();
+		} finally {
+			if (anterior == null) {
+				shardActual.remove();
+			} else {
+				shardActual.set(anterior);
+			}
+		}
+	}
+
+	/**
+	 * Ejecuta una operación en el shard que guarda un enemigo.
+	 *
+	 * @param <T>       El tipo del resultado.
+	 * @param idEnemigo El identificador del enemigo.
+	 * @param operacion La operación, que debe abrir sus propias transacciones.
+	 * @return El resultado de la operación.
+	 */
+	public <T> T enShardDe(int idEnemigo, Supplier<T> operacion) {
+		return enShard(shardDe(idEnemigo), operacion);
+	}
+
+	/**
+	 * Ejecuta una operación en cada shard, uno detrás de otro. Se utiliza para
+	 * recorrer la tabla sin acumular las filas de todos los shards en memoria.
+	 *
+	 * @param operacion La operación, que debe abrir sus propias transacciones.
+	 */
+	public void enCadaShard(Runnable operacion) {
+		for (int shard = 0; shard < numeroShards; shard++) {
+			enShard(shard, () -> {
+				operacion.run();
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Ejecuta una consulta en todos los shards a la vez y reúne sus resultados.
+	 *
+	 * @param <T>      El tipo de los elementos devueltos.
+	 * @param consulta La consulta, que debe abrir sus propias transacciones.
+	 * @return Los resultados de todos los shards, en el orden de los shards.
+	 */
+	public <T> List<T> enTodos(Supplier<? extends Collection<T>> consulta) {
+		List<Supplier<? extends Collection<T>>> tareas = new ArrayList<>(numeroShards);
+		List<Integer> shards = new ArrayList<>(numeroShards);
+		for (int shard = 0; shard < numeroShards; shard++) {
+			tareas.add(consulta);
+			shards.add(shard);
+		}
+		return ejecutar(shards, tareas);
+	}
+
+	/**
+	 * Reparte un conjunto de enemigos entre los shards que los guardan y ejecuta
+	 * la operación en todos ellos a la vez, cada uno con su parte.
+	 *
+	 * @param <K>       El tipo de los elementos a repartir.
+	 * @param <T>       El tipo de los elementos devueltos.
+	 * @param elementos Los elementos a repartir.
+	 * @param idEnemigo Obtiene el identificador del enemigo de cada elemento.
+	 * @param operacion La operación, que debe abrir sus propias transacciones.
+	 * @return Los resultados de todos los shards, en el orden de los shards.
+	 */
+	public <K, T> List<T> porShard(Collection<K> elementos, ToIntFunction<K> idEnemigo,
+			Function<List<K>, ? extends Collection<T>> operacion) {
+		if (numeroShards == 1) {
+			return enShard(0, () -> new ArrayList<>(operacion.apply(List.copyOf(elementos))));
+		}
+
+		Map<Integer, List<K>> reparto = new TreeMap<>();
+		for (K elemento : elementos) {
+			reparto.computeIfAbsent(shardDe(idEnemigo.applyAsInt(elemento)), s -> new ArrayList<>()).add(elemento);
+		}
+
+		List<Supplier<? extends Collection<T>>> tareas = new ArrayList<>(reparto.size());
+		for (List<K> parte : reparto.values()) {
+			tareas.add(() -> operacion.apply(parte));
+		}
+		return ejecutar(new ArrayList<>(reparto.keySet()), tareas);
+	}
+
+	@PreDestroy
+	public void cerrar() {
+		if (consultas != null) {
+			consultas.shutdownNow();
+		}
+	}
+
+	private <T> List<T> ejecutar(List<Integer> shards, List<Supplier<? extends Collection<T>>> tareas) {
+		if (tareas.size() == 1) {
+			return new ArrayList<>(enShard(shards.get(0), tareas.get(0)));
+		}
+
+		List<Future<? extends Collection<T>>> pendientes = new ArrayList<>(tareas.size());
+		for (int i = 0; i < tareas.size(); i++) {
+			int shard = shards.get(i);
+			Supplier<? extends Collection<T>> tarea = tareas.get(i);
+			pendientes.add(consultas.submit(() -> enShard(shard, tarea)));
+		}
+
+		List<T> resultado = new ArrayList<>();
+		try {
+			for (Future<? extends Collection<T>> pendiente : pendientes) {
+				resultado.addAll(pendiente.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			pendientes.forEach(p -> p.cancel(true));
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			pendientes.forEach(p -> p.cancel(true));
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		return resultado;
+	}
+}
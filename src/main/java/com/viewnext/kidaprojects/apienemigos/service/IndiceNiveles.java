@@ -0,0 +1,290 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.viewnext.kidaprojects.apienemigos.model.EntradaIndiceNivel;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+/**
+ * La clase {@code IndiceNiveles} mantiene en memoria los identificadores de
+ * todos los enemigos agrupados por nivel, de modo que la consulta "enemigos de
+ * nivel menor o igual a n" no accede a la base de datos.
+ *
+ * <p>
+ * Los identificadores se guardan en un único array ordenado por nivel y, dentro
+ * de cada nivel, por identificador. Un segundo array guarda la posición en la
+ * que empieza cada nivel, por lo que todos los enemigos hasta un nivel forman un
+ * prefijo del primero y, sin filtros, se obtienen con una sola copia de array.
+ * El estado ({@code activo}, {@code vencido}) de cada posición se guarda en un
+ * array paralelo que se actualiza sin copiar el resto del índice.
+ * </p>
+ *
+ * <p>
+ * Las altas de enemigos copian los arrays (una vez por lote), mientras que los
+ * cambios de estado solo modifican una posición. Las búsquedas no se bloquean y
+ * pueden ver un estado con un instante de retraso respecto a la base de datos.
+ * El índice se carga al arrancar la aplicación y {@code EnemigoServiceImpl} lo
+ * actualiza en todas sus escrituras.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+public class IndiceNiveles {
+
+	private static final int ACTIVO = 1;
+	private static final int VENCIDO = 2;
+
+	private final EnemigoRepository enemigoRepository;
+	private final EnrutadorShards enrutadorShards;
+
+	/**
+	 * Las altas sustituyen la instantánea con el bloqueo de escritura; los cambios
+	 * de estado toman el de lectura para no escribir sobre una instantánea que ya
+	 * se ha copiado.
+	 */
+	private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+	private volatile Instantanea instantanea = Instantanea.VACIA;
+
+	public IndiceNiveles(EnemigoRepository enemigoRepository, EnrutadorShards enrutadorShards) {
+		this.enemigoRepository = enemigoRepository;
+		this.enrutadorShards = enrutadorShards;
+	}
+
+	/**
+	 * Vuelve a cargar el índice con todos los enemigos de la base de datos.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void recargar() {
+		bloqueo.writeLock().lock();
+		try {
+			instantanea = Instantanea.de(enrutadorShards.enTodos(enemigoRepository::findEntradasIndiceNivel));
+		} finally {
+			bloqueo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Añade enemigos recién creados al índice.
+	 *
+	 * @param entradas Los enemigos creados.
+	 */
+	public void agregar(Collection<EntradaIndiceNivel> entradas) {
+		if (entradas.isEmpty()) {
+			return;
+		}
+
+		bloqueo.writeLock().lock();
+		try {
+			instantanea = instantanea.con(entradas);
+		} finally {
+			bloqueo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Actualiza el estado de un enemigo existente. Si el enemigo no está en el
+	 * índice, se añade.
+	 *
+	 * @param entrada El nuevo estado del enemigo.
+	 */
+	public void actualizarEstado(EntradaIndiceNivel entrada) {
+		bloqueo.readLock().lock();
+		try {
+			Instantanea actual = instantanea;
+			int posicion = actual.posicion(entrada.idEnemigo(), entrada.nivel());
+			if (posicion >= 0) {
+				actual.estados.set(posicion, estado(entrada.activo(), entrada.vencido()));
+				return;
+			}
+		} finally {
+			bloqueo.readLock().unlock();
+		}
+
+		agregar(List.of(entrada));
+	}
+
+	/**
+	 * Devuelve los identificadores de los enemigos de nivel menor o igual al
+	 * indicado, ordenados por nivel y por identificador.
+	 *
+	 * @param nivel   El nivel máximo.
+	 * @param activo  El valor de {@code activo} que deben tener, o {@code null}
+	 *                para no filtrar.
+	 * @param vencido El valor de {@code vencido} que deben tener, o {@code null}
+	 *                para no filtrar.
+	 * @param limite  El número máximo de identificadores a devolver.
+	 * @return Los identificadores encontrados.
+	 */
+	public int[] buscar(int nivel, Boolean activo, Boolean vencido, int limite) {
+		Instantanea actual = instantanea;
+		int fin = actual.finHastaNivel(nivel);
+
+		if (activo == null && vencido == null) {
+			return Arrays.copyOf(actual.ids, Math.min(fin, limite));
+		}
+
+		int mascara = (activo == null ? 0 : ACTIVO) | (vencido == null ? 0 : VENCIDO);
+		int esperado = estado(Boolean.TRUE.equals(activo), Boolean.TRUE.equals(vencido)) & mascara;
+
+		int[] resultado = new int[Math.min(fin, limite)];
+		int encontrados = 0;
+		for (int i = 0; i < fin && encontrados < resultado.length; i++) {
+			if ((actual.estados.get(i) & mascara) == esperado) {
+				resultado[encontrados++] = actual.ids[i];
+			}
+		}
+		return encontrados == resultado.length ? resultado : Arrays.copyOf(resultado, encontrados);
+	}
+
+	/**
+	 * Devuelve el número de enemigos del índice.
+	 *
+	 * @return El número de enemigos.
+	 */
+	public int getTamano() {
+		return instantanea.ids.length;
+	}
+
+	private static int estado(boolean activo, boolean vencido) {
+		return (activo ? ACTIVO : 0) | (vencido ? VENCIDO : 0);
+	}
+
+	/**
+	 * Contenido inmutable del índice salvo los estados. {@code inicios[k]} es la
+	 * posición del primer enemigo de nivel {@code nivelMinimo + k}, y
+	 * {@code inicios[inicios.length - 1]} el número total de enemigos.
+	 */
+	private static final class Instantanea {
+
+		static final Instantanea VACIA = new Instantanea(0, new int[] { 0 }, new int[0], new AtomicIntegerArray(0));
+
+		static final Comparator<EntradaIndiceNivel> ORDEN = Comparator.comparingInt(EntradaIndiceNivel::nivel)
+				.thenComparingInt(EntradaIndiceNivel::idEnemigo);
+
+		final int nivelMinimo;
+		final int[] inicios;
+		final int[] ids;
+		final AtomicIntegerArray estados;
+
+		Instantanea(int nivelMinimo, int[] inicios, int[] ids, AtomicIntegerArray estados) {
+			this.nivelMinimo = nivelMinimo;
+			this.inicios = inicios;
+			this.ids = ids;
+			this.estados = estados;
+		}
+
+		/**
+		 * Construye el índice a partir de entradas en cualquier orden.
+		 */
+		static Instantanea de(List<EntradaIndiceNivel> entradas) {
+			if (entradas.isEmpty()) {
+				return VACIA;
+			}
+
+			EntradaIndiceNivel[] ordenadas = entradas.toArray(EntradaIndiceNivel[]::new);
+			Arrays.sort(ordenadas, ORDEN);
+
+			int nivelMinimo = ordenadas[0].nivel();
+			int nivelMaximo = ordenadas[ordenadas.length - 1].nivel();
+			int[] inicios = new int[nivelMaximo - nivelMinimo + 2];
+			int[] ids = new int[ordenadas.length];
+			AtomicIntegerArray estados = new AtomicIntegerArray(ordenadas.length);
+
+			for (int i = 0; i < ordenadas.length; i++) {
+				ids[i] = ordenadas[i].idEnemigo();
+				estados.set(i, estado(ordenadas[i].activo(), ordenadas[i].vencido()));
+				inicios[ordenadas[i].nivel() - nivelMinimo + 1]++;
+			}
+			for (int k = 1; k < inicios.length; k++) {
+				inicios[k] += inicios[k - 1];
+			}
+
+			return new Instantanea(nivelMinimo, inicios, ids, estados);
+		}
+
+		/**
+		 * Devuelve una nueva instantánea con las entradas actuales más las indicadas,
+		 * mezclando nivel a nivel ambas secuencias ordenadas.
+		 */
+		Instantanea con(Collection<EntradaIndiceNivel> nuevas) {
+			if (ids.length == 0) {
+				return de(List.copyOf(nuevas));
+			}
+
+			EntradaIndiceNivel[] ordenadas = nuevas.toArray(EntradaIndiceNivel[]::new);
+			Arrays.sort(ordenadas, ORDEN);
+
+			int nivelMaximo = nivelMinimo + inicios.length - 2;
+			int nuevoMinimo = Math.min(nivelMinimo, ordenadas[0].nivel());
+			int nuevoMaximo = Math.max(nivelMaximo, ordenadas[ordenadas.length - 1].nivel());
+			int[] nuevosInicios = new int[nuevoMaximo - nuevoMinimo + 2];
+			int[] nuevosIds = new int[ids.length + ordenadas.length];
+			AtomicIntegerArray nuevosEstados = new AtomicIntegerArray(nuevosIds.length);
+
+			int i = 0;
+			int j = 0;
+			int p = 0;
+			for (int nivel = nuevoMinimo; nivel <= nuevoMaximo; nivel++) {
+				nuevosInicios[nivel - nuevoMinimo] = p;
+				int finExistentes = nivel < nivelMinimo || nivel > nivelMaximo ? i : inicios[nivel - nivelMinimo + 1];
+
+				while (i < finExistentes || (j < ordenadas.length && ordenadas[j].nivel() == nivel)) {
+					boolean tomarNueva = i == finExistentes || (j < ordenadas.length && ordenadas[j].nivel() == nivel
+							&& ordenadas[j].idEnemigo() < ids[i]);
+					if (tomarNueva) {
+						nuevosIds[p] = ordenadas[j].idEnemigo();
+						nuevosEstados.set(p, estado(ordenadas[j].activo(), ordenadas[j].vencido()));
+						j++;
+					} else {
+						nuevosIds[p] = ids[i];
+						nuevosEstados.set(p, estados.get(i));
+						i++;
+					}
+					p++;
+				}
+			}
+			nuevosInicios[nuevosInicios.length - 1] = p;
+
+			return new Instantanea(nuevoMinimo, nuevosInicios, nuevosIds, nuevosEstados);
+		}
+
+		/**
+		 * Devuelve la posición del primer enemigo de nivel mayor que el indicado.
+		 */
+		int finHastaNivel(int nivel) {
+			long k = (long) nivel - nivelMinimo + 1;
+			if (k <= 0) {
+				return 0;
+			}
+			return inicios[(int) Math.min(k, inicios.length - 1)];
+		}
+
+		/**
+		 * Busca un enemigo dentro de su nivel.
+		 *
+		 * @return La posición del enemigo, o un valor negativo si no está.
+		 */
+		int posicion(int idEnemigo, int nivel) {
+			long k = (long) nivel - nivelMinimo;
+			if (k < 0 || k >= inicios.length - 1) {
+				return -1;
+			}
+			return Arrays.binarySearch(ids, inicios[(int) k], inicios[(int) k + 1], idEnemigo);
+		}
+	}
+}
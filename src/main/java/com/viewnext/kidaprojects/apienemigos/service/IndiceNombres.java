@@ -0,0 +1,156 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+/**
+ * La clase {@code IndiceNombres} mantiene en memoria los nombres de los enemigos
+ * activos ordenados alfabéticamente, de modo que el autocompletado por prefijo
+ * se resuelve sin acceder a la base de datos.
+ *
+ * <p>
+ * Los nombres se comparan sin distinguir mayúsculas ni acentos. Cada entrada
+ * se guarda bajo la clave {@code nombreNormalizado + '\0' + idEnemigo}, por lo
+ * que todas las entradas que empiezan por un prefijo forman un rango contiguo
+ * del mapa y las {@code K} primeras se obtienen en {@code O(log n + K)}. El
+ * índice se carga al arrancar la aplicación y {@code EnemigoServiceImpl} lo
+ * actualiza al crear, desactivar y reiniciar enemigos. Las búsquedas no se
+ * bloquean; las modificaciones se serializan para que ninguna se pierda durante
+ * una recarga. El bloqueo es un {@code ReentrantLock} para que la recarga, que
+ * espera a la base de datos, no fije el hilo portador de un hilo virtual.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+public class IndiceNombres {
+
+	private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+	private static final char SEPARADOR = '\0';
+	private static final char FIN_DE_RANGO = Character.MAX_VALUE;
+
+	private final EnemigoRepository enemigoRepository;
+	private final EnrutadorShards enrutadorShards;
+	private final ReentrantLock bloqueoEscritura = new ReentrantLock();
+	private volatile ConcurrentSkipListMap<String, SugerenciaNombre> sugerencias = new ConcurrentSkipListMap<>();
+
+	public IndiceNombres(EnemigoRepository enemigoRepository, EnrutadorShards enrutadorShards) {
+		this.enemigoRepository = enemigoRepository;
+		this.enrutadorShards = enrutadorShards;
+	}
+
+	/**
+	 * Vuelve a cargar el índice con los enemigos activos de la base de datos. El
+	 * índice anterior sigue respondiendo hasta que el nuevo está completo.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void recargar() {
+		bloqueoEscritura.lock();
+		try {
+			ConcurrentSkipListMap<String, SugerenciaNombre> nuevas = new ConcurrentSkipListMap<>();
+			for (SugerenciaNombre sugerencia : enrutadorShards.enTodos(enemigoRepository::findSugerenciasActivas)) {
+				nuevas.put(clave(sugerencia.idEnemigo(), sugerencia.nombre()), sugerencia);
+			}
+			sugerencias = nuevas;
+		} finally {
+			bloqueoEscritura.unlock();
+		}
+	}
+
+	/**
+	 * Añade un enemigo activo al índice.
+	 *
+	 * @param idEnemigo El identificador del enemigo.
+	 * @param nombre    El nombre del enemigo.
+	 */
+	public void agregar(int idEnemigo, String nombre) {
+		if (nombre == null) {
+			return;
+		}
+
+		bloqueoEscritura.lock();
+		try {
+			sugerencias.put(clave(idEnemigo, nombre), new SugerenciaNombre(idEnemigo, nombre));
+		} finally {
+			bloqueoEscritura.unlock();
+		}
+	}
+
+	/**
+	 * Elimina un enemigo del índice, por ejemplo al desactivarlo.
+	 *
+	 * @param idEnemigo El identificador del enemigo.
+	 * @param nombre    El nombre con el que se añadió el enemigo.
+	 */
+	public void eliminar(int idEnemigo, String nombre) {
+		if (nombre == null) {
+			return;
+		}
+
+		bloqueoEscritura.lock();
+		try {
+			sugerencias.remove(clave(idEnemigo, nombre));
+		} finally {
+			bloqueoEscritura.unlock();
+		}
+	}
+
+	/**
+	 * Devuelve los primeros enemigos, en orden alfabético, cuyo nombre empieza por
+	 * el prefijo indicado sin distinguir mayúsculas ni acentos.
+	 *
+	 * @param prefijo El prefijo a buscar.
+	 * @param limite  El número máximo de sugerencias.
+	 * @return Las sugerencias encontradas, como máximo {@code limite}.
+	 */
+	public List<SugerenciaNombre> buscar(String prefijo, int limite) {
+		String desde = normalizar(prefijo);
+		ConcurrentNavigableMap<String, SugerenciaNombre> rango = sugerencias.subMap(desde, true,
+				desde + FIN_DE_RANGO, false);
+
+		List<SugerenciaNombre> resultado = new ArrayList<>(Math.min(limite, 16));
+		for (SugerenciaNombre sugerencia : rango.values()) {
+			if (resultado.size() == limite) {
+				break;
+			}
+			resultado.add(sugerencia);
+		}
+		return resultado;
+	}
+
+	/**
+	 * Devuelve el número de enemigos del índice.
+	 *
+	 * @return El número de entradas.
+	 */
+	public int getTamano() {
+		return sugerencias.size();
+	}
+
+	static String normalizar(String texto) {
+		String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+		return sinAcentos.toLowerCase(Locale.ROOT);
+	}
+
+	private static String clave(int idEnemigo, String nombre) {
+		return normalizar(nombre) + SEPARADOR + idEnemigo;
+	}
+}
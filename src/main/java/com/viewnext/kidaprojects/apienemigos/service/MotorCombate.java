@@ -0,0 +1,424 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.viewnext.kidaprojects.apienemigos.model.CambioEnemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.EstadisticasCombate;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * La clase {@code MotorCombate} mantiene en memoria el estado de combate
+ * ({@code vidaActual}, {@code vencido} y {@code activo}) de los enemigos y lo
+ * escribe en la base de datos periódicamente, en lugar de escribir en cada
+ * golpe.
+ *
+ * <p>
+ * El estado se guarda en bloques de arrays indexados por el identificador del
+ * enemigo. La vida, los dos indicadores, un contador de cambios y las marcas de
+ * presencia y de cambio pendiente ocupan un único {@code long} por enemigo, que
+ * se modifica con compare-and-set, de modo que los golpes concurrentes no se
+ * bloquean entre sí ni se pierden. El nivel y la vida original, que solo se necesitan para
+ * reiniciar, se guardan en arrays paralelos de {@code int}.
+ * </p>
+ *
+ * <p>
+ * Al arrancar se carga el estado de los enemigos activos; el resto se carga la
+ * primera vez que se usa, a partir de {@code CacheEnemigos}. Los enemigos
+ * modificados se escriben en un único lote JDBC cada
+ * {@code enemigos.combate.motor.intervalo-ms} milisegundos y al detener la
+ * aplicación. Entretanto, las consultas que pasan por la caché de enemigos
+ * devuelven el estado del motor, mientras que los listados que se leen
+ * directamente de la base de datos pueden ir hasta un intervalo por detrás.
+ * </p>
+ *
+ * <p>
+ * Solo se activa con {@code enemigos.combate.motor.enabled=true}; en ese caso
+ * tiene preferencia sobre {@code AcumuladorDamage}. Supone que la aplicación es
+ * la única que escribe en la tabla, y los cambios no escritos se pierden si el
+ * proceso termina de forma abrupta.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+@ConditionalOnProperty(prefix = "enemigos.combate.motor", name = "enabled", havingValue = "true")
+public class MotorCombate {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MotorCombate.class);
+
+	private static final int BITS_BLOQUE = 12;
+	private static final int TAMANO_BLOQUE = 1 << BITS_BLOQUE;
+	private static final int MASCARA_BLOQUE = TAMANO_BLOQUE - 1;
+
+	// Disposición del estado: vida en los 32 bits bajos, los indicadores en los altos y, entre ambos, un
+	// contador de cambios que se suma a la versión del enemigo para que su ETag cambie con cada golpe
+	private static final long PRESENTE = 1L << 63;
+	private static final long PENDIENTE = 1L << 62;
+	private static final int DESPLAZAMIENTO_CAMBIOS = 34;
+	private static final long UN_CAMBIO = 1L << DESPLAZAMIENTO_CAMBIOS;
+	private static final long MASCARA_CAMBIOS = PENDIENTE - UN_CAMBIO;
+	private static final long ACTIVO = 1L << 33;
+	private static final long VENCIDO = 1L << 32;
+	private static final long MASCARA_VIDA = 0xFFFF_FFFFL;
+
+	private final EnemigoRepository enemigoRepository;
+	private final EnrutadorShards enrutadorShards;
+	private final CacheEnemigos cacheEnemigos;
+	private final VersionEnemigos versionEnemigos;
+	private final TransactionTemplate transactionTemplate;
+	private final AtomicReferenceArray<Bloque> bloques = new AtomicReferenceArray<>(
+			(Integer.MAX_VALUE >>> BITS_BLOQUE) + 1);
+	private final AtomicInteger ultimoBloque = new AtomicInteger(-1);
+	private final AtomicInteger enemigosCargados = new AtomicInteger();
+	private final LongAdder golpesRecibidos = new LongAdder();
+	private final LongAdder escriturasBdd = new LongAdder();
+	/**
+	 * Serializa los volcados. Es un {@code ReentrantLock} y no un bloque
+	 * {@code synchronized} para no fijar el hilo portador mientras un hilo virtual
+	 * espera a la base de datos.
+	 */
+	private final ReentrantLock bloqueoVolcado = new ReentrantLock();
+	private final ScheduledExecutorService planificador;
+
+	public MotorCombate(EnemigoRepository enemigoRepository, EnrutadorShards enrutadorShards,
+			CacheEnemigos cacheEnemigos, VersionEnemigos versionEnemigos, TransactionTemplate transactionTemplate,
+			MeterRegistry meterRegistry, @Value("${enemigos.combate.motor.intervalo-ms:1000}") long intervaloMs) {
+		this.enemigoRepository = enemigoRepository;
+		this.enrutadorShards = enrutadorShards;
+		this.cacheEnemigos = cacheEnemigos;
+		this.versionEnemigos = versionEnemigos;
+		this.transactionTemplate = transactionTemplate;
+		Gauge.builder("enemigos.combate.cargados", enemigosCargados, AtomicInteger::get)
+				.description("Enemigos cuyo estado de combate está en el motor").register(meterRegistry);
+		FunctionCounter.builder("enemigos.combate.golpes", golpesRecibidos, LongAdder::sum)
+				.description("Golpes aplicados por el motor de combate").register(meterRegistry);
+		FunctionCounter.builder("enemigos.combate.escrituras", escriturasBdd, LongAdder::sum)
+				.description("Sentencias UPDATE enviadas por el motor de combate").register(meterRegistry);
+		this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread hilo = new Thread(r, "volcado-combate");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		this.planificador.scheduleWithFixedDelay(this::volcarSinPropagar, intervaloMs, intervaloMs,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Carga el estado de todos los enemigos activos, recorriendo la tabla de cada
+	 * shard sin cargar las entidades.
+	 */
+	@PostConstruct
+	public void recuperar() {
+		enrutadorShards.enCadaShard(() -> transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<EstadisticasCombate> activos = enemigoRepository.streamEstadisticasCombateActivas()) {
+				activos.forEach(this::cargarSiAusente);
+			}
+		}));
+		LOGGER.info("Motor de combate iniciado con {} enemigos activos", enemigosCargados.get());
+	}
+
+	/**
+	 * Aplica daño a un enemigo sin escribir en la base de datos.
+	 *
+	 * @param idEnemigo El identificador del enemigo que recibe el daño.
+	 * @param damage    La cantidad de daño recibido.
+	 * @return Una copia del enemigo con el estado resultante.
+	 * @throws EntityNotFoundException Si el enemigo no existe.
+	 */
+	public Enemigo aplicarDamage(int idEnemigo, int damage) throws EntityNotFoundException {
+		Enemigo base = cargar(idEnemigo);
+		Bloque bloque = bloques.get(idEnemigo >>> BITS_BLOQUE);
+		int indice = idEnemigo & MASCARA_BLOQUE;
+		bloque.marcarCambio(indice);
+
+		long anterior;
+		long nuevo;
+		do {
+			anterior = bloque.estados.get(indice);
+			int vida = (int) (anterior & MASCARA_VIDA) - damage;
+			nuevo = (anterior & ~(MASCARA_VIDA | VENCIDO | MASCARA_CAMBIOS)) | (vida & MASCARA_VIDA)
+					| (vida <= 0 ? VENCIDO : 0) | siguienteCambio(anterior) | PENDIENTE;
+		} while (!bloque.estados.compareAndSet(indice, anterior, nuevo));
+
+		golpesRecibidos.increment();
+		return conEstado(base, nuevo, bloque.instantes.get(indice));
+	}
+
+	/**
+	 * Marca un enemigo como inactivo sin escribir en la base de datos.
+	 *
+	 * @param idEnemigo El identificador del enemigo.
+	 * @return Una copia del enemigo con el estado resultante.
+	 * @throws EntityNotFoundException Si el enemigo no existe.
+	 */
+	public Enemigo desactivar(int idEnemigo) throws EntityNotFoundException {
+		Enemigo base = cargar(idEnemigo);
+		Bloque bloque = bloques.get(idEnemigo >>> BITS_BLOQUE);
+		int indice = idEnemigo & MASCARA_BLOQUE;
+		bloque.marcarCambio(indice);
+		long nuevo = bloque.estados.updateAndGet(indice,
+				e -> (e & ~(ACTIVO | MASCARA_CAMBIOS)) | siguienteCambio(e) | PENDIENTE);
+		return conEstado(base, nuevo, bloque.instantes.get(indice));
+	}
+
+	/**
+	 * Sustituye el estado de combate de un enemigo leído de la caché o de la base
+	 * de datos por el del motor, si lo tiene. La copia lleva como versión la del
+	 * enemigo leído más los cambios aplicados en el motor, y como última
+	 * modificación la del último de ellos, de modo que su {@code ETag} y su
+	 * {@code Last-Modified} cambian con cada golpe aunque la caché no se refresque
+	 * tras los volcados.
+	 *
+	 * @param enemigo El enemigo leído. No se modifica.
+	 * @return El mismo enemigo si el motor no lo tiene, o una copia con su estado.
+	 */
+	public Enemigo aplicarEstado(Enemigo enemigo) {
+		Bloque bloque = bloques.get(enemigo.getIdEnemigo() >>> BITS_BLOQUE);
+		if (bloque == null) {
+			return enemigo;
+		}
+
+		int indice = enemigo.getIdEnemigo() & MASCARA_BLOQUE;
+		long estado = bloque.estados.get(indice);
+		return (estado & PRESENTE) == 0 ? enemigo : conEstado(enemigo, estado, bloque.instantes.get(indice));
+	}
+
+	/**
+	 * Reinicia en memoria los enemigos del motor que cumplen los filtros indicados,
+	 * después de que se hayan reiniciado en la base de datos. Los cambios
+	 * pendientes de esos enemigos se descartan.
+	 *
+	 * @param nivel El nivel máximo, o {@code null} para no filtrar por nivel.
+	 * @param desde El primer identificador, o {@code null} para empezar por el
+	 *              primero.
+	 * @param hasta El último identificador, o {@code null} para llegar hasta el
+	 *              último.
+	 */
+	public void reiniciar(Integer nivel, Integer desde, Integer hasta) {
+		int primero = desde == null ? 0 : Math.max(0, desde);
+		int ultimo = hasta == null ? Integer.MAX_VALUE : hasta;
+
+		for (int b = primero >>> BITS_BLOQUE; b <= Math.min(ultimoBloque.get(), ultimo >>> BITS_BLOQUE); b++) {
+			Bloque bloque = bloques.get(b);
+			if (bloque == null) {
+				continue;
+			}
+			for (int i = 0; i < TAMANO_BLOQUE; i++) {
+				int idEnemigo = (b << BITS_BLOQUE) | i;
+				if (idEnemigo < primero || idEnemigo > ultimo || (nivel != null && bloque.niveles[i] > nivel)) {
+					continue;
+				}
+				long reiniciado = PRESENTE | ACTIVO | (bloque.vidasOriginales[i] & MASCARA_VIDA);
+				bloque.marcarCambio(i);
+				bloque.estados.updateAndGet(i, e -> (e & PRESENTE) == 0 ? e : reiniciado | siguienteCambio(e));
+			}
+		}
+	}
+
+	/**
+	 * Escribe en la base de datos, en un único lote ordenado por identificador, el
+	 * estado de los enemigos modificados desde el último volcado. Con sharding se
+	 * escribe un lote en cada shard, todos a la vez.
+	 */
+	public void volcar() {
+		bloqueoVolcado.lock();
+		try {
+			List<CambioEnemigo> lote = extraerPendientes();
+			if (lote.isEmpty()) {
+				return;
+			}
+
+			try {
+				enrutadorShards.porShard(lote, CambioEnemigo::idEnemigo, parte -> {
+					enemigoRepository.guardarEstadoCombateEnLote(parte);
+					return List.of();
+				});
+			} catch (RuntimeException e) {
+				// Se vuelven a marcar para reintentarlos en el siguiente volcado; reescribir el estado de los
+				// shards que sí se confirmaron no cambia nada
+				lote.forEach(c -> bloques.get(c.idEnemigo() >>> BITS_BLOQUE).estados
+						.getAndUpdate(c.idEnemigo() & MASCARA_BLOQUE, estado -> estado | PENDIENTE));
+				throw e;
+			}
+			versionEnemigos.incrementar();
+			escriturasBdd.add(lote.size());
+		} finally {
+			bloqueoVolcado.unlock();
+		}
+	}
+
+	/**
+	 * Devuelve el número total de golpes aplicados desde el arranque.
+	 *
+	 * @return El número de golpes recibidos.
+	 */
+	public long getGolpesRecibidos() {
+		return golpesRecibidos.sum();
+	}
+
+	/**
+	 * Devuelve el número total de sentencias UPDATE enviadas a la base de datos
+	 * desde el arranque.
+	 *
+	 * @return El número de escrituras realizadas.
+	 */
+	public long getEscriturasBdd() {
+		return escriturasBdd.sum();
+	}
+
+	/**
+	 * Detiene el volcado periódico y escribe los cambios pendientes antes de que se
+	 * cierre la conexión con la base de datos.
+	 */
+	@PreDestroy
+	public void cerrar() throws InterruptedException {
+		planificador.shutdown();
+		planificador.awaitTermination(10, TimeUnit.SECONDS);
+		volcar();
+	}
+
+	private void volcarSinPropagar() {
+		try {
+			volcar();
+		} catch (RuntimeException e) {
+			LOGGER.error("Error al volcar el estado de combate", e);
+		}
+	}
+
+	/**
+	 * Quita la marca de cambio pendiente de cada enemigo y devuelve su estado en
+	 * ese instante. Un golpe posterior vuelve a marcarlo para el siguiente volcado.
+	 */
+	private List<CambioEnemigo> extraerPendientes() {
+		List<CambioEnemigo> lote = new ArrayList<>();
+		int ultimo = ultimoBloque.get();
+
+		for (int b = 0; b <= ultimo; b++) {
+			Bloque bloque = bloques.get(b);
+			if (bloque == null) {
+				continue;
+			}
+			for (int i = 0; i < TAMANO_BLOQUE; i++) {
+				long estado = bloque.estados.get(i);
+				if ((estado & PENDIENTE) == 0) {
+					continue;
+				}
+				while (!bloque.estados.compareAndSet(i, estado, estado & ~PENDIENTE)) {
+					estado = bloque.estados.get(i);
+				}
+				// El volcado no usa la versión: la sentencia la incrementa en la base de datos
+				lote.add(new CambioEnemigo((b << BITS_BLOQUE) | i, (int) (estado & MASCARA_VIDA),
+						(estado & VENCIDO) != 0, (estado & ACTIVO) != 0, 0));
+			}
+		}
+		return lote;
+	}
+
+	/**
+	 * Devuelve el enemigo de la caché asegurando que su estado está en el motor.
+	 */
+	private Enemigo cargar(int idEnemigo) throws EntityNotFoundException {
+		Enemigo enemigo = cacheEnemigos.buscar(idEnemigo).orElseThrow(EnemigoNoEncontradoException::new);
+		cargarSiAusente(EstadisticasCombate.de(enemigo));
+		return enemigo;
+	}
+
+	private void cargarSiAusente(EstadisticasCombate estadisticas) {
+		int idEnemigo = estadisticas.idEnemigo();
+		Bloque bloque = bloque(idEnemigo >>> BITS_BLOQUE);
+		int indice = idEnemigo & MASCARA_BLOQUE;
+		if ((bloque.estados.get(indice) & PRESENTE) != 0) {
+			return;
+		}
+
+		// Los arrays paralelos se escriben antes de publicar el estado con compare-and-set
+		bloque.niveles[indice] = estadisticas.nivel();
+		bloque.vidasOriginales[indice] = estadisticas.vidaOriginal();
+		long estado = PRESENTE | (estadisticas.vidaActual() & MASCARA_VIDA) | (estadisticas.vencido() ? VENCIDO : 0)
+				| (estadisticas.activo() ? ACTIVO : 0);
+		if (bloque.estados.compareAndSet(indice, 0, estado)) {
+			enemigosCargados.incrementAndGet();
+		}
+	}
+
+	private Bloque bloque(int numero) {
+		Bloque bloque = bloques.get(numero);
+		if (bloque == null) {
+			bloques.compareAndSet(numero, null, new Bloque());
+			bloque = bloques.get(numero);
+			ultimoBloque.accumulateAndGet(numero, Math::max);
+		}
+		return bloque;
+	}
+
+	/**
+	 * Devuelve el contador de cambios de un estado incrementado en uno.
+	 */
+	private static long siguienteCambio(long estado) {
+		return (estado + UN_CAMBIO) & MASCARA_CAMBIOS;
+	}
+
+	private static Enemigo conEstado(Enemigo base, long estado, long instante) {
+		Enemigo enemigo = new Enemigo(base);
+		enemigo.setVidaActual((int) (estado & MASCARA_VIDA));
+		enemigo.setVencido((estado & VENCIDO) != 0);
+		enemigo.setActivo((estado & ACTIVO) != 0);
+		enemigo.setVersion(base.getVersion() + ((estado & MASCARA_CAMBIOS) >>> DESPLAZAMIENTO_CAMBIOS));
+		if (instante != 0 && (base.getUltimaModificacion() == null
+				|| instante > base.getUltimaModificacion().toEpochMilli())) {
+			enemigo.setUltimaModificacion(Instant.ofEpochMilli(instante));
+		}
+		return enemigo;
+	}
+
+	/**
+	 * Estado de {@code TAMANO_BLOQUE} identificadores consecutivos.
+	 */
+	private static final class Bloque {
+
+		private final AtomicLongArray estados = new AtomicLongArray(TAMANO_BLOQUE);
+		/**
+		 * Instante, en milisegundos, del último cambio de cada enemigo. Se anota
+		 * antes de modificar su estado, así que quien lee el estado nuevo lee
+		 * también un instante igual o posterior al del cambio.
+		 */
+		private final AtomicLongArray instantes = new AtomicLongArray(TAMANO_BLOQUE);
+		private final int[] niveles = new int[TAMANO_BLOQUE];
+		private final int[] vidasOriginales = new int[TAMANO_BLOQUE];
+
+		private void marcarCambio(int indice) {
+			instantes.accumulateAndGet(indice, System.currentTimeMillis(), Math::max);
+		}
+	}
+}
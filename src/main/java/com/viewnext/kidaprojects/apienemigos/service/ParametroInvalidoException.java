@@ -0,0 +1,32 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+/**
+ * Excepción {@code ParametroInvalidoException} que lanzan el servicio y el
+ * controlador cuando un parámetro de la solicitud, como el cursor de paginación
+ * o el límite de resultados, no tiene un valor válido.
+ *
+ * <p>
+ * Es la única excepción que se responde con 400 (Bad Request): cualquier otra
+ * {@code IllegalArgumentException} es un error del servidor. La extiende para
+ * que el contrato del servicio no cambie.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public class ParametroInvalidoException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ParametroInvalidoException(String parametro) {
+		super("Valor no válido para el parámetro " + parametro);
+	}
+
+	public ParametroInvalidoException(String parametro, Throwable causa) {
+		super("Valor no válido para el parámetro " + parametro, causa);
+	}
+}
@@ -0,0 +1,23 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+/**
+ * Excepción {@code SuscripcionesAgotadasException} que lanza
+ * {@code DifusionCambios} cuando ya hay tantos clientes suscritos como permite
+ * {@code enemigos.suscripciones.maximo}. El cliente puede volver a intentarlo
+ * más tarde.
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public class SuscripcionesAgotadasException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public SuscripcionesAgotadasException(int maximo) {
+		super("Se ha alcanzado el máximo de " + maximo + " suscripciones");
+	}
+}
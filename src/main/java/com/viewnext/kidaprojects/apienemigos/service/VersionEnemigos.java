@@ -0,0 +1,61 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
+
+import com.viewnext.kidaprojects.apienemigos.model.VersionTabla;
+
+/**
+ * La clase {@code VersionEnemigos} mantiene en memoria la versión de la tabla de
+ * enemigos, que permite responder a las peticiones condicionales de los listados
+ * sin consultar la base de datos.
+ *
+ * <p>
+ * {@code EnemigoServiceImpl} y {@code AcumuladorDamage} la incrementan después de
+ * confirmar cada escritura, de modo que quien lee una versión nueva ve también
+ * los datos correspondientes.
+ * </p>
+ *
+ * <p>
+ * Como el resto de estructuras en memoria (caché de enemigos, índices, motor de
+ * combate), exige desplegar la aplicación como instancia única y que sea la
+ * única que escribe en la tabla. Es un requisito, no una optimización: otra
+ * instancia o una escritura externa no incrementan esta versión, y las
+ * peticiones condicionales seguirían recibiendo 304 con datos obsoletos.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Component
+public class VersionEnemigos {
+
+	private final AtomicReference<VersionTabla> actual;
+
+	public VersionEnemigos() {
+		Instant arranque = Instant.now();
+		this.actual = new AtomicReference<>(new VersionTabla(arranque, 0, arranque));
+	}
+
+	/**
+	 * Registra una escritura sobre la tabla de enemigos.
+	 */
+	public void incrementar() {
+		actual.updateAndGet(v -> new VersionTabla(v.arranque(), v.numero() + 1, Instant.now()));
+	}
+
+	/**
+	 * Devuelve la versión actual de la tabla de enemigos.
+	 *
+	 * @return La versión actual.
+	 */
+	public VersionTabla getVersion() {
+		return actual.get();
+	}
+}
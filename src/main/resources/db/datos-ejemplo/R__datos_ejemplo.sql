@@ -0,0 +1,18 @@
+-- Datos de ejemplo, antes en static/scriptSQL.sql. Solo se aplican con el perfil
+-- datos-ejemplo, después de las migraciones que crean la tabla. Flyway vuelve a
+-- ejecutar el script si cambia, así que solo inserta los enemigos que no existen.
+INSERT INTO enemigos (nombre, descripcion, nivel, recompensa, fuerza, defensa, vida_original, vida_actual, vencido, activo)
+SELECT d.nombre, d.descripcion, d.nivel, d.recompensa, d.fuerza, d.defensa, d.vida, d.vida, FALSE, TRUE
+FROM (
+  SELECT 'Dragón de Fuego' AS nombre, 'Un dragón escupe fuego y vuela alto.' AS descripcion, 10 AS nivel, 1000 AS recompensa, 90 AS fuerza, 70 AS defensa, 1000 AS vida
+  UNION ALL SELECT 'Orco Guerrero', 'Un orco fuerte con un hacha gigante.', 5, 300, 60, 40, 500
+  UNION ALL SELECT 'Esqueleto Mago', 'Un esqueleto con poderes mágicos.', 8, 200, 70, 50, 800
+  UNION ALL SELECT 'Goblin Ladrón', 'Un goblin astuto que roba tesoros.', 3, 100, 40, 30, 300
+  UNION ALL SELECT 'Hidra Venenosa', 'Una criatura con múltiples cabezas venenosas.', 12, 1000, 110, 80, 1500
+  UNION ALL SELECT 'Bandido Jefe', 'El líder de una banda de bandidos.', 6, 600, 70, 50, 600
+  UNION ALL SELECT 'Lobo Gigante', 'Un lobo enorme con colmillos afilados.', 4, 500, 50, 35, 400
+  UNION ALL SELECT 'Demonio de las Sombras', 'Un demonio que acecha en la oscuridad.', 9, 1000, 80, 60, 900
+  UNION ALL SELECT 'Gólem de Piedra', 'Una criatura hecha de roca sólida.', 7, 800, 65, 55, 700
+  UNION ALL SELECT 'Bruja Malvada', 'Una bruja que lanza hechizos maleficiosos.', 5, 700, 55, 45, 550
+) d
+WHERE NOT EXISTS (SELECT 1 FROM enemigos e WHERE e.nombre = d.nombre);
@@ -0,0 +1,16 @@
+-- Esquema original de la tabla de enemigos (scriptSQL.sql anterior a las migraciones).
+-- Las bases de datos creadas con ese script se marcan como ya migradas a esta versión
+-- mediante spring.flyway.baseline-on-migrate.
+CREATE TABLE enemigos (
+    id_enemigo INT AUTO_INCREMENT PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    descripcion TEXT,
+    nivel INT,
+    recompensa INT,
+    fuerza INT,
+    defensa INT,
+    vida_original INT,
+    vida_actual INT,
+    vencido BOOLEAN,
+    activo BOOLEAN
+);
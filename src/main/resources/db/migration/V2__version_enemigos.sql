@@ -0,0 +1,2 @@
+-- Columna de versión para el bloqueo optimista de Enemigo (@Version).
+ALTER TABLE enemigos ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- Índices de las búsquedas por prefijo de nombre y por nivel máximo.
+-- LIKE 'prefijo%' y nivel <= :nivel se resuelven como recorridos de rango del índice.
+CREATE INDEX idx_enemigos_nombre ON enemigos (nombre);
+CREATE INDEX idx_enemigos_nivel_activo ON enemigos (nivel, activo);
+
+-- Variantes de las mismas búsquedas restringidas a enemigos activos y no vencidos.
+-- MySQL no admite índices parciales, así que las columnas de estado van delante:
+-- la igualdad sobre (activo, vencido) fija el prefijo del índice y el rango se
+-- aplica sobre la última columna.
+CREATE INDEX idx_enemigos_activos_nombre ON enemigos (activo, vencido, nombre);
+CREATE INDEX idx_enemigos_activos_nivel ON enemigos (activo, vencido, nivel);
@@ -0,0 +1,3 @@
+-- Fecha de la última escritura de cada enemigo, para la cabecera Last-Modified.
+-- Las sentencias UPDATE de la aplicación la actualizan explícitamente junto con la versión.
+ALTER TABLE enemigos ADD COLUMN ultima_modificacion TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
@@ -0,0 +1,47 @@
+package com.viewnext.kidaprojects.apienemigosreactivo;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Punto de entrada de la variante reactiva del API de enemigos (WebFlux +
+ * R2DBC). Comparte el modelo y el esquema de la base de datos con
+ * {@code ApiEnemigoApplication}, pero no arranca el {@code DataSource} JDBC ni
+ * Hibernate: todas las consultas se realizan con {@code DatabaseClient} sobre
+ * un pool de conexiones R2DBC.
+ *
+ * <p>
+ * Solo se compila con el perfil Maven {@code reactivo} y activa el perfil de
+ * Spring {@code reactivo} ({@code application-reactivo.properties}).
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@SpringBootApplication(exclude = { DataSourceAutoConfiguration.class,
+		DataSourceTransactionManagerAutoConfiguration.class, HibernateJpaAutoConfiguration.class })
+public class ApiEnemigoReactivaApplication {
+
+	public static void main(String[] args) {
+		SpringApplication aplicacion = new SpringApplication(ApiEnemigoReactivaApplication.class);
+		aplicacion.setAdditionalProfiles("reactivo");
+		aplicacion.run(args);
+	}
+
+	@Bean
+	public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+		return DatabaseClient.create(connectionFactory);
+	}
+
+}
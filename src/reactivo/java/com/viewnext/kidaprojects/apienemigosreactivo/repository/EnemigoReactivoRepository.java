@@ -0,0 +1,190 @@
+package com.viewnext.kidaprojects.apienemigosreactivo.repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * La clase {@code EnemigoReactivoRepository} accede a la tabla {@code enemigos}
+ * de forma no bloqueante mediante {@code DatabaseClient}. Las filas se
+ * convierten a mano en {@code Enemigo}, ya que el modelo es una entidad JPA y
+ * sus anotaciones no las interpreta R2DBC.
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Repository
+public class EnemigoReactivoRepository {
+
+	private static final String SELECT_ENEMIGOS = "SELECT id_enemigo, nombre, descripcion, nivel, recompensa, "
+			+ "fuerza, defensa, vida_original, vida_actual, vencido, activo, version, ultima_modificacion FROM enemigos ";
+
+	private final DatabaseClient databaseClient;
+
+	public EnemigoReactivoRepository(DatabaseClient databaseClient) {
+		this.databaseClient = databaseClient;
+	}
+
+	/**
+	 * Recupera todos los enemigos ordenados por identificador. Las filas se leen de
+	 * la base de datos a medida que el suscriptor las solicita.
+	 *
+	 * @return Un flujo con todos los enemigos.
+	 */
+	public Flux<Enemigo> findAll() {
+		return databaseClient.sql(SELECT_ENEMIGOS + "ORDER BY id_enemigo").map(EnemigoReactivoRepository::mapear)
+				.all();
+	}
+
+	/**
+	 * Recupera un enemigo por su identificador.
+	 *
+	 * @param idEnemigo El identificador del enemigo.
+	 * @return El enemigo, o un {@code Mono} vacío si no existe.
+	 */
+	public Mono<Enemigo> findById(int idEnemigo) {
+		return databaseClient.sql(SELECT_ENEMIGOS + "WHERE id_enemigo = :idEnemigo").bind("idEnemigo", idEnemigo)
+				.map(EnemigoReactivoRepository::mapear).one();
+	}
+
+	/**
+	 * Recupera los enemigos cuyos nombres comienzan con el prefijo especificado.
+	 *
+	 * @param prefijo El prefijo que debe coincidir con el nombre de los enemigos.
+	 * @return Un flujo con los enemigos encontrados.
+	 */
+	public Flux<Enemigo> findByNombrePrefijo(String prefijo) {
+		return databaseClient.sql(SELECT_ENEMIGOS + "WHERE nombre LIKE :prefijo").bind("prefijo", prefijo + "%")
+				.map(EnemigoReactivoRepository::mapear).all();
+	}
+
+	/**
+	 * Recupera los enemigos cuyo nivel es menor o igual al nivel especificado.
+	 *
+	 * @param nivel El nivel máximo de los enemigos a recuperar.
+	 * @return Un flujo con los enemigos encontrados.
+	 */
+	public Flux<Enemigo> findByNivel(int nivel) {
+		return databaseClient.sql(SELECT_ENEMIGOS + "WHERE nivel <= :nivel").bind("nivel", nivel)
+				.map(EnemigoReactivoRepository::mapear).all();
+	}
+
+	/**
+	 * Inserta un enemigo y le asigna el identificador generado.
+	 *
+	 * @param enemigo El enemigo a insertar.
+	 * @return El mismo enemigo con su identificador.
+	 */
+	public Mono<Enemigo> insertar(Enemigo enemigo) {
+		DatabaseClient.GenericExecuteSpec sentencia = databaseClient.sql(
+				"INSERT INTO enemigos (nombre, descripcion, nivel, recompensa, fuerza, defensa, vida_original, "
+						+ "vida_actual, vencido, activo, version) VALUES (:nombre, :descripcion, :nivel, :recompensa, "
+						+ ":fuerza, :defensa, :vidaOriginal, :vidaActual, :vencido, :activo, 0)")
+				.bind("nombre", enemigo.getNombre())
+				.bind("nivel", enemigo.getNivel())
+				.bind("recompensa", enemigo.getRecompensa())
+				.bind("fuerza", enemigo.getFuerza())
+				.bind("defensa", enemigo.getDefensa())
+				.bind("vidaOriginal", enemigo.getVidaOriginal())
+				.bind("vidaActual", enemigo.getVidaActual())
+				.bind("vencido", enemigo.isVencido())
+				.bind("activo", enemigo.isActivo());
+		sentencia = enemigo.getDescripcion() == null ? sentencia.bindNull("descripcion", String.class)
+				: sentencia.bind("descripcion", enemigo.getDescripcion());
+
+		return sentencia.filter(s -> s.returnGeneratedValues("id_enemigo"))
+				.map(fila -> fila.get("id_enemigo", Integer.class)).one()
+				.map(idEnemigo -> {
+					enemigo.setIdEnemigo(idEnemigo);
+					return enemigo;
+				});
+	}
+
+	/**
+	 * Aplica una cantidad de daño a un enemigo en una única sentencia UPDATE, con la
+	 * misma sentencia que {@code EnemigoRepository}.
+	 *
+	 * @param idEnemigo El identificador del enemigo que recibe el daño.
+	 * @param damage    La cantidad de daño recibido.
+	 * @return El número de filas actualizadas (0 si el enemigo no existe).
+	 */
+	public Mono<Long> aplicarDamage(int idEnemigo, int damage) {
+		return databaseClient.sql(EnemigoRepository.APLICAR_DAMAGE).bind("idEnemigo", idEnemigo)
+				.bind("damage", damage).fetch().rowsUpdated();
+	}
+
+	/**
+	 * Marca un enemigo como inactivo.
+	 *
+	 * @param idEnemigo El identificador del enemigo.
+	 * @return El número de filas actualizadas (0 si el enemigo no existe).
+	 */
+	public Mono<Long> desactivar(int idEnemigo) {
+		return databaseClient.sql("UPDATE enemigos SET activo = FALSE, version = version + 1, "
+				+ "ultima_modificacion = CURRENT_TIMESTAMP(3) WHERE id_enemigo = :idEnemigo").bind("idEnemigo", idEnemigo).fetch().rowsUpdated();
+	}
+
+	/**
+	 * Reinicia todos los enemigos con una única sentencia UPDATE, dejándolos
+	 * activos, no vencidos y con su vida original.
+	 *
+	 * @return El número de enemigos reiniciados.
+	 */
+	public Mono<Long> reiniciarTodos() {
+		return databaseClient.sql("UPDATE enemigos SET activo = TRUE, vencido = FALSE, "
+				+ "vida_actual = vida_original, version = version + 1, ultima_modificacion = CURRENT_TIMESTAMP(3)")
+				.fetch().rowsUpdated();
+	}
+
+	private static Enemigo mapear(Readable fila) {
+		Enemigo enemigo = new Enemigo();
+		enemigo.setIdEnemigo(entero(fila, "id_enemigo"));
+		enemigo.setNombre(fila.get("nombre", String.class));
+		enemigo.setDescripcion(fila.get("descripcion", String.class));
+		enemigo.setNivel(entero(fila, "nivel"));
+		enemigo.setRecompensa(entero(fila, "recompensa"));
+		enemigo.setFuerza(entero(fila, "fuerza"));
+		enemigo.setDefensa(entero(fila, "defensa"));
+		enemigo.setVidaOriginal(entero(fila, "vida_original"));
+		enemigo.setVidaActual(entero(fila, "vida_actual"));
+		enemigo.setVencido(booleano(fila, "vencido"));
+		enemigo.setActivo(booleano(fila, "activo"));
+		Number version = fila.get("version", Number.class);
+		enemigo.setVersion(version == null ? 0 : version.longValue());
+		LocalDateTime ultimaModificacion = fila.get("ultima_modificacion", LocalDateTime.class);
+		if (ultimaModificacion != null) {
+			enemigo.setUltimaModificacion(ultimaModificacion.atZone(ZoneId.systemDefault()).toInstant());
+		}
+		return enemigo;
+	}
+
+	private static int entero(Readable fila, String columna) {
+		Number valor = fila.get(columna, Number.class);
+		return valor == null ? 0 : valor.intValue();
+	}
+
+	/**
+	 * MySQL almacena {@code BOOLEAN} como {@code TINYINT(1)}, por lo que según el
+	 * controlador el valor llega como número o como booleano.
+	 */
+	private static boolean booleano(Readable fila, String columna) {
+		Object valor = fila.get(columna);
+		if (valor instanceof Boolean b) {
+			return b;
+		}
+		return valor instanceof Number n && n.intValue() != 0;
+	}
+}
@@ -0,0 +1,174 @@
+package com.viewnext.kidaprojects.apienemigosreactivo.restcontroller;
+
+import java.net.URI;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigosreactivo.service.EnemigoReactivoService;
+
+import jakarta.persistence.EntityNotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * La clase {@code EnemigoReactivoRestController} expone las mismas rutas que
+ * {@code EnemigoRestController} sobre WebFlux. Ningún método bloquea el hilo
+ * que atiende la solicitud.
+ *
+ * <p>
+ * {@code GET /enemigo} devuelve los enemigos como un array JSON, como NDJSON o
+ * como eventos SSE según la cabecera {@code Accept}. En los dos últimos casos
+ * cada enemigo se escribe en cuanto se lee y la lectura de filas se detiene
+ * mientras el cliente no consume la respuesta.
+ * </p>
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@RestController
+public class EnemigoReactivoRestController {
+
+	private static final String ENEMIGO_NOT_FOUND = "Enemigo/s no encontrado";
+
+	/**
+	 * Número de enemigos que se solicitan a la base de datos por adelantado
+	 * mientras el cliente consume la respuesta.
+	 */
+	private static final int ENEMIGOS_POR_PETICION = 256;
+
+	private final EnemigoReactivoService service;
+
+	public EnemigoReactivoRestController(EnemigoReactivoService service) {
+		this.service = service;
+	}
+
+	/**
+	 * Maneja una solicitud GET para recuperar todos los enemigos ordenados por
+	 * identificador.
+	 *
+	 * @return Un flujo con todos los enemigos, o 404 si no hay ninguno.
+	 */
+	@GetMapping(value = "enemigo", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+			MediaType.TEXT_EVENT_STREAM_VALUE })
+	public Flux<Enemigo> showAllEnemigos() {
+		return service.showAll().limitRate(ENEMIGOS_POR_PETICION);
+	}
+
+	/**
+	 * Maneja una solicitud GET para recuperar un enemigo por su identificador.
+	 *
+	 * @param idEnemigo El identificador único del enemigo a recuperar.
+	 * @return El enemigo, o 404 si no existe.
+	 */
+	@GetMapping(value = "enemigo/{idEnemigo}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<Enemigo> showEnemigoById(@PathVariable("idEnemigo") int idEnemigo) {
+		return service.showById(idEnemigo);
+	}
+
+	/**
+	 * Maneja una solicitud GET para obtener la recompensa de un enemigo.
+	 *
+	 * @param idEnemigo El identificador único del enemigo.
+	 * @return La recompensa del enemigo, o 404 si no existe.
+	 */
+	@GetMapping(value = "enemigo/recompensa/{idEnemigo}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<Integer> getRecompensa(@PathVariable("idEnemigo") int idEnemigo) {
+		return service.getRecompensa(idEnemigo);
+	}
+
+	/**
+	 * Maneja una solicitud GET para recuperar enemigos cuyos nombres coinciden con
+	 * un prefijo dado.
+	 *
+	 * @param prefijo El prefijo del nombre del enemigo a buscar.
+	 * @return Los enemigos encontrados, o 404 si no hay ninguno.
+	 */
+	@GetMapping(value = "enemigo/nombre", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Flux<Enemigo> showEnemigosByNombreLike(@RequestParam("prefijo") String prefijo) {
+		return service.showByNombreLike(prefijo);
+	}
+
+	/**
+	 * Maneja una solicitud GET para recuperar enemigos cuyo nivel de dificultad sea
+	 * igual o menor al nivel especificado.
+	 *
+	 * @param nivel El nivel de dificultad máximo deseado.
+	 * @return Los enemigos encontrados, o 404 si no hay ninguno.
+	 */
+	@GetMapping(value = "enemigo/nivel", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Flux<Enemigo> showEnemigosByNivel(@RequestParam("nivel") int nivel) {
+		return service.showByNivel(nivel);
+	}
+
+	/**
+	 * Maneja una solicitud POST para crear un nuevo enemigo en el sistema.
+	 *
+	 * @param enemigo El enemigo que se va a crear.
+	 * @return El enemigo creado con el código 201 y la URI del nuevo recurso.
+	 */
+	@PostMapping(value = "enemigo", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<Enemigo>> createEnemigo(@RequestBody Enemigo enemigo) {
+		return service.createEnemigo(enemigo).map(
+				creado -> ResponseEntity.created(URI.create("/enemigo/" + creado.getIdEnemigo())).body(creado));
+	}
+
+	/**
+	 * Maneja una solicitud PUT para aplicar daño a un enemigo.
+	 *
+	 * @param idEnemigo El identificador único del enemigo.
+	 * @param damage    La cantidad de daño recibido.
+	 * @return El enemigo con la vida actualizada, o 404 si no existe.
+	 */
+	@PutMapping(value = "enemigo/{idEnemigo}/damage", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<Enemigo> updateVida(@PathVariable("idEnemigo") int idEnemigo, @RequestParam("damage") int damage) {
+		return service.updateVida(idEnemigo, damage);
+	}
+
+	/**
+	 * Maneja una solicitud DELETE para marcar un enemigo como inactivo.
+	 *
+	 * @param idEnemigo El identificador único del enemigo.
+	 * @return El enemigo con el estado actualizado, o 404 si no existe.
+	 */
+	@DeleteMapping(value = "enemigo/{idEnemigo}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<Enemigo> setEstadoInactivo(@PathVariable("idEnemigo") int idEnemigo) {
+		return service.setEstadoInactivo(idEnemigo);
+	}
+
+	/**
+	 * Maneja una solicitud POST para reiniciar el estado de todos los enemigos.
+	 *
+	 * @return Un mensaje con el número de enemigos reiniciados.
+	 */
+	@PostMapping(value = "enemigo/reinicio")
+	public Mono<String> reiniciarEnemigos() {
+		return service.reiniciarEnemigos().map(reiniciados -> "Enemigos reiniciados: " + reiniciados);
+	}
+
+	/**
+	 * Convierte la ausencia de enemigos en una respuesta 404 con el mismo mensaje
+	 * que la versión MVC.
+	 *
+	 * @return La respuesta 404.
+	 */
+	@ExceptionHandler(EntityNotFoundException.class)
+	public ResponseEntity<String> enemigoNoEncontrado() {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ENEMIGO_NOT_FOUND);
+	}
+}
@@ -0,0 +1,92 @@
+package com.viewnext.kidaprojects.apienemigosreactivo.service;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * La interfaz {@code EnemigoReactivoService} define las operaciones de
+ * {@code EnemigoService} en su versión no bloqueante. Cuando no se encuentra
+ * ningún enemigo, los flujos terminan con {@code EntityNotFoundException}.
+ *
+ * <p>
+ * El autor de esta interfaz es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+public interface EnemigoReactivoService {
+
+    /**
+     * Recupera todos los enemigos ordenados por identificador, a medida que el suscriptor los solicita.
+     *
+     * @return Un flujo con todos los enemigos.
+     */
+    Flux<Enemigo> showAll();
+
+    /**
+     * Recupera una lista de enemigos cuyos nombres coinciden con un prefijo dado.
+     *
+     * @param prefijo El prefijo del nombre de los enemigos a buscar.
+     * @return Un flujo con los enemigos cuyos nombres coinciden con el prefijo.
+     */
+    Flux<Enemigo> showByNombreLike(String prefijo);
+
+    /**
+     * Recupera los enemigos cuyo nivel de dificultad sea igual o menor al nivel especificado.
+     *
+     * @param nivel El nivel de dificultad máximo deseado.
+     * @return Un flujo con los enemigos encontrados.
+     */
+    Flux<Enemigo> showByNivel(int nivel);
+
+    /**
+     * Recupera un enemigo por su identificador único.
+     *
+     * @param idEnemigo El identificador único del enemigo a recuperar.
+     * @return El enemigo correspondiente al identificador dado.
+     */
+    Mono<Enemigo> showById(int idEnemigo);
+
+    /**
+     * Obtiene la recompensa asociada a un enemigo específico identificado por su ID.
+     *
+     * @param idEnemigo El ID del enemigo del cual se desea obtener la recompensa.
+     * @return La cantidad de recompensa asociada al enemigo especificado.
+     */
+    Mono<Integer> getRecompensa(int idEnemigo);
+
+    /**
+     * Crea un nuevo enemigo en el sistema.
+     *
+     * @param enemigo El enemigo que se va a crear.
+     * @return El enemigo creado con su identificador único.
+     */
+    Mono<Enemigo> createEnemigo(Enemigo enemigo);
+
+    /**
+     * Actualiza la vida de un enemigo mediante su identificador único y la cantidad de daño recibido.
+     *
+     * @param idEnemigo El identificador único del enemigo a actualizar.
+     * @param damage    La cantidad de daño que el enemigo ha recibido.
+     * @return El enemigo con la vida actualizada.
+     */
+    Mono<Enemigo> updateVida(int idEnemigo, int damage);
+
+    /**
+     * Establece el estado de un enemigo como "Inactivo" mediante su identificador único.
+     *
+     * @param idEnemigo El identificador único del enemigo a marcar como "Inactivo".
+     * @return El enemigo con el estado actualizado.
+     */
+    Mono<Enemigo> setEstadoInactivo(int idEnemigo);
+
+    /**
+     * Reinicia el estado de todos los enemigos, estableciendo su estado como activos y no vencidos.
+     *
+     * @return El número de enemigos reiniciados.
+     */
+    Mono<Long> reiniciarEnemigos();
+}
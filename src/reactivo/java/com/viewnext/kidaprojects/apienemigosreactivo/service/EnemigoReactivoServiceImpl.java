@@ -0,0 +1,92 @@
+package com.viewnext.kidaprojects.apienemigosreactivo.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigosreactivo.repository.EnemigoReactivoRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * La clase {@code EnemigoReactivoServiceImpl} implementa
+ * {@code EnemigoReactivoService} sobre {@code EnemigoReactivoRepository}. Las
+ * escrituras que además leen el resultado se ejecutan en una transacción
+ * reactiva mediante {@code TransactionalOperator}.
+ *
+ * <p>
+ * El autor de esta clase es Víctor Colorado "Kid A".
+ * </p>
+ *
+ * @version 1.0
+ * @since 5 de Octubre de 2023
+ */
+@Service
+public class EnemigoReactivoServiceImpl implements EnemigoReactivoService {
+
+	private final EnemigoReactivoRepository enemigoRepository;
+	private final TransactionalOperator transactionalOperator;
+
+	public EnemigoReactivoServiceImpl(EnemigoReactivoRepository enemigoRepository,
+			TransactionalOperator transactionalOperator) {
+		this.enemigoRepository = enemigoRepository;
+		this.transactionalOperator = transactionalOperator;
+	}
+
+	@Override
+	public Flux<Enemigo> showAll() {
+		return enemigoRepository.findAll().switchIfEmpty(Flux.error(EntityNotFoundException::new));
+	}
+
+	@Override
+	public Flux<Enemigo> showByNombreLike(String prefijo) {
+		return enemigoRepository.findByNombrePrefijo(prefijo).switchIfEmpty(Flux.error(EntityNotFoundException::new));
+	}
+
+	@Override
+	public Flux<Enemigo> showByNivel(int nivel) {
+		return enemigoRepository.findByNivel(nivel).switchIfEmpty(Flux.error(EntityNotFoundException::new));
+	}
+
+	@Override
+	public Mono<Enemigo> showById(int idEnemigo) {
+		return enemigoRepository.findById(idEnemigo).switchIfEmpty(Mono.error(EntityNotFoundException::new));
+	}
+
+	@Override
+	public Mono<Integer> getRecompensa(int idEnemigo) {
+		return showById(idEnemigo).map(Enemigo::getRecompensa);
+	}
+
+	@Override
+	public Mono<Enemigo> createEnemigo(Enemigo enemigo) {
+		return enemigoRepository.insertar(enemigo);
+	}
+
+	/**
+	 * Aplica el daño con la misma sentencia UPDATE atómica que la versión MVC y
+	 * vuelve a leer la fila en la misma transacción.
+	 */
+	@Override
+	public Mono<Enemigo> updateVida(int idEnemigo, int damage) {
+		return enemigoRepository.aplicarDamage(idEnemigo, damage)
+				.flatMap(filas -> filas == 0 ? Mono.error(new EntityNotFoundException())
+						: enemigoRepository.findById(idEnemigo))
+				.as(transactionalOperator::transactional);
+	}
+
+	@Override
+	public Mono<Enemigo> setEstadoInactivo(int idEnemigo) {
+		return enemigoRepository.desactivar(idEnemigo)
+				.flatMap(filas -> filas == 0 ? Mono.error(new EntityNotFoundException())
+						: enemigoRepository.findById(idEnemigo))
+				.as(transactionalOperator::transactional);
+	}
+
+	@Override
+	public Mono<Long> reiniciarEnemigos() {
+		return enemigoRepository.reiniciarTodos();
+	}
+}
@@ -0,0 +1,96 @@
+package com.viewnext.kidaprojects.apienemigosreactivo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * Pruebas de la variante reactiva del API sobre H2 en memoria, con el esquema
+ * creado por las mismas migraciones de Flyway.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.r2dbc.url=r2dbc:h2:mem:///enemigosreactivo?options=DB_CLOSE_DELAY=-1;MODE=MySQL",
+		"spring.r2dbc.username=sa", "spring.r2dbc.password=",
+		"spring.flyway.url=jdbc:h2:mem:enemigosreactivo;DB_CLOSE_DELAY=-1;MODE=MySQL",
+		"spring.flyway.user=sa", "spring.flyway.password=" })
+@ActiveProfiles("reactivo")
+class EnemigoReactivoRestControllerTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@BeforeEach
+	void sembrarEnemigos() {
+		databaseClient.sql("DELETE FROM enemigos").then().block();
+		for (int i = 1; i <= 10; i++) {
+			crear(new Enemigo("Enemigo " + i, "Descripción " + i, i, i * 10, i, i, 100));
+		}
+	}
+
+	@Test
+	void streamNdjsonDevuelveTodosLosEnemigosEnOrden() {
+		Flux<Enemigo> enemigos = webTestClient.get().uri("/enemigo").accept(MediaType.APPLICATION_NDJSON).exchange()
+				.expectStatus().isOk().returnResult(Enemigo.class).getResponseBody();
+
+		StepVerifier.create(enemigos.map(Enemigo::getNombre)).expectNext("Enemigo 1", "Enemigo 2")
+				.expectNextCount(8).verifyComplete();
+	}
+
+	@Test
+	void streamSseEmiteUnEventoPorEnemigo() {
+		List<Enemigo> enemigos = webTestClient.get().uri("/enemigo").accept(MediaType.TEXT_EVENT_STREAM).exchange()
+				.expectStatus().isOk().returnResult(Enemigo.class).getResponseBody().collectList().block();
+
+		assertEquals(10, enemigos.size());
+		assertEquals("Descripción 10", enemigos.get(9).getDescripcion());
+	}
+
+	@Test
+	void damageActualizaVidaYEstado() {
+		Enemigo enemigo = crear(new Enemigo("Gólem", "Piedra", 3, 30, 3, 3, 50));
+
+		webTestClient.put().uri("/enemigo/{id}/damage?damage=50", enemigo.getIdEnemigo()).exchange()
+				.expectStatus().isOk().expectBody()
+				.jsonPath("$.vidaActual").isEqualTo(0)
+				.jsonPath("$.vencido").isEqualTo(true)
+				.jsonPath("$.version").isEqualTo(1);
+	}
+
+	@Test
+	void enemigoInexistenteDevuelve404() {
+		webTestClient.get().uri("/enemigo/999999").exchange().expectStatus().isNotFound().expectBody(String.class)
+				.isEqualTo("Enemigo/s no encontrado");
+		webTestClient.put().uri("/enemigo/999999/damage?damage=1").exchange().expectStatus().isNotFound();
+	}
+
+	@Test
+	void busquedasPorNombreYNivel() {
+		webTestClient.get().uri("/enemigo/nombre?prefijo=Enemigo 1").exchange().expectStatus().isOk()
+				.expectBodyList(Enemigo.class).hasSize(2);
+		webTestClient.get().uri("/enemigo/nivel?nivel=3").exchange().expectStatus().isOk()
+				.expectBodyList(Enemigo.class).hasSize(3);
+		webTestClient.get().uri("/enemigo/nivel?nivel=0").exchange().expectStatus().isNotFound();
+	}
+
+	private Enemigo crear(Enemigo enemigo) {
+		return webTestClient.post().uri("/enemigo").contentType(MediaType.APPLICATION_JSON).bodyValue(enemigo)
+				.exchange().expectStatus().isCreated().expectBody(Enemigo.class).returnResult().getResponseBody();
+	}
+}
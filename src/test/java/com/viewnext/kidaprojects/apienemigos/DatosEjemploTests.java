@@ -0,0 +1,39 @@
+package com.viewnext.kidaprojects.apienemigos;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Comprueba que los datos de ejemplo del perfil {@code datos-ejemplo} se
+ * insertan en una base de datos nueva después de las migraciones y que volver a
+ * ejecutarlos no duplica ningún enemigo.
+ */
+class DatosEjemploTests {
+
+	private static final String URL = "jdbc:h2:mem:datosejemplo;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	@Test
+	void losDatosDeEjemploSeInsertanUnaSolaVez() {
+		Flyway.configure().dataSource(URL, "sa", "")
+				.locations("classpath:db/migration", "classpath:db/datos-ejemplo")
+				.load().migrate();
+		DriverManagerDataSource fuenteDatos = new DriverManagerDataSource(URL, "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(fuenteDatos);
+
+		assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM enemigos", Integer.class));
+
+		ResourceDatabasePopulator datosEjemplo = new ResourceDatabasePopulator(
+				new ClassPathResource("db/datos-ejemplo/R__datos_ejemplo.sql"));
+		datosEjemplo.setSqlScriptEncoding("UTF-8");
+		datosEjemplo.execute(fuenteDatos);
+
+		assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT nombre) FROM enemigos", Integer.class));
+		assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM enemigos", Integer.class));
+	}
+}
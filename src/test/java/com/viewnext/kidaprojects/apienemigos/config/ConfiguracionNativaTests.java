@@ -0,0 +1,26 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+/**
+ * Comprueba que la imagen nativa incluirá la configuración de la caché de
+ * segundo nivel y podrá instanciar su proveedor.
+ */
+class ConfiguracionNativaTests {
+
+	@Test
+	void registraLaConfiguracionYElProveedorDeLaCache() {
+		RuntimeHints hints = new RuntimeHints();
+		new ConfiguracionNativa.PistasCacheHibernate().registerHints(hints, getClass().getClassLoader());
+
+		assertTrue(RuntimeHintsPredicates.resource().forResource("application.conf").test(hints));
+		assertTrue(RuntimeHintsPredicates.reflection()
+				.onType(TypeReference.of("com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider"))
+				.test(hints));
+	}
+}
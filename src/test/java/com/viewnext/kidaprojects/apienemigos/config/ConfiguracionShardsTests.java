@@ -0,0 +1,178 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Golpe;
+import com.viewnext.kidaprojects.apienemigos.model.PaginaEnemigos;
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+import com.viewnext.kidaprojects.apienemigos.service.EnrutadorShards;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Comprueba, con dos bases de datos H2, que los enemigos nuevos se reparten
+ * entre los shards con identificadores de su rango, que cada lectura y escritura
+ * llega al shard que guarda el enemigo y que las búsquedas reúnen los enemigos
+ * de todos los shards, también a través de los endpoints, donde cada shard debe
+ * usar su propia conexión.
+ */
+@SpringBootTest(properties = { "enemigos.shards.enabled=true",
+		"enemigos.shards.urls=" + ConfiguracionShardsTests.URL_SHARD,
+		"enemigos.shards.tamano-rango=" + ConfiguracionShardsTests.TAMANO_RANGO })
+@AutoConfigureMockMvc
+@DirtiesContext
+class ConfiguracionShardsTests {
+
+	static final String URL_SHARD = "jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	static final int TAMANO_RANGO = 1_000_000;
+
+	private static final String VIDA = "SELECT vida_actual FROM enemigos WHERE id_enemigo = ?";
+
+	@Autowired
+	private EnemigoService service;
+
+	@Autowired
+	private HikariDataSource fuenteDatosShardInicial;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private JdbcTemplate shard0;
+	private JdbcTemplate shard1;
+	private Enemigo enShard0;
+	private Enemigo enShard1;
+
+	@BeforeEach
+	void crearEnemigos() {
+		shard0 = new JdbcTemplate(fuenteDatosShardInicial);
+		shard1 = new JdbcTemplate(new DriverManagerDataSource(URL_SHARD, "sa", ""));
+
+		List<Enemigo> creados = List.of(
+				service.createEnemigo(new Enemigo("Fragmento alfa", "Prueba", 1, 10, 10, 10, 100)),
+				service.createEnemigo(new Enemigo("Fragmento beta", "Prueba", 1, 10, 10, 10, 100)));
+		enShard0 = creados.stream().filter(e -> e.getIdEnemigo() <= TAMANO_RANGO).findFirst().orElseThrow();
+		enShard1 = creados.stream().filter(e -> e.getIdEnemigo() > TAMANO_RANGO).findFirst().orElseThrow();
+	}
+
+	@AfterEach
+	void borrarEnemigos() {
+		shard0.update("DELETE FROM enemigos WHERE id_enemigo = ?", enShard0.getIdEnemigo());
+		shard1.update("DELETE FROM enemigos WHERE id_enemigo = ?", enShard1.getIdEnemigo());
+	}
+
+	@Test
+	void escribeCadaEnemigoEnSuShard() {
+		assertTrue(enShard1.getIdEnemigo() <= 2 * TAMANO_RANGO);
+		assertEquals(0, shard0.queryForObject("SELECT COUNT(*) FROM enemigos WHERE id_enemigo = ?",
+				Integer.class, enShard1.getIdEnemigo()));
+
+		assertEquals(90, service.updateVida(enShard1.getIdEnemigo(), 10).getVidaActual());
+		assertEquals(90, shard1.queryForObject(VIDA, Integer.class, enShard1.getIdEnemigo()));
+
+		List<Enemigo> golpeados = service.updateVidaEnLote(
+				List.of(new Golpe(enShard1.getIdEnemigo(), 5), new Golpe(enShard0.getIdEnemigo(), 20)));
+		assertEquals(List.of(enShard0.getIdEnemigo(), enShard1.getIdEnemigo()),
+				golpeados.stream().map(Enemigo::getIdEnemigo).toList());
+		assertEquals(80, shard0.queryForObject(VIDA, Integer.class, enShard0.getIdEnemigo()));
+		assertEquals(85, shard1.queryForObject(VIDA, Integer.class, enShard1.getIdEnemigo()));
+
+		service.setEstadoInactivo(enShard1.getIdEnemigo());
+		assertEquals(Boolean.FALSE, shard1.queryForObject("SELECT activo FROM enemigos WHERE id_enemigo = ?",
+				Boolean.class, enShard1.getIdEnemigo()));
+	}
+
+	@Test
+	void reuneLosEnemigosDeTodosLosShards() {
+		assertEquals(List.of(enShard0.getIdEnemigo(), enShard1.getIdEnemigo()),
+				service.showByNombreLike("Fragmento", false).stream().map(Enemigo::getIdEnemigo).sorted()
+						.toList());
+
+		List<Integer> todos = service.showAll().stream().map(Enemigo::getIdEnemigo).toList();
+		assertTrue(todos.containsAll(List.of(enShard0.getIdEnemigo(), enShard1.getIdEnemigo())));
+		assertEquals(enShard1.getIdEnemigo(), todos.get(todos.size() - 1));
+
+		assertEquals(2, service.reiniciarEnemigos(null, enShard0.getIdEnemigo(), enShard1.getIdEnemigo()));
+	}
+
+	@Test
+	void losEndpointsQueRecorrenLosShardsDevuelvenCadaEnemigoUnaVez() throws Exception {
+		List<Integer> paginados = new ArrayList<>();
+		String cursor = null;
+		do {
+			String url = "/enemigo/pagina?limite=10" + (cursor == null ? "" : "&cursor=" + cursor);
+			PaginaEnemigos pagina = objectMapper.readValue(mockMvc.perform(get(url)).andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(), PaginaEnemigos.class);
+			pagina.enemigos().forEach(e -> paginados.add(e.getIdEnemigo()));
+			cursor = pagina.siguiente();
+		} while (cursor != null);
+
+		MvcResult resultado = mockMvc.perform(get("/enemigo").accept(MediaType.APPLICATION_NDJSON)).andReturn();
+		List<Integer> recorridos = new ArrayList<>();
+		for (String linea : mockMvc.perform(asyncDispatch(resultado)).andExpect(status().isOk()).andReturn()
+				.getResponse().getContentAsString().split("\n")) {
+			recorridos.add(objectMapper.readValue(linea, Enemigo.class).getIdEnemigo());
+		}
+
+		for (List<Integer> ids : List.of(paginados, recorridos)) {
+			assertEquals(1, Collections.frequency(ids, enShard0.getIdEnemigo()), () -> "Identificadores: " + ids);
+			assertEquals(1, Collections.frequency(ids, enShard1.getIdEnemigo()), () -> "Identificadores: " + ids);
+			assertEquals(ids.stream().distinct().toList(), ids);
+		}
+	}
+
+	@Test
+	void rechazaLosIdentificadoresFueraDelRangoDelShard() {
+		EnrutadorShards enrutador = new EnrutadorShards(true, List.of(URL_SHARD), TAMANO_RANGO, 1);
+		enrutador.comprobarIdAlta(1, TAMANO_RANGO + 1);
+		enrutador.comprobarIdAlta(1, 2 * TAMANO_RANGO);
+
+		assertThrows(IllegalStateException.class, () -> enrutador.comprobarIdAlta(1, 2 * TAMANO_RANGO + 1));
+		assertThrows(IllegalStateException.class, () -> enrutador.comprobarIdAlta(0, TAMANO_RANGO + 1));
+	}
+
+	@Test
+	void rechazaRangosQueNoCabenEnUnInt() {
+		assertThrows(IllegalStateException.class,
+				() -> new EnrutadorShards(true, List.of("a", "b"), 1_000_000_000, 1));
+	}
+
+	@Test
+	void noArrancaConShardsYReplicasALaVez() {
+		new ApplicationContextRunner()
+				.withPropertyValues("enemigos.shards.enabled=true", "enemigos.datasource.replicas.enabled=true")
+				.withUserConfiguration(ConfiguracionShards.class).run(contexto -> {
+					Throwable causa = contexto.getStartupFailure();
+					while (causa.getCause() != null) {
+						causa = causa.getCause();
+					}
+					assertTrue(causa.getMessage().contains("no pueden estar activas a la vez"), causa.getMessage());
+				});
+	}
+}
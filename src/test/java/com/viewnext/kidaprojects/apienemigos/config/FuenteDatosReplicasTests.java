@@ -0,0 +1,152 @@
+package com.viewnext.kidaprojects.apienemigos.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Comprueba, con dos bases de datos H2 que no se replican entre sí, que las
+ * lecturas del servicio se atienden en la réplica, que las escrituras y el
+ * relleno de las cachés van a la primaria, también dentro de una misma petición
+ * web, y que las lecturas vuelven a la primaria cuando la réplica falla.
+ */
+@SpringBootTest(properties = { "enemigos.datasource.replicas.enabled=true",
+		"enemigos.datasource.replicas.urls=" + FuenteDatosReplicasTests.URL_REPLICA,
+		"enemigos.datasource.replicas.espera-tras-fallo-ms=600000" })
+@AutoConfigureMockMvc
+@DirtiesContext
+class FuenteDatosReplicasTests {
+
+	static final String URL_REPLICA = "jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	private static final String INSERTAR = "INSERT INTO enemigos (id_enemigo, nombre, descripcion, nivel, "
+			+ "recompensa, fuerza, defensa, vida_original, vida_actual, vencido, activo, version) "
+			+ "VALUES (?, ?, 'Prueba', 1, 10, 10, 10, 100, 100, FALSE, TRUE, 0)";
+
+	private static final int ID_REPLICA = 900_001;
+	private static final int ID_PRIMARIA = 900_002;
+
+	@Autowired
+	private EnemigoService service;
+
+	@Autowired
+	private HikariDataSource fuenteDatosPrimaria;
+
+	@Autowired
+	private FuenteDatosReplicas fuenteDatosReplicas;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private JdbcTemplate replica;
+	private JdbcTemplate primaria;
+
+	@BeforeAll
+	static void migrarReplica() {
+		Flyway.configure().dataSource(URL_REPLICA, "sa", "").load().migrate();
+	}
+
+	@BeforeEach
+	void sembrarEnemigos() {
+		replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+		primaria = new JdbcTemplate(fuenteDatosPrimaria);
+		replica.update(INSERTAR, ID_REPLICA, "Réplica");
+		primaria.update(INSERTAR, ID_PRIMARIA, "Primaria");
+	}
+
+	@AfterEach
+	void borrarEnemigos() {
+		replica.update("DELETE FROM enemigos WHERE id_enemigo = ?", ID_REPLICA);
+		primaria.update("DELETE FROM enemigos WHERE id_enemigo = ?", ID_PRIMARIA);
+	}
+
+	@Test
+	void leeDeLaReplicaYEscribeEnLaPrimaria() {
+		List<String> nombres = service.showAll().stream().map(Enemigo::getNombre).toList();
+		assertTrue(nombres.contains("Réplica"));
+		assertFalse(nombres.contains("Primaria"));
+		assertTrue(meterRegistry.get("enemigos.datasource.conexiones").tag("fuente", "replica-0").counter()
+				.count() > 0);
+
+		assertEquals(90, service.updateVida(ID_PRIMARIA, 10).getVidaActual());
+		assertThrows(EntityNotFoundException.class, () -> service.updateVida(ID_REPLICA, 10));
+		assertEquals(90, primaria.queryForObject("SELECT vida_actual FROM enemigos WHERE id_enemigo = ?",
+				Integer.class, ID_PRIMARIA));
+		assertEquals(100, replica.queryForObject("SELECT vida_actual FROM enemigos WHERE id_enemigo = ?",
+				Integer.class, ID_REPLICA));
+	}
+
+	@Test
+	void rellenaLasCachesDesdeLaPrimaria() {
+		List<Integer> ids = service.createEnemigos(List.of(new Enemigo("Recién creado", "Prueba", 1, 25, 1, 1, 50))
+				.iterator());
+		int idCreado = ids.get(0);
+		try {
+			// La réplica no tiene el enemigo: si la caché se rellenase desde ella, se recordaría como inexistente
+			assertEquals("Recién creado", service.showById(idCreado).getNombre());
+			assertEquals(25, service.getRecomenpsa(idCreado));
+
+			service.showAll();
+			assertFalse(entityManagerFactory.getCache().contains(Enemigo.class, ID_REPLICA));
+		} finally {
+			primaria.update("DELETE FROM enemigos WHERE id_enemigo = ?", idCreado);
+		}
+	}
+
+	@Test
+	void unaPeticionVuelveALaPrimariaSiLaReplicaNoTieneElEnemigo() throws Exception {
+		// La lectura de solo lectura va a la réplica y no lo encuentra; la segunda, en la misma petición, a la primaria
+		mockMvc.perform(get("/enemigo/recompensa/" + ID_PRIMARIA)).andExpect(status().isOk())
+				.andExpect(content().string("10"));
+		mockMvc.perform(get("/enemigo/" + ID_PRIMARIA)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.nombre").value("Primaria"));
+	}
+
+	@Test
+	@DirtiesContext
+	void vuelveALaPrimariaSiLaReplicaFalla() {
+		fuenteDatosReplicas.close();
+
+		List<String> nombres = service.showAll().stream().map(Enemigo::getNombre).toList();
+		assertTrue(nombres.contains("Primaria"));
+		assertFalse(nombres.contains("Réplica"));
+		assertEquals(1, meterRegistry.get("enemigos.datasource.replicas.fallos").counter().count());
+
+		service.showAll();
+		assertEquals(1, meterRegistry.get("enemigos.datasource.replicas.fallos").counter().count());
+	}
+}
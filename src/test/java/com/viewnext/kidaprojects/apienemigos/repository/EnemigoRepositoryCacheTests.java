@@ -0,0 +1,143 @@
+package com.viewnext.kidaprojects.apienemigos.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Golpe;
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Comprueba que la caché de segundo nivel de Hibernate evita las sentencias SQL
+ * en lecturas repetidas, también en las búsquedas por nivel y por prefijo, y que
+ * las escrituras del servicio, también las que usan JDBC directamente, invalidan
+ * solo los enemigos afectados.
+ */
+@SpringBootTest(properties = "enemigos.hibernate.estadisticas.enabled=true")
+class EnemigoRepositoryCacheTests {
+
+	@Autowired
+	private EnemigoRepository enemigoRepository;
+
+	@Autowired
+	private EnemigoService service;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Statistics estadisticas;
+	private int idGoblin;
+	private int idGolem;
+
+	@BeforeEach
+	void sembrarEnemigos() {
+		enemigoRepository.deleteAllInBatch();
+		List<Integer> ids = service.createEnemigos(List.of(new Enemigo("Goblin", "Ladrón", 2, 10, 5, 5, 100),
+				new Enemigo("Gólem", "Piedra", 5, 50, 20, 30, 400),
+				new Enemigo("Grifo", "Volador", 8, 80, 25, 15, 300)).iterator());
+		idGoblin = ids.get(0);
+		idGolem = ids.get(1);
+		estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void lecturasRepetidasNoEjecutanSentencias() {
+		enemigoRepository.findById(idGoblin);
+		estadisticas.clear();
+
+		assertEquals("Goblin", enemigoRepository.findById(idGoblin).get().getNombre());
+
+		assertEquals(0, estadisticas.getPrepareStatementCount());
+		assertTrue(meterRegistry.get("hibernate.second.level.cache.requests")
+				.tags("region", Enemigo.REGION_CACHE, "result", "hit").functionCounter().count() > 0);
+	}
+
+	/**
+	 * La caché de consultas guarda solo los identificadores y las entidades se leen
+	 * de la caché de entidades, así que repetir las búsquedas no ejecuta ninguna
+	 * sentencia.
+	 */
+	@Test
+	void consultasRepetidasNoEjecutanSentencias() {
+		enemigoRepository.findByNivel(5);
+		enemigoRepository.findByNombrePrefijo("G");
+		estadisticas.clear();
+
+		assertEquals(2, enemigoRepository.findByNivel(5).size());
+		assertEquals(3, enemigoRepository.findByNombrePrefijo("G").size());
+
+		assertEquals(0, estadisticas.getPrepareStatementCount());
+		assertEquals(2, estadisticas.getQueryCacheHitCount());
+	}
+
+	/**
+	 * Un golpe no cambia el resultado de las búsquedas, así que la consulta sigue
+	 * en caché y solo se vuelve a leer el enemigo golpeado.
+	 */
+	@Test
+	void unGolpeNoInvalidaLaCacheDeConsultas() {
+		enemigoRepository.findByNivel(5);
+
+		enemigoRepository.aplicarDamage(idGoblin, 10);
+		estadisticas.clear();
+
+		assertEquals(90, enemigoRepository.findByNivel(5).stream().filter(e -> e.getIdEnemigo() == idGoblin)
+				.findFirst().get().getVidaActual());
+		assertEquals(1, estadisticas.getQueryCacheHitCount());
+		assertEquals(1, estadisticas.getPrepareStatementCount());
+	}
+
+	@Test
+	void unGolpeSoloInvalidaElEnemigoGolpeado() {
+		enemigoRepository.findById(idGoblin);
+		enemigoRepository.findById(idGolem);
+
+		enemigoRepository.aplicarDamage(idGoblin, 10);
+		estadisticas.clear();
+
+		assertEquals(400, enemigoRepository.findById(idGolem).get().getVidaActual());
+		assertEquals(0, estadisticas.getPrepareStatementCount());
+		assertEquals(90, enemigoRepository.findById(idGoblin).get().getVidaActual());
+		assertEquals(1, estadisticas.getPrepareStatementCount());
+	}
+
+	@Test
+	void escriturasDelServicioInvalidanLaCache() {
+		enemigoRepository.findById(idGoblin);
+		enemigoRepository.findByNivel(5);
+
+		service.updateVida(idGoblin, 10);
+		assertEquals(90, enemigoRepository.findById(idGoblin).get().getVidaActual());
+
+		service.updateVidaEnLote(List.of(new Golpe(idGoblin, 5)));
+		assertEquals(85, enemigoRepository.findById(idGoblin).get().getVidaActual());
+		assertEquals(85, enemigoRepository.findByNivel(5).stream().filter(e -> e.getIdEnemigo() == idGoblin)
+				.findFirst().get().getVidaActual());
+
+		service.setEstadoInactivo(idGoblin);
+		assertFalse(enemigoRepository.findById(idGoblin).get().isActivo());
+
+		service.createEnemigos(List.of(new Enemigo("Gnomo", "Mago", 1, 5, 2, 2, 50)).iterator());
+		assertEquals(3, enemigoRepository.findByNivel(5).size());
+
+		service.reiniciarEnemigos(null, null, null);
+		assertTrue(enemigoRepository.findById(idGoblin).get().isActivo());
+		assertEquals(100, enemigoRepository.findById(idGoblin).get().getVidaActual());
+	}
+}
@@ -0,0 +1,119 @@
+package com.viewnext.kidaprojects.apienemigos.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+/**
+ * Comprueba, sobre el esquema creado por las migraciones, que las búsquedas por
+ * prefijo de nombre y por nivel y la paginación se resuelven con los índices y
+ * no recorriendo la tabla completa. Se analiza el SQL que genera Hibernate para
+ * cada método del repositorio, capturado con un {@code StatementInspector}.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepositoryIndicesTests$RegistroSentencias")
+class EnemigoRepositoryIndicesTests {
+
+	@Autowired
+	private EnemigoRepository enemigoRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void sembrarEnemigos() {
+		enemigoRepository.deleteAllInBatch();
+		List<Enemigo> enemigos = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Enemigo enemigo = new Enemigo("Enemigo " + i, "Descripción " + i, 1 + i % 50, i, 10, 10, 100);
+			enemigo.setActivo(i % 3 != 0);
+			enemigo.setVencido(i % 7 == 0);
+			enemigos.add(enemigo);
+		}
+		enemigoRepository.insertarEnLote(enemigos);
+		jdbcTemplate.execute("ANALYZE TABLE enemigos");
+	}
+
+	@Test
+	void busquedaPorPrefijoUsaIndiceDeNombre() {
+		assertUsaIndice("IDX_ENEMIGOS_NOMBRE", () -> enemigoRepository.findIdsByNombrePrefijo("Enemigo 12"),
+				"Enemigo 12%");
+	}
+
+	@Test
+	void busquedaPorNivelUsaIndiceDeNivel() {
+		assertUsaIndice("IDX_ENEMIGOS_NIVEL_ACTIVO", () -> enemigoRepository.findIdsByNivel(2), 2);
+	}
+
+	@Test
+	void busquedaDeActivosPorPrefijoUsaIndiceFiltrado() {
+		assertUsaIndice("IDX_ENEMIGOS_ACTIVOS_NOMBRE",
+				() -> enemigoRepository.findActivosByNombrePrefijo("Enemigo 12"), "Enemigo 12%");
+	}
+
+	@Test
+	void busquedaDeActivosPorNivelUsaIndiceFiltrado() {
+		assertUsaIndice("IDX_ENEMIGOS_ACTIVOS_NIVEL", () -> enemigoRepository.findActivosByNivel(2), 2);
+	}
+
+	@Test
+	void paginaUsaLaClavePrimaria() {
+		int despuesDe = enemigoRepository.findPagina(0, PageRequest.ofSize(1000)).get(999).getIdEnemigo();
+		assertUsaIndice("PRIMARY_KEY", () -> enemigoRepository.findPagina(despuesDe, PageRequest.ofSize(20)),
+				despuesDe, 20);
+	}
+
+	@Test
+	void variantesFiltradasSoloDevuelvenActivosNoVencidos() {
+		List<Enemigo> porNombre = enemigoRepository.findActivosByNombrePrefijo("Enemigo 1");
+		List<Enemigo> porNivel = enemigoRepository.findActivosByNivel(5);
+
+		assertTrue(porNombre.stream().allMatch(e -> e.isActivo() && !e.isVencido()));
+		assertTrue(porNivel.stream().allMatch(e -> e.isActivo() && !e.isVencido()));
+		assertEquals(enemigoRepository.findByNivel(5).stream().filter(e -> e.isActivo() && !e.isVencido()).count(),
+				porNivel.size());
+	}
+
+	/**
+	 * Ejecuta el método del repositorio y analiza la sentencia que ha generado
+	 * Hibernate con los mismos parámetros.
+	 */
+	private void assertUsaIndice(String indice, Runnable consulta, Object... parametros) {
+		List<String> sentencias = RegistroSentencias.SENTENCIAS.get();
+		sentencias.clear();
+		consulta.run();
+		assertEquals(1, sentencias.size(), () -> "Sentencias: " + sentencias);
+
+		String sql = sentencias.get(0);
+		String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parametros);
+		assertTrue(plan.contains(indice), () -> "Plan sin " + indice + " para " + sql + ":\n" + plan);
+	}
+
+	/**
+	 * Guarda, por hilo, las sentencias SQL que prepara Hibernate.
+	 */
+	public static class RegistroSentencias implements StatementInspector {
+
+		private static final long serialVersionUID = 1L;
+
+		static final ThreadLocal<List<String>> SENTENCIAS = ThreadLocal.withInitial(ArrayList::new);
+
+		@Override
+		public String inspect(String sql) {
+			SENTENCIAS.get().add(sql);
+			return sql;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.viewnext.kidaprojects.apienemigos.restcontroller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+import com.viewnext.kidaprojects.apienemigos.service.MotorCombate;
+
+/**
+ * Comprueba que, con el motor de combate activo, las cabeceras condicionales
+ * de un enemigo reflejan los golpes aplicados en memoria aunque aún no se hayan
+ * volcado y aunque la caché de enemigos conserve la versión anterior.
+ */
+@SpringBootTest(properties = { "enemigos.combate.motor.enabled=true",
+		"enemigos.combate.motor.intervalo-ms=600000" })
+@AutoConfigureMockMvc
+class EnemigoRestControllerMotorCombateTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EnemigoService service;
+
+	@Autowired
+	private MotorCombate motorCombate;
+
+	@Test
+	void golpeEnMemoriaInvalidaETagYLastModified() throws Exception {
+		int idEnemigo = service.createEnemigo(new Enemigo("Quimera", "Jefe", 7, 50, 40, 30, 100)).getIdEnemigo();
+
+		MvcResult primera = mockMvc.perform(get("/enemigo/" + idEnemigo)).andExpect(status().isOk()).andReturn();
+		String etag = primera.getResponse().getHeader(HttpHeaders.ETAG);
+		String ultimaModificacion = primera.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+		// Last-Modified tiene precisión de segundos
+		Thread.sleep(1100);
+		mockMvc.perform(put("/enemigo/" + idEnemigo + "/damage?damage=10")).andExpect(status().isOk());
+
+		mockMvc.perform(get("/enemigo/" + idEnemigo).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.vidaActual").value(90));
+		mockMvc.perform(get("/enemigo/" + idEnemigo).header(HttpHeaders.IF_MODIFIED_SINCE, ultimaModificacion))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.vidaActual").value(90));
+
+		// Tras el volcado la caché sigue con la versión anterior, pero el ETag no retrocede
+		motorCombate.volcar();
+		String etagGolpeado = mockMvc.perform(get("/enemigo/" + idEnemigo)).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(put("/enemigo/" + idEnemigo + "/damage?damage=10")).andExpect(status().isOk());
+
+		mockMvc.perform(get("/enemigo/" + idEnemigo).header(HttpHeaders.IF_NONE_MATCH, etagGolpeado))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.vidaActual").value(80));
+		mockMvc.perform(get("/enemigo/" + idEnemigo).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,472 @@
+package com.viewnext.kidaprojects.apienemigos.restcontroller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.model.PaginaEnemigos;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+import com.viewnext.kidaprojects.apienemigos.service.EnemigoService;
+import com.viewnext.kidaprojects.apienemigos.service.IndiceNiveles;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas de los endpoints de {@code EnemigoRestController} sobre una base de
+ * datos embebida. Las estadísticas de Hibernate se activan para comprobar qué
+ * carga cada endpoint.
+ */
+@SpringBootTest(properties = "enemigos.hibernate.estadisticas.enabled=true")
+@AutoConfigureMockMvc
+class EnemigoRestControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EnemigoRepository enemigoRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private IndiceNiveles indiceNiveles;
+
+	@Autowired
+	private EnemigoService service;
+
+	@Autowired
+	private MappingJackson2CborHttpMessageConverter conversorCbor;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void sembrarEnemigos() {
+		enemigoRepository.deleteAllInBatch();
+		indiceNiveles.recargar();
+		List<Enemigo> enemigos = new ArrayList<>();
+		for (int i = 1; i <= 25; i++) {
+			enemigos.add(new Enemigo("Enemigo " + i, "Descripción " + i, i % 10, i * 10, i, i, 100));
+		}
+		service.createEnemigos(enemigos.iterator());
+	}
+
+	@Test
+	void paginacionPorCursorRecorreTodosLosEnemigosUnaVez() throws Exception {
+		List<Integer> ids = new ArrayList<>();
+		String cursor = null;
+		int paginas = 0;
+
+		do {
+			String url = "/enemigo/pagina?limite=10" + (cursor == null ? "" : "&cursor=" + cursor);
+			String json = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse()
+					.getContentAsString();
+			PaginaEnemigos pagina = objectMapper.readValue(json, PaginaEnemigos.class);
+			pagina.enemigos().forEach(e -> ids.add(e.getIdEnemigo()));
+			cursor = pagina.siguiente();
+			paginas++;
+		} while (cursor != null);
+
+		assertEquals(3, paginas);
+		assertEquals(25, ids.size());
+		assertEquals(ids.stream().sorted().distinct().toList(), ids);
+	}
+
+	@Test
+	void ultimaPaginaNoTieneCursor() throws Exception {
+		String json = mockMvc.perform(get("/enemigo/pagina?limite=100")).andReturn().getResponse()
+				.getContentAsString();
+
+		PaginaEnemigos pagina = objectMapper.readValue(json, PaginaEnemigos.class);
+		assertEquals(25, pagina.enemigos().size());
+		assertNull(pagina.siguiente());
+	}
+
+	@Test
+	void cursorInvalidoDevuelveBadRequest() throws Exception {
+		mockMvc.perform(get("/enemigo/pagina?cursor=@@@")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void ndjsonEscribeUnEnemigoPorLinea() throws Exception {
+		MvcResult resultado = mockMvc.perform(get("/enemigo").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		String cuerpo = mockMvc.perform(asyncDispatch(resultado)).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)).andReturn()
+				.getResponse().getContentAsString();
+
+		String[] lineas = cuerpo.split("\n");
+		assertEquals(25, lineas.length);
+		assertEquals("Enemigo 1", objectMapper.readValue(lineas[0], Enemigo.class).getNombre());
+	}
+
+	@Test
+	void damageEnLoteSumaLosGolpesDelMismoEnemigo() throws Exception {
+		Integer primero = enemigoRepository.findMinIdEnemigo();
+		String golpes = "[{\"idEnemigo\":" + (primero + 1) + ",\"damage\":30},"
+				+ "{\"idEnemigo\":" + primero + ",\"damage\":40},"
+				+ "{\"idEnemigo\":" + (primero + 1) + ",\"damage\":80},"
+				+ "{\"idEnemigo\":-1,\"damage\":10}]";
+
+		mockMvc.perform(post("/enemigo/damage/batch").contentType(MediaType.APPLICATION_JSON).content(golpes))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].idEnemigo").value(primero))
+				.andExpect(jsonPath("$[0].vidaActual").value(60))
+				.andExpect(jsonPath("$[1].vidaActual").value(-10))
+				.andExpect(jsonPath("$[1].vencido").value(true));
+	}
+
+	@Test
+	void creacionEnLoteAceptaArrayJsonYNdjson() throws Exception {
+		String array = "[{\"nombre\":\"Kobold\",\"nivel\":2,\"vidaOriginal\":50,\"vidaActual\":50,\"activo\":true},"
+				+ "{\"nombre\":\"Troll\",\"nivel\":9,\"vidaOriginal\":900,\"vidaActual\":900,\"activo\":true}]";
+		String ndjson = "{\"nombre\":\"Ogro\",\"nivel\":7}\n{\"nombre\":\"Liche\",\"nivel\":15}\n{\"nombre\":\"Gárgola\",\"nivel\":6}\n";
+
+		String idsArray = mockMvc.perform(post("/enemigo/batch").contentType(MediaType.APPLICATION_JSON).content(array))
+				.andExpect(status().isCreated()).andExpect(jsonPath("$.length()").value(2)).andReturn()
+				.getResponse().getContentAsString();
+		mockMvc.perform(post("/enemigo/batch").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+				.andExpect(status().isCreated()).andExpect(jsonPath("$.length()").value(3));
+
+		int idTroll = objectMapper.readValue(idsArray, int[].class)[1];
+		assertEquals("Troll", enemigoRepository.findById(idTroll).get().getNombre());
+		assertEquals(30, enemigoRepository.count());
+	}
+
+	@Test
+	void creacionEnLoteConFormatoInvalidoNoInsertaNada() throws Exception {
+		String ndjson = "{\"nombre\":\"Ogro\",\"nivel\":7}\n{\"nombre\":";
+
+		mockMvc.perform(post("/enemigo/batch").contentType(MediaType.APPLICATION_NDJSON).content(ndjson))
+				.andExpect(status().isBadRequest());
+
+		assertEquals(25, enemigoRepository.count());
+	}
+
+	@Test
+	void enemigoInexistenteIncrementaContadorYTemporizador() throws Exception {
+		double noEncontradosAntes = meterRegistry.counter("enemigos.no.encontrados").count();
+		long llamadasAntes = meterRegistry.get("enemigos.servicio").tag("metodo", "showById").timer().count();
+
+		mockMvc.perform(get("/enemigo/999999")).andExpect(status().isNotFound());
+
+		assertEquals(noEncontradosAntes + 1, meterRegistry.counter("enemigos.no.encontrados").count());
+		assertEquals(llamadasAntes + 1, meterRegistry.get("enemigos.servicio").tag("metodo", "showById").timer().count());
+	}
+
+	@Test
+	void enemigoInexistenteSeRecuerdaHastaQueSeCrea() throws Exception {
+		int siguienteId = enemigoRepository.findMaxIdEnemigo() + 1;
+		double aciertosAntes = meterRegistry.get("cache.gets").tags("cache", "enemigos-inexistentes", "result", "hit")
+				.functionCounter().count();
+
+		mockMvc.perform(get("/enemigo/" + siguienteId)).andExpect(status().isNotFound());
+		mockMvc.perform(get("/enemigo/recompensa/" + siguienteId)).andExpect(status().isNotFound());
+
+		assertEquals(aciertosAntes + 1, meterRegistry.get("cache.gets")
+				.tags("cache", "enemigos-inexistentes", "result", "hit").functionCounter().count());
+
+		mockMvc.perform(post("/enemigo").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new Enemigo("Trasgo", "Duende", 3, 15, 8, 4, 40))))
+				.andExpect(status().isCreated()).andExpect(jsonPath("$.idEnemigo").value(siguienteId));
+
+		mockMvc.perform(get("/enemigo/recompensa/" + siguienteId)).andExpect(status().isOk())
+				.andExpect(content().string("15"));
+	}
+
+	@Test
+	void autocompletarIncluyeEnemigosCreadosYExcluyeDesactivados() throws Exception {
+		String json = mockMvc.perform(post("/enemigo").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new Enemigo("Ñandú Ártico", "Ave", 3, 30, 3, 3, 100))))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+		int idEnemigo = objectMapper.readValue(json, Enemigo.class).getIdEnemigo();
+
+		mockMvc.perform(get("/enemigo/autocompletar?prefijo=nandu ar")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].idEnemigo").value(idEnemigo))
+				.andExpect(jsonPath("$[0].nombre").value("Ñandú Ártico"));
+
+		mockMvc.perform(delete("/enemigo/" + idEnemigo)).andExpect(status().isOk());
+
+		mockMvc.perform(get("/enemigo/autocompletar?prefijo=nandu ar")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void busquedaPorNivelAplicaFiltrosYLimite() throws Exception {
+		// Niveles 0..9: los enemigos 10 y 20 son de nivel 0, los 1, 11 y 21 de nivel 1
+		mockMvc.perform(get("/enemigo/nivel?nivel=1")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(5))
+				.andExpect(jsonPath("$[0].nivel").value(0))
+				.andExpect(jsonPath("$[4].nivel").value(1));
+
+		int idEnemigo = enemigoRepository.findByNivel(0).get(0).getIdEnemigo();
+		mockMvc.perform(delete("/enemigo/" + idEnemigo)).andExpect(status().isOk());
+
+		mockMvc.perform(get("/enemigo/nivel?nivel=1&soloActivos=true")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(4));
+		mockMvc.perform(get("/enemigo/nivel?nivel=1&activo=false")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].idEnemigo").value(idEnemigo));
+		mockMvc.perform(get("/enemigo/nivel?nivel=9&limite=3")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(3));
+		mockMvc.perform(get("/enemigo/nivel?nivel=9&limite=0")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void listadosConFieldsDevuelvenSoloLosCamposDeLaProyeccion() throws Exception {
+		mockMvc.perform(get("/enemigo?fields=resumen")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(25))
+				.andExpect(jsonPath("$[0].nombre").exists())
+				.andExpect(jsonPath("$[0].nivel").exists())
+				.andExpect(jsonPath("$[0].descripcion").doesNotExist())
+				.andExpect(jsonPath("$[0].recompensa").doesNotExist());
+
+		mockMvc.perform(get("/enemigo/nombre?prefijo=Enemigo 2&soloActivos=true&fields=combate"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(7))
+				.andExpect(jsonPath("$[0].vidaActual").value(100))
+				.andExpect(jsonPath("$[0].fuerza").exists())
+				.andExpect(jsonPath("$[0].nombre").doesNotExist());
+
+		mockMvc.perform(get("/enemigo/nivel?nivel=1&fields=RESUMEN")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(5))
+				.andExpect(jsonPath("$[0].descripcion").doesNotExist());
+
+		mockMvc.perform(get("/enemigo/nombre?prefijo=Nadie&fields=resumen")).andExpect(status().isNotFound());
+		mockMvc.perform(get("/enemigo?fields=todo")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void losComodinesDelPrefijoSeBuscanLiteralmente() throws Exception {
+		service.createEnemigo(new Enemigo("100% Limo", "Viscoso", 1, 5, 1, 1, 20));
+
+		mockMvc.perform(get("/enemigo/nombre").param("prefijo", "100%").param("fields", "resumen"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1));
+		mockMvc.perform(get("/enemigo/nombre").param("prefijo", "%").param("fields", "resumen"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/enemigo/nombre").param("prefijo", "Enemigo_1").param("fields", "resumen"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void recompensaSeLeeSinCargarElEnemigo() throws Exception {
+		Enemigo enemigo = enemigoRepository.findByNombrePrefijo("Enemigo 7").get(0);
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		mockMvc.perform(get("/enemigo/recompensa/" + enemigo.getIdEnemigo())).andExpect(status().isOk())
+				.andExpect(content().string("70"));
+		assertEquals(0, estadisticas.getEntityLoadCount());
+		assertEquals(0, estadisticas.getSecondLevelCacheHitCount());
+		assertEquals(1, estadisticas.getQueryExecutionCount());
+		mockMvc.perform(get("/enemigo/recompensa/" + (enemigo.getIdEnemigo() + 1000)))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void enemigoSinCambiosDevuelveNotModified() throws Exception {
+		int idEnemigo = enemigoRepository.findByNombrePrefijo("Enemigo 3").get(0).getIdEnemigo();
+
+		MvcResult primera = mockMvc.perform(get("/enemigo/" + idEnemigo)).andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED)).andReturn();
+		String etag = primera.getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/enemigo/" + idEnemigo).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		mockMvc.perform(get("/enemigo/" + idEnemigo).header(HttpHeaders.IF_MODIFIED_SINCE,
+				primera.getResponse().getHeader(HttpHeaders.LAST_MODIFIED)))
+				.andExpect(status().isNotModified());
+
+		mockMvc.perform(put("/enemigo/" + idEnemigo + "/damage?damage=10")).andExpect(status().isOk());
+
+		String nuevaEtag = mockMvc.perform(get("/enemigo/" + idEnemigo).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.vidaActual").value(90))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(etag, nuevaEtag);
+	}
+
+	@Test
+	void listadoSinCambiosDevuelveNotModifiedHastaLaSiguienteEscritura() throws Exception {
+		String etag = mockMvc.perform(get("/enemigo")).andExpect(status().isOk()).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/enemigo").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/enemigo/nivel?nivel=3").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+
+		mockMvc.perform(post("/enemigo").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new Enemigo("Nuevo", "Nuevo", 1, 1, 1, 1, 10))))
+				.andExpect(status().isCreated());
+
+		mockMvc.perform(get("/enemigo").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(26));
+	}
+
+	@Test
+	void cadaRepresentacionTieneSuPropioETag() throws Exception {
+		String json = mockMvc.perform(get("/enemigo")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String cbor = mockMvc.perform(get("/enemigo").accept(MediaType.APPLICATION_CBOR)).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+		String gzip = mockMvc.perform(get("/enemigo").header(HttpHeaders.ACCEPT_ENCODING, "gzip")).andReturn()
+				.getResponse().getHeader(HttpHeaders.ETAG);
+		assertEquals(3, List.of(json, cbor, gzip).stream().distinct().count());
+
+		mockMvc.perform(get("/enemigo").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.header(HttpHeaders.IF_NONE_MATCH, json))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+		mockMvc.perform(get("/enemigo").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+				.andExpect(status().isNotModified());
+
+		int idEnemigo = enemigoRepository.findByNombrePrefijo("Enemigo 3").get(0).getIdEnemigo();
+		String enemigoJson = mockMvc.perform(get("/enemigo/" + idEnemigo)).andReturn().getResponse()
+				.getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/enemigo/" + idEnemigo).accept(MediaType.APPLICATION_CBOR)
+				.header(HttpHeaders.IF_NONE_MATCH, enemigoJson))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+	}
+
+	@Test
+	void listadoRepetidoSeSirveDesdeLaCacheDeRespuestasYAceptaGzip() throws Exception {
+		String primera = mockMvc.perform(get("/enemigo/nivel?nivel=4")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+		double fallos = meterRegistry.get("cache.gets").tags("cache", "respuestas", "result", "miss")
+				.functionCounter().count();
+
+		mockMvc.perform(get("/enemigo/nivel?nivel=4")).andExpect(status().isOk())
+				.andExpect(content().json(primera, true));
+		byte[] comprimido = mockMvc.perform(get("/enemigo/nivel?nivel=4").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertEquals(fallos, meterRegistry.get("cache.gets").tags("cache", "respuestas", "result", "miss")
+				.functionCounter().count());
+		try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(comprimido))) {
+			assertEquals(primera, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+		}
+
+		int idEnemigo = enemigoRepository.findByNivel(0).get(0).getIdEnemigo();
+		mockMvc.perform(delete("/enemigo/" + idEnemigo)).andExpect(status().isOk());
+
+		mockMvc.perform(get("/enemigo/nivel?nivel=4&soloActivos=true")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.idEnemigo == " + idEnemigo + ")]").isEmpty());
+		mockMvc.perform(get("/enemigo/nivel?nivel=4")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.idEnemigo == " + idEnemigo + ")].activo").value(false));
+	}
+
+	@Test
+	void enemigoYListadosSeNegocianEnCbor() throws Exception {
+		ObjectMapper cbor = conversorCbor.getObjectMapper();
+		Enemigo guardado = enemigoRepository.findByNivel(4).get(0);
+
+		byte[] enemigo = mockMvc.perform(get("/enemigo/" + guardado.getIdEnemigo()).accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+		Enemigo leido = cbor.readValue(enemigo, Enemigo.class);
+		assertEquals(guardado.getNombre(), leido.getNombre());
+		assertEquals(guardado.getUltimaModificacion().toEpochMilli(), leido.getUltimaModificacion().toEpochMilli());
+
+		String json = mockMvc.perform(get("/enemigo/nivel?nivel=4&fields=resumen")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+		byte[] lista = mockMvc.perform(get("/enemigo/nivel?nivel=4&fields=resumen")
+				.header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+				.andExpect(status().isOk()).andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertEquals(objectMapper.readTree(json), cbor.readTree(lista));
+	}
+
+	@Test
+	void creacionAceptaCuerposCbor() throws Exception {
+		ObjectMapper cbor = conversorCbor.getObjectMapper();
+		Enemigo kobold = new Enemigo("Kobold", "Pequeño y ruidoso", 2, 5, 3, 2, 50);
+
+		byte[] creado = mockMvc.perform(post("/enemigo").contentType(MediaType.APPLICATION_CBOR)
+				.accept(MediaType.APPLICATION_CBOR).content(cbor.writeValueAsBytes(kobold)))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsByteArray();
+		assertEquals("Kobold", cbor.readValue(creado, Enemigo.class).getNombre());
+
+		// Secuencia CBOR: los enemigos se escriben uno tras otro, sin array
+		ByteArrayOutputStream secuencia = new ByteArrayOutputStream();
+		secuencia.write(cbor.writeValueAsBytes(new Enemigo("Ogro", null, 7, 70, 9, 6, 300)));
+		secuencia.write(cbor.writeValueAsBytes(new Enemigo("Liche", null, 15, 150, 12, 8, 500)));
+		mockMvc.perform(post("/enemigo/batch").contentType(MediaType.APPLICATION_CBOR)
+				.content(secuencia.toByteArray()))
+				.andExpect(status().isCreated()).andExpect(jsonPath("$.length()").value(2));
+
+		assertEquals(28, enemigoRepository.count());
+	}
+
+	@Test
+	void suscripcionRecibeElEstadoInicialYLosCambiosDeVida() throws Exception {
+		int idEnemigo = enemigoRepository.findByNivel(3).get(0).getIdEnemigo();
+		double activas = meterRegistry.get("enemigos.suscripciones.activas").gauge().value();
+
+		MvcResult resultado = mockMvc.perform(get("/enemigo/suscripcion?ids=" + idEnemigo + ",999999")
+				.accept(MediaType.TEXT_EVENT_STREAM)).andExpect(request().asyncStarted()).andReturn();
+		esperarEvento(resultado, "\"vidaActual\":100");
+
+		mockMvc.perform(put("/enemigo/" + idEnemigo + "/damage").param("damage", "30")).andExpect(status().isOk());
+		String eventos = esperarEvento(resultado, "\"vidaActual\":70");
+		assertEquals("event:cambios", eventos.lines().filter(l -> l.startsWith("event:")).findFirst().get());
+		assertEquals(activas + 1, meterRegistry.get("enemigos.suscripciones.activas").gauge().value());
+
+		resultado.getRequest().getAsyncContext().complete();
+		assertEquals(activas, meterRegistry.get("enemigos.suscripciones.activas").gauge().value());
+	}
+
+	private static String esperarEvento(MvcResult resultado, String contenido) throws Exception {
+		long limite = System.nanoTime() + 5_000_000_000L;
+		String eventos = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8);
+		while (!eventos.contains(contenido) && System.nanoTime() < limite) {
+			Thread.sleep(10);
+			eventos = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8);
+		}
+		assertTrue(eventos.contains(contenido), eventos);
+		return eventos;
+	}
+}
@@ -0,0 +1,138 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+/**
+ * Comprueba que el acumulador de daño agrupa los golpes de cada enemigo en una
+ * sola escritura sin perder ninguno, ni siquiera al retirar los enemigos
+ * inactivos.
+ */
+@SpringBootTest(properties = { "enemigos.damage.write-behind.enabled=true",
+		"enemigos.damage.write-behind.intervalo-ms=600000",
+		"enemigos.damage.write-behind.umbral-golpes=1000000",
+		"enemigos.damage.write-behind.inactividad-ms=0" })
+class AcumuladorDamageTests {
+
+	private static final int HILOS = 32;
+	private static final int GOLPES = 4000;
+
+	@Autowired
+	private EnemigoService service;
+
+	@Autowired
+	private AcumuladorDamage acumuladorDamage;
+
+	@Autowired
+	private EnemigoRepository enemigoRepository;
+
+	@Test
+	void agrupaLosGolpesEnUnaEscrituraPorEnemigo() throws Exception {
+		Enemigo dragon = service.createEnemigo(new Enemigo("Dragón", "Jefe", 10, 1000, 90, 70, 100_000));
+		Enemigo orco = service.createEnemigo(new Enemigo("Orco", "Guerrero", 5, 300, 60, 40, 100_000));
+		long escriturasPrevias = acumuladorDamage.getEscriturasBdd();
+
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+		List<Callable<Enemigo>> golpes = new ArrayList<>();
+		for (int i = 0; i < GOLPES; i++) {
+			int idEnemigo = i % 2 == 0 ? dragon.getIdEnemigo() : orco.getIdEnemigo();
+			golpes.add(() -> service.updateVida(idEnemigo, 5));
+		}
+		for (Future<Enemigo> golpe : executor.invokeAll(golpes)) {
+			golpe.get();
+		}
+		executor.shutdown();
+
+		int vidaEsperada = 100_000 - GOLPES / 2 * 5;
+		assertEquals(vidaEsperada, service.updateVida(dragon.getIdEnemigo(), 0).getVidaActual());
+		assertEquals(100_000, enemigoRepository.findById(dragon.getIdEnemigo()).get().getVidaActual());
+
+		acumuladorDamage.volcar();
+
+		assertEquals(2, acumuladorDamage.getEscriturasBdd() - escriturasPrevias);
+		assertEquals(vidaEsperada, enemigoRepository.findById(dragon.getIdEnemigo()).get().getVidaActual());
+		assertEquals(vidaEsperada, enemigoRepository.findById(orco.getIdEnemigo()).get().getVidaActual());
+	}
+
+	@Test
+	void retiraLosEnemigosVolcadosEInactivosSinPerderGolpes() throws Exception {
+		Enemigo troll = service.createEnemigo(new Enemigo("Troll", "Puente", 6, 400, 70, 50, 100_000));
+		service.updateVida(troll.getIdEnemigo(), 5);
+		acumuladorDamage.volcar();
+		int acumulados = acumuladorDamage.getEnemigosAcumulados();
+
+		// Un volcado sin daño pendiente retira el enemigo, y el siguiente golpe lo vuelve a leer
+		acumuladorDamage.volcar();
+		assertEquals(acumulados - 1, acumuladorDamage.getEnemigosAcumulados());
+		assertEquals(99_990, service.updateVida(troll.getIdEnemigo(), 5).getVidaActual());
+
+		// Los golpes que coinciden con una retirada se registran en la entrada nueva
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+		List<Callable<Enemigo>> golpes = new ArrayList<>();
+		for (int i = 0; i < GOLPES; i++) {
+			golpes.add(() -> service.updateVida(troll.getIdEnemigo(), 1));
+		}
+		Future<?> volcados = executor.submit(() -> {
+			for (int i = 0; i < 200; i++) {
+				acumuladorDamage.volcar();
+			}
+		});
+		for (Future<Enemigo> golpe : executor.invokeAll(golpes)) {
+			golpe.get();
+		}
+		volcados.get();
+		executor.shutdown();
+
+		acumuladorDamage.volcar();
+		assertEquals(99_990 - GOLPES, enemigoRepository.findById(troll.getIdEnemigo()).get().getVidaActual());
+	}
+
+	@Test
+	void acotaElDamageDeCadaEscrituraAlRangoDeUnInt() {
+		Enemigo titan = service.createEnemigo(new Enemigo("Titán", "Jefe", 10, 1000, 99, 99, 100));
+		int golpe = Integer.MAX_VALUE / 2 + 1;
+
+		service.updateVida(titan.getIdEnemigo(), golpe);
+		long vidaEsperada = 100L - 2L * golpe;
+		assertEquals(vidaEsperada, service.updateVida(titan.getIdEnemigo(), golpe).getVidaActual());
+
+		acumuladorDamage.volcar();
+		assertEquals(100 - Integer.MAX_VALUE,
+				enemigoRepository.findById(titan.getIdEnemigo()).get().getVidaActual());
+		acumuladorDamage.volcar();
+		assertEquals(vidaEsperada, enemigoRepository.findById(titan.getIdEnemigo()).get().getVidaActual());
+	}
+
+	@Test
+	void otrasEscriturasRefrescanElEstadoAcumulado() {
+		Enemigo lobo = service.createEnemigo(new Enemigo("Lobo", "Gigante", 4, 500, 50, 35, 40));
+
+		service.updateVida(lobo.getIdEnemigo(), 15);
+		service.setEstadoInactivo(lobo.getIdEnemigo());
+		Enemigo resultado = service.updateVida(lobo.getIdEnemigo(), 25);
+
+		assertFalse(resultado.isActivo());
+		assertEquals(0, resultado.getVidaActual());
+		assertTrue(resultado.isVencido());
+
+		acumuladorDamage.volcar();
+		Enemigo persistido = enemigoRepository.findById(lobo.getIdEnemigo()).get();
+		assertEquals(0, persistido.getVidaActual());
+		assertTrue(persistido.isVencido());
+	}
+}
@@ -0,0 +1,215 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@code CacheEnemigos} con instancias propias, para controlar las
+ * lecturas que llegan a la base de datos: aciertos y fallos, invalidación tras
+ * las escrituras, caducidad, tamaño máximo y lecturas concurrentes con altas.
+ */
+@SpringBootTest
+class CacheEnemigosTests {
+
+	@Autowired
+	private EnemigoRepository enemigoRepository;
+
+	@Autowired
+	private EnrutadorShards enrutadorShards;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void soloLosFallosLeenDeLaBaseDeDatos() {
+		int idEnemigo = crearEnemigos(1)[0];
+		AtomicInteger lecturas = new AtomicInteger();
+		CacheEnemigos cacheEnemigos = crearCache("findById", contarLecturas(lecturas));
+
+		assertEquals(idEnemigo, cacheEnemigos.buscar(idEnemigo).get().getIdEnemigo());
+		assertEquals(idEnemigo, cacheEnemigos.buscar(idEnemigo).get().getIdEnemigo());
+		assertEquals(1, lecturas.get());
+		assertEquals(1, cacheEnemigos.getEstadisticas().aciertos());
+		assertEquals(1, cacheEnemigos.getEstadisticas().fallos());
+
+		// Los enemigos inexistentes también se recuerdan
+		assertTrue(cacheEnemigos.buscar(-1).isEmpty());
+		assertTrue(cacheEnemigos.buscar(-1).isEmpty());
+		assertTrue(cacheEnemigos.esInexistente(-1));
+		assertEquals(2, lecturas.get());
+	}
+
+	@Test
+	void lasEscriturasInvalidanOSustituyenLaEntrada() {
+		int idEnemigo = crearEnemigos(1)[0];
+		AtomicInteger lecturas = new AtomicInteger();
+		CacheEnemigos cacheEnemigos = crearCache("findById", contarLecturas(lecturas));
+		Enemigo leido = cacheEnemigos.buscar(idEnemigo).get();
+
+		cacheEnemigos.invalidar(idEnemigo);
+		assertTrue(cacheEnemigos.buscarSiPresente(idEnemigo).isEmpty());
+		cacheEnemigos.buscar(idEnemigo);
+		assertEquals(2, lecturas.get());
+
+		// Una escritura guarda el estado nuevo, pero no sustituye uno posterior
+		Enemigo golpeado = new Enemigo(leido);
+		golpeado.setVidaActual(leido.getVidaActual() - 10);
+		golpeado.setVersion(leido.getVersion() + 1);
+		cacheEnemigos.actualizar(golpeado);
+		cacheEnemigos.actualizar(leido);
+		assertEquals(golpeado.getVidaActual(), cacheEnemigos.buscar(idEnemigo).get().getVidaActual());
+
+		cacheEnemigos.invalidarTodo();
+		cacheEnemigos.buscar(idEnemigo);
+		assertEquals(3, lecturas.get());
+	}
+
+	@Test
+	void lasEntradasCaducanTrasElTtl() throws Exception {
+		int idEnemigo = crearEnemigos(1)[0];
+		AtomicInteger lecturas = new AtomicInteger();
+		CacheEnemigos cacheEnemigos = crearCache("findById", contarLecturas(lecturas), 100, 1, 1000, 1000);
+
+		cacheEnemigos.buscar(idEnemigo);
+		cacheEnemigos.buscar(idEnemigo);
+		assertEquals(1, lecturas.get());
+
+		Thread.sleep(1100);
+		assertTrue(cacheEnemigos.buscarSiPresente(idEnemigo).isEmpty());
+		cacheEnemigos.buscar(idEnemigo);
+		assertEquals(2, lecturas.get());
+	}
+
+	@Test
+	void noGuardaMasEnemigosQueElTamanoMaximo() throws Exception {
+		int[] ids = crearEnemigos(5);
+		CacheEnemigos cacheEnemigos = crearCache("findById", contarLecturas(new AtomicInteger()), 2, 300, 1000,
+				1000);
+
+		for (int id : ids) {
+			cacheEnemigos.buscar(id);
+		}
+
+		// Caffeine expulsa las entradas sobrantes en segundo plano
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (cacheEnemigos.getEstadisticas().tamano() > 2 && System.nanoTime() < limite) {
+			Thread.sleep(10);
+		}
+		assertTrue(cacheEnemigos.getEstadisticas().tamano() <= 2);
+		assertTrue(cacheEnemigos.getEstadisticas().expulsiones() >= 3);
+	}
+
+	@Test
+	void unaLecturaAnteriorALaCreacionNoMarcaElEnemigoComoInexistente() throws Exception {
+		Enemigo creado = enemigoRepository.save(new Enemigo("Espectro", "Fantasma", 3, 50, 20, 10, 60));
+		CountDownLatch leyendo = new CountDownLatch(1);
+		CountDownLatch continuar = new CountDownLatch(1);
+
+		// La lectura empieza antes de la creación y no ve el enemigo
+		CacheEnemigos cacheEnemigos = crearCache("findAllById", (proxy, metodo, argumentos) -> {
+			leyendo.countDown();
+			continuar.await();
+			return List.of();
+		});
+		CompletableFuture<List<Enemigo>> lectura = CompletableFuture
+				.supplyAsync(() -> cacheEnemigos.buscarTodos(new int[] { creado.getIdEnemigo() }));
+		assertTrue(leyendo.await(10, TimeUnit.SECONDS));
+
+		cacheEnemigos.creado(creado);
+		continuar.countDown();
+		lectura.get(10, TimeUnit.SECONDS);
+
+		assertFalse(cacheEnemigos.esInexistente(creado.getIdEnemigo()));
+		assertTrue(cacheEnemigos.buscar(creado.getIdEnemigo()).isPresent());
+	}
+
+	@Test
+	void losRecorridosGrandesSeLeenPorBloquesSinRellenarLaCache() {
+		int[] ids = crearEnemigos(5);
+		List<Integer> consultas = new CopyOnWriteArrayList<>();
+		CacheEnemigos cacheEnemigos = crearCache("findAllById", (proxy, metodo, argumentos) -> {
+			Collection<?> bloque = (Collection<?>) argumentos[0];
+			consultas.add(bloque.size());
+			return metodo.invoke(enemigoRepository, argumentos);
+		}, 2, 3);
+
+		assertEquals(5, cacheEnemigos.buscarRecorrido(ids).size());
+		assertEquals(List.of(2, 2, 1), consultas);
+		assertEquals(0, cacheEnemigos.getEstadisticas().tamano());
+
+		consultas.clear();
+		assertEquals(3, cacheEnemigos.buscarRecorrido(Arrays.copyOf(ids, 3)).size());
+		assertEquals(List.of(2, 1), consultas);
+		assertEquals(3, cacheEnemigos.getEstadisticas().tamano());
+
+		// Los enemigos ya guardados no se vuelven a leer
+		consultas.clear();
+		assertEquals(List.of(ids[0], ids[1], ids[2], ids[3], ids[4]),
+				cacheEnemigos.buscarRecorrido(ids).stream().map(Enemigo::getIdEnemigo).toList());
+		assertEquals(List.of(2), consultas);
+	}
+
+	private int[] crearEnemigos(int cantidad) {
+		int[] ids = new int[cantidad];
+		for (int i = 0; i < cantidad; i++) {
+			ids[i] = enemigoRepository.save(new Enemigo("Trasgo " + i, "Cueva", 1, 10, 10, 10, 30)).getIdEnemigo();
+		}
+		return ids;
+	}
+
+	/**
+	 * Cuenta las llamadas al repositorio y las deja llegar a la base de datos.
+	 */
+	private InvocationHandler contarLecturas(AtomicInteger lecturas) {
+		return (proxy, metodo, argumentos) -> {
+			lecturas.incrementAndGet();
+			return metodo.invoke(enemigoRepository, argumentos);
+		};
+	}
+
+	private CacheEnemigos crearCache(String nombreMetodo, InvocationHandler manejador) {
+		return crearCache(nombreMetodo, manejador, 1000, 1000);
+	}
+
+	private CacheEnemigos crearCache(String nombreMetodo, InvocationHandler manejador, int tamanoBloque,
+			int rellenoMaximo) {
+		return crearCache(nombreMetodo, manejador, 100, 300, tamanoBloque, rellenoMaximo);
+	}
+
+	/**
+	 * Crea una caché cuyas llamadas al método indicado del repositorio responde el
+	 * manejador; el resto llegan a la base de datos.
+	 */
+	private CacheEnemigos crearCache(String nombreMetodo, InvocationHandler manejador, long tamanoMaximo,
+			long ttlSegundos, int tamanoBloque, int rellenoMaximo) {
+		EnemigoRepository repositorio = (EnemigoRepository) Proxy.newProxyInstance(
+				EnemigoRepository.class.getClassLoader(), new Class<?>[] { EnemigoRepository.class },
+				(proxy, metodo, argumentos) -> metodo.getName().equals(nombreMetodo)
+						? manejador.invoke(proxy, metodo, argumentos)
+						: metodo.invoke(enemigoRepository, argumentos));
+		return new CacheEnemigos(repositorio, enrutadorShards, transactionTemplate, new SimpleMeterRegistry(),
+				tamanoMaximo, ttlSegundos, 100, 60, tamanoBloque, rellenoMaximo);
+	}
+}
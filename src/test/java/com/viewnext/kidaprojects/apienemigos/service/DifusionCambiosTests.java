@@ -0,0 +1,179 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.viewnext.kidaprojects.apienemigos.model.CambioEnemigo;
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la difusión de cambios a los suscriptores, sin base de datos ni
+ * servidor web.
+ */
+class DifusionCambiosTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private DifusionCambios difusion;
+
+	@AfterEach
+	void cerrar() {
+		difusion.cerrar();
+	}
+
+	@Test
+	void agrupaLosCambiosDelMismoEnemigoMientrasElEnvioAnteriorNoTermina() throws Exception {
+		difusion = new DifusionCambios(meterRegistry, 10, 100, 2, 60_000);
+		CountDownLatch primerEnvio = new CountDownLatch(1);
+		CountDownLatch continuar = new CountDownLatch(1);
+		BlockingQueue<List<CambioEnemigo>> recibidos = new LinkedBlockingQueue<>();
+
+		difusion.suscribir(Set.of(1, 2), cambios -> {
+			recibidos.add(cambios);
+			primerEnvio.countDown();
+			esperar(continuar);
+		}, () -> {
+		});
+
+		difusion.publicar(enemigo(1, 100));
+		assertTrue(primerEnvio.await(5, TimeUnit.SECONDS));
+		difusion.publicar(enemigo(1, 90));
+		difusion.publicar(enemigo(3, 70));
+		difusion.publicar(enemigo(2, 50));
+		difusion.publicar(enemigo(1, 80));
+		continuar.countDown();
+
+		assertEquals(List.of(new CambioEnemigo(1, 100, false, true, 0)), recibidos.poll(5, TimeUnit.SECONDS));
+		assertEquals(List.of(new CambioEnemigo(1, 80, false, true, 0), new CambioEnemigo(2, 50, false, true, 0)),
+				recibidos.poll(5, TimeUnit.SECONDS));
+		assertEquals(1, meterRegistry.get("enemigos.suscripciones.cambios.agrupados").functionCounter().count());
+	}
+
+	@Test
+	void alAgruparConservaElEstadoDeMayorVersion() throws Exception {
+		difusion = new DifusionCambios(meterRegistry, 10, 100, 2, 60_000);
+		CountDownLatch primerEnvio = new CountDownLatch(1);
+		CountDownLatch continuar = new CountDownLatch(1);
+		BlockingQueue<List<CambioEnemigo>> recibidos = new LinkedBlockingQueue<>();
+
+		DifusionCambios.Suscripcion suscripcion = difusion.suscribir(Set.of(1), cambios -> {
+			recibidos.add(cambios);
+			primerEnvio.countDown();
+			esperar(continuar);
+		}, () -> {
+		});
+
+		difusion.publicar(enemigo(1, 100));
+		assertTrue(primerEnvio.await(5, TimeUnit.SECONDS));
+		// Dos escrituras publican en orden inverso al de sus versiones
+		difusion.publicar(enemigo(1, 70, 3));
+		difusion.publicar(enemigo(1, 80, 2));
+		suscripcion.enviarEstado(enemigo(1, 90, 1));
+		continuar.countDown();
+
+		recibidos.poll(5, TimeUnit.SECONDS);
+		assertEquals(List.of(new CambioEnemigo(1, 70, false, true, 3)), recibidos.poll(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void rechazaLasSuscripcionesPorEncimaDelMaximo() {
+		difusion = new DifusionCambios(meterRegistry, 10, 2, 2, 60_000);
+		DifusionCambios.Suscripcion primera = difusion.suscribir(Set.of(1), cambios -> {
+		}, () -> {
+		});
+		difusion.suscribir(Set.of(2), cambios -> {
+		}, () -> {
+		});
+
+		assertThrows(SuscripcionesAgotadasException.class, () -> difusion.suscribir(Set.of(3), cambios -> {
+		}, () -> {
+		}));
+
+		primera.cancelar();
+		difusion.suscribir(Set.of(3), cambios -> {
+		}, () -> {
+		});
+		assertEquals(Set.of(2, 3), difusion.getIdsSuscritos());
+	}
+
+	@Test
+	void descartaAlSuscriptorQueNoLeeLosCambiosATiempo() throws Exception {
+		difusion = new DifusionCambios(meterRegistry, 10, 100, 2, 50);
+		CountDownLatch enviando = new CountDownLatch(1);
+		CountDownLatch bloqueado = new CountDownLatch(1);
+		CountDownLatch descartado = new CountDownLatch(1);
+
+		difusion.suscribir(Set.of(1), cambios -> {
+			enviando.countDown();
+			esperar(bloqueado);
+		}, descartado::countDown);
+		difusion.publicar(enemigo(1, 100));
+		assertTrue(enviando.await(5, TimeUnit.SECONDS));
+		difusion.publicar(enemigo(1, 90));
+
+		assertTrue(descartado.await(5, TimeUnit.SECONDS));
+		assertTrue(difusion.getIdsSuscritos().isEmpty());
+		assertEquals(1, meterRegistry.get("enemigos.suscripciones.descartadas").functionCounter().count());
+		bloqueado.countDown();
+	}
+
+	@Test
+	void cancelaLaSuscripcionSiElClienteSeDesconectaYRechazaConjuntosNoValidos() throws Exception {
+		difusion = new DifusionCambios(meterRegistry, 2, 100, 2, 60_000);
+		CountDownLatch intentos = new CountDownLatch(1);
+
+		difusion.suscribir(Set.of(1, 2), cambios -> {
+			intentos.countDown();
+			throw new IOException("Conexión cerrada");
+		}, () -> {
+		});
+		difusion.publicar(enemigo(2, 10));
+
+		assertTrue(intentos.await(5, TimeUnit.SECONDS));
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!difusion.getIdsSuscritos().isEmpty() && System.nanoTime() < limite) {
+			Thread.sleep(10);
+		}
+		assertTrue(difusion.getIdsSuscritos().isEmpty());
+
+		assertThrows(ParametroInvalidoException.class, () -> difusion.suscribir(Set.of(), cambios -> {
+		}, () -> {
+		}));
+		assertThrows(ParametroInvalidoException.class, () -> difusion.suscribir(Set.of(1, 2, 3), cambios -> {
+		}, () -> {
+		}));
+	}
+
+	private static Enemigo enemigo(int idEnemigo, int vidaActual) {
+		return enemigo(idEnemigo, vidaActual, 0);
+	}
+
+	private static Enemigo enemigo(int idEnemigo, int vidaActual, long version) {
+		Enemigo enemigo = new Enemigo("Enemigo " + idEnemigo, null, 1, 10, 5, 5, 100);
+		enemigo.setIdEnemigo(idEnemigo);
+		enemigo.setVidaActual(vidaActual);
+		enemigo.setVersion(version);
+		return enemigo;
+	}
+
+	private static void esperar(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
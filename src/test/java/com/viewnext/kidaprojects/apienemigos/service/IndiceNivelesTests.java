@@ -0,0 +1,86 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.viewnext.kidaprojects.apienemigos.model.EntradaIndiceNivel;
+
+/**
+ * Pruebas del índice de enemigos por nivel en memoria, sin base de datos.
+ */
+class IndiceNivelesTests {
+
+	@Test
+	void devuelveLosEnemigosHastaElNivelOrdenadosPorNivelEIdentificador() {
+		IndiceNiveles indice = new IndiceNiveles(null, null);
+		indice.agregar(List.of(entrada(5, 3), entrada(2, 1), entrada(9, 3)));
+		indice.agregar(List.of(entrada(7, 2), entrada(1, 3), entrada(4, 0)));
+
+		assertArrayEquals(new int[] { 4, 2, 7 }, indice.buscar(2, null, null, Integer.MAX_VALUE));
+		assertArrayEquals(new int[] { 4, 2, 7, 1, 5, 9 }, indice.buscar(100, null, null, Integer.MAX_VALUE));
+		assertArrayEquals(new int[] { 4, 2 }, indice.buscar(Integer.MAX_VALUE, null, null, 2));
+		assertArrayEquals(new int[0], indice.buscar(-1, null, null, Integer.MAX_VALUE));
+	}
+
+	@Test
+	void filtraPorEstadoYReflejaLosCambios() {
+		IndiceNiveles indice = new IndiceNiveles(null, null);
+		indice.agregar(List.of(entrada(1, 1), entrada(2, 1), entrada(3, 2)));
+
+		indice.actualizarEstado(new EntradaIndiceNivel(2, 1, true, true));
+		indice.actualizarEstado(new EntradaIndiceNivel(3, 2, false, false));
+
+		assertArrayEquals(new int[] { 1 }, indice.buscar(5, true, false, Integer.MAX_VALUE));
+		assertArrayEquals(new int[] { 2 }, indice.buscar(5, null, true, Integer.MAX_VALUE));
+		assertArrayEquals(new int[] { 3 }, indice.buscar(5, false, null, Integer.MAX_VALUE));
+	}
+
+	@Test
+	void conservaLosEstadosAlAnadirNuevosNiveles() {
+		IndiceNiveles indice = new IndiceNiveles(null, null);
+		indice.agregar(List.of(entrada(1, 5), entrada(2, 7)));
+		indice.actualizarEstado(new EntradaIndiceNivel(2, 7, false, true));
+
+		indice.agregar(List.of(entrada(3, 1), entrada(4, 10)));
+
+		assertArrayEquals(new int[] { 3, 1, 2, 4 }, indice.buscar(10, null, null, Integer.MAX_VALUE));
+		assertArrayEquals(new int[] { 2 }, indice.buscar(10, false, true, Integer.MAX_VALUE));
+	}
+
+	@Test
+	void coincideConUnRecorridoCompletoTrasVariasAltas() {
+		Random aleatorio = new Random(42);
+		IndiceNiveles indice = new IndiceNiveles(null, null);
+		List<EntradaIndiceNivel> todas = new ArrayList<>();
+
+		for (int lote = 0; lote < 20; lote++) {
+			List<EntradaIndiceNivel> nuevas = new ArrayList<>();
+			for (int i = 0; i < 50; i++) {
+				nuevas.add(new EntradaIndiceNivel(todas.size() + nuevas.size() + 1, aleatorio.nextInt(30),
+						aleatorio.nextBoolean(), aleatorio.nextBoolean()));
+			}
+			indice.agregar(nuevas);
+			todas.addAll(nuevas);
+		}
+
+		todas.sort(Comparator.comparingInt(EntradaIndiceNivel::nivel).thenComparingInt(EntradaIndiceNivel::idEnemigo));
+		for (int nivel = -1; nivel <= 30; nivel += 3) {
+			int n = nivel;
+			int[] esperados = todas.stream().filter(e -> e.nivel() <= n && e.activo() && !e.vencido())
+					.mapToInt(EntradaIndiceNivel::idEnemigo).toArray();
+			assertArrayEquals(esperados, indice.buscar(nivel, true, false, Integer.MAX_VALUE));
+		}
+		assertEquals(1000, indice.getTamano());
+	}
+
+	private static EntradaIndiceNivel entrada(int idEnemigo, int nivel) {
+		return new EntradaIndiceNivel(idEnemigo, nivel, true, false);
+	}
+}
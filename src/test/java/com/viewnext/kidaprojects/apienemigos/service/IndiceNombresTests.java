@@ -0,0 +1,59 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.viewnext.kidaprojects.apienemigos.model.SugerenciaNombre;
+
+/**
+ * Pruebas del índice de nombres en memoria, sin base de datos.
+ */
+class IndiceNombresTests {
+
+	private IndiceNombres indice;
+
+	@BeforeEach
+	void crearIndice() {
+		indice = new IndiceNombres(null, null);
+		indice.agregar(1, "Dragón de Fuego");
+		indice.agregar(2, "Dragón de Hielo");
+		indice.agregar(3, "Draco");
+		indice.agregar(4, "Orco Guerrero");
+		indice.agregar(5, "dragon de fuego");
+	}
+
+	@Test
+	void buscaSinDistinguirMayusculasNiAcentos() {
+		List<Integer> ids = indice.buscar("DRAGÓN", 10).stream().map(SugerenciaNombre::idEnemigo).toList();
+
+		assertEquals(List.of(1, 5, 2), ids);
+	}
+
+	@Test
+	void respetaElLimiteYElOrdenAlfabetico() {
+		List<SugerenciaNombre> sugerencias = indice.buscar("dra", 2);
+
+		assertEquals(List.of(new SugerenciaNombre(3, "Draco"), new SugerenciaNombre(1, "Dragón de Fuego")),
+				sugerencias);
+	}
+
+	@Test
+	void eliminarQuitaSoloElEnemigoIndicado() {
+		indice.eliminar(1, "Dragón de Fuego");
+
+		List<Integer> ids = indice.buscar("dragon de f", 10).stream().map(SugerenciaNombre::idEnemigo).toList();
+
+		assertEquals(List.of(5), ids);
+		assertEquals(4, indice.getTamano());
+	}
+
+	@Test
+	void prefijoSinCoincidenciasDevuelveListaVacia() {
+		assertTrue(indice.buscar("zzz", 10).isEmpty());
+	}
+}
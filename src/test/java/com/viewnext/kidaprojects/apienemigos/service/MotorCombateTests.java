@@ -0,0 +1,113 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Comprueba que el motor de combate aplica los golpes en memoria sin perder
+ * ninguno, los escribe en un único volcado y recupera su estado al arrancar.
+ */
+@SpringBootTest(properties = { "enemigos.combate.motor.enabled=true",
+		"enemigos.combate.motor.intervalo-ms=600000" })
+class MotorCombateTests {
+
+	private static final int HILOS = 32;
+	private static final int GOLPES = 4000;
+
+	@Autowired
+	private EnemigoService service;
+
+	@Autowired
+	private MotorCombate motorCombate;
+
+	@Autowired
+	private EnemigoRepository enemigoRepository;
+
+	@Autowired
+	private EnrutadorShards enrutadorShards;
+
+	@Autowired
+	private CacheEnemigos cacheEnemigos;
+
+	@Autowired
+	private VersionEnemigos versionEnemigos;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void aplicaLosGolpesEnMemoriaYLosEscribeEnUnVolcado() throws Exception {
+		Enemigo dragon = service.createEnemigo(new Enemigo("Dragón", "Jefe", 10, 1000, 90, 70, 100_000));
+		Enemigo orco = service.createEnemigo(new Enemigo("Orco", "Guerrero", 5, 300, 60, 40, 100_000));
+		long escriturasPrevias = motorCombate.getEscriturasBdd();
+
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+		List<Callable<Enemigo>> golpes = new ArrayList<>();
+		for (int i = 0; i < GOLPES; i++) {
+			int idEnemigo = i % 2 == 0 ? dragon.getIdEnemigo() : orco.getIdEnemigo();
+			golpes.add(() -> service.updateVida(idEnemigo, 5));
+		}
+		for (Future<Enemigo> golpe : executor.invokeAll(golpes)) {
+			golpe.get();
+		}
+		executor.shutdown();
+
+		int vidaEsperada = 100_000 - GOLPES / 2 * 5;
+		assertEquals(vidaEsperada, service.showById(dragon.getIdEnemigo()).getVidaActual());
+		assertEquals(100_000, enemigoRepository.findById(dragon.getIdEnemigo()).get().getVidaActual());
+
+		motorCombate.volcar();
+
+		assertEquals(2, motorCombate.getEscriturasBdd() - escriturasPrevias);
+		assertEquals(vidaEsperada, enemigoRepository.findById(dragon.getIdEnemigo()).get().getVidaActual());
+		assertEquals(vidaEsperada, enemigoRepository.findById(orco.getIdEnemigo()).get().getVidaActual());
+	}
+
+	@Test
+	void desactivaYReiniciaEnMemoriaYRecuperaElEstadoAlArrancar() throws Exception {
+		Enemigo lobo = service.createEnemigo(new Enemigo("Lobo", "Gigante", 4, 500, 50, 35, 40));
+		int idLobo = lobo.getIdEnemigo();
+
+		service.updateVida(idLobo, 45);
+		Enemigo inactivo = service.setEstadoInactivo(idLobo);
+		assertFalse(inactivo.isActivo());
+		assertTrue(inactivo.isVencido());
+		assertTrue(enemigoRepository.findById(idLobo).get().isActivo());
+
+		service.reiniciarEnemigos(null, idLobo, idLobo);
+		Enemigo reiniciado = service.showById(idLobo);
+		assertTrue(reiniciado.isActivo());
+		assertEquals(40, reiniciado.getVidaActual());
+
+		service.updateVida(idLobo, 10);
+		motorCombate.volcar();
+
+		MotorCombate recuperado = new MotorCombate(enemigoRepository, enrutadorShards, cacheEnemigos,
+				versionEnemigos, transactionTemplate, new SimpleMeterRegistry(), 600_000);
+		try {
+			recuperado.recuperar();
+			assertEquals(30, recuperado.aplicarEstado(lobo).getVidaActual());
+			assertTrue(recuperado.aplicarEstado(lobo).isActivo());
+		} finally {
+			recuperado.cerrar();
+		}
+	}
+}
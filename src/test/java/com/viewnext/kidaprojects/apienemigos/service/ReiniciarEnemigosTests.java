@@ -0,0 +1,133 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+import com.viewnext.kidaprojects.apienemigos.repository.EnemigoRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Comprueba el reinicio masivo de enemigos sobre una tabla grande, comparando
+ * su resultado con el del reinicio entidad a entidad.
+ */
+@SpringBootTest(properties = "enemigos.reinicio.tamano-bloque=" + ReiniciarEnemigosTests.BLOQUE)
+class ReiniciarEnemigosTests {
+
+	static final int BLOQUE = 3000;
+
+	private static final int FILAS = 20_000;
+
+	@Autowired
+	private EnemigoService service;
+
+	@Autowired
+	private EnemigoRepository enemigoRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void sembrarEnemigosVencidos() {
+		enemigoRepository.deleteAllInBatch();
+		jdbcTemplate.batchUpdate("INSERT INTO enemigos (nombre, descripcion, nivel, recompensa, fuerza, defensa, "
+				+ "vida_original, vida_actual, vencido, activo, version) VALUES (?, ?, ?, 10, 10, 10, 100, -5, true, false, 0)",
+				new AbstractList<Object[]>() {
+					@Override
+					public Object[] get(int i) {
+						return new Object[] { "Enemigo " + i, "Sembrado", i % 20 };
+					}
+
+					@Override
+					public int size() {
+						return FILAS;
+					}
+				});
+	}
+
+	@Test
+	void reinicioMasivoEsEquivalenteAlReinicioPorEntidad() {
+		// Por bloques y vaciando antes la región de la caché de segundo nivel: cada
+		// entidad actualizada se bloquea en ella y, con la región llena, Caffeine
+		// descarta los bloqueos antes de que Hibernate los libere
+		int despuesDe = 0;
+		List<Enemigo> listaEnemigos;
+		do {
+			int desde = despuesDe;
+			entityManagerFactory.getCache().evict(Enemigo.class);
+			listaEnemigos = transactionTemplate.execute(status -> {
+				List<Enemigo> bloque = enemigoRepository.findPagina(desde, PageRequest.ofSize(BLOQUE));
+				for (Enemigo e : bloque) {
+					e.setActivo(true);
+					e.setVencido(false);
+					e.setVidaActual(e.getVidaOriginal());
+				}
+				return enemigoRepository.saveAll(bloque);
+			});
+			if (!listaEnemigos.isEmpty()) {
+				despuesDe = listaEnemigos.get(listaEnemigos.size() - 1).getIdEnemigo();
+			}
+		} while (listaEnemigos.size() == BLOQUE);
+		assertEquals(0, contar("activo = false OR vencido = true OR vida_actual <> vida_original"));
+
+		sembrarEnemigosVencidos();
+
+		int reiniciados = service.reiniciarEnemigos();
+
+		assertEquals(FILAS, reiniciados);
+		assertEquals(0, contar("activo = false OR vencido = true OR vida_actual <> vida_original"));
+	}
+
+	@Test
+	void reinicioFiltradoSoloAfectaAlNivelYRangoIndicados() {
+		Integer idMinimo = enemigoRepository.findMinIdEnemigo();
+
+		int reiniciados = service.reiniciarEnemigos(4, idMinimo, idMinimo + 9999);
+
+		assertEquals(10_000 / 20 * 5, reiniciados);
+		assertEquals(reiniciados, contar("activo = true"));
+		assertEquals(reiniciados, contar("activo = true AND nivel <= 4 AND id_enemigo < " + (idMinimo + 10_000)));
+	}
+
+	@Test
+	void reinicioNoRecorreLosHuecosEntreIdentificadores() {
+		Integer idMaximo = enemigoRepository.findMaxIdEnemigo();
+		jdbcTemplate.update("UPDATE enemigos SET id_enemigo = ? WHERE id_enemigo = ?", Integer.MAX_VALUE - 1,
+				idMaximo);
+
+		try {
+			// Recorriendo cada identificador serían cientos de miles de bloques vacíos
+			int reiniciados = assertTimeout(Duration.ofSeconds(30), () -> service.reiniciarEnemigos());
+
+			assertEquals(FILAS, reiniciados);
+			assertEquals(1, contar("activo = true AND id_enemigo = " + (Integer.MAX_VALUE - 1)));
+		} finally {
+			jdbcTemplate.update("DELETE FROM enemigos WHERE id_enemigo = ?", Integer.MAX_VALUE - 1);
+			// H2 adelanta la secuencia de identidad al actualizar la clave
+			jdbcTemplate.execute("ALTER TABLE enemigos ALTER COLUMN id_enemigo RESTART WITH " + (idMaximo + 1));
+		}
+	}
+
+	private int contar(String condicion) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM enemigos WHERE " + condicion, Integer.class);
+	}
+}
@@ -0,0 +1,79 @@
+package com.viewnext.kidaprojects.apienemigos.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.viewnext.kidaprojects.apienemigos.model.Enemigo;
+
+/**
+ * Comprueba que {@code updateVida} no pierde golpes cuando muchos jugadores
+ * atacan al mismo enemigo a la vez.
+ */
+@SpringBootTest
+class UpdateVidaConcurrenciaTests {
+
+	private static final int HILOS = 32;
+	private static final int GOLPES = 4000;
+
+	@Autowired
+	private EnemigoService service;
+
+	@Test
+	void golpesConcurrentesNoSePierden() throws Exception {
+		Enemigo enemigo = service.createEnemigo(new Enemigo("Titán", "Jefe de banda", 20, 5000, 100, 100, 1_000_000));
+
+		lanzarGolpes(enemigo.getIdEnemigo(), 3);
+
+		Enemigo resultado = service.showById(enemigo.getIdEnemigo());
+		assertEquals(1_000_000 - GOLPES * 3, resultado.getVidaActual());
+		assertFalse(resultado.isVencido());
+	}
+
+	@Test
+	void vencidoSeCalculaSobreLaVidaResultante() throws Exception {
+		Enemigo enemigo = service.createEnemigo(new Enemigo("Slime", "Muy débil", 1, 1, 1, 1, GOLPES / 2));
+
+		lanzarGolpes(enemigo.getIdEnemigo(), 1);
+
+		Enemigo resultado = service.showById(enemigo.getIdEnemigo());
+		assertEquals(-GOLPES / 2, resultado.getVidaActual());
+		assertTrue(resultado.isVencido());
+	}
+
+	@Test
+	void elUltimoGolpeMarcaVencidoSinEsperarAlSiguiente() {
+		Enemigo enemigo = service.createEnemigo(new Enemigo("Rata", "Una rata", 1, 1, 1, 1, 10));
+
+		Enemigo resultado = service.updateVida(enemigo.getIdEnemigo(), 10);
+
+		assertEquals(0, resultado.getVidaActual());
+		assertTrue(resultado.isVencido());
+	}
+
+	private void lanzarGolpes(int idEnemigo, int damage) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+		try {
+			List<Callable<Enemigo>> golpes = new ArrayList<>();
+			for (int i = 0; i < GOLPES; i++) {
+				golpes.add(() -> service.updateVida(idEnemigo, damage));
+			}
+			for (Future<Enemigo> golpe : executor.invokeAll(golpes)) {
+				golpe.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}